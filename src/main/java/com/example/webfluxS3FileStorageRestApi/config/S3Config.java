@@ -0,0 +1,40 @@
+package com.example.webfluxS3FileStorageRestApi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+@Configuration
+public class S3Config {
+
+    private static final Region AWS_S3_REGION_EU_CENTRAL_1 = Region.EU_CENTRAL_1;
+
+    @Value("${app.s3.aws-access-key-id}")
+    private String awsAccessKeyId;
+
+    @Value("${app.s3.aws-secret-access-key}")
+    private String awsSecretAccessKey;
+
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(awsAccessKeyId, awsSecretAccessKey)))
+                .region(AWS_S3_REGION_EU_CENTRAL_1)
+                .build();
+    }
+
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(awsAccessKeyId, awsSecretAccessKey)))
+                .region(AWS_S3_REGION_EU_CENTRAL_1)
+                .build();
+    }
+}
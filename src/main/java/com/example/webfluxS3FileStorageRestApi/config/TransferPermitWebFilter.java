@@ -0,0 +1,25 @@
+package com.example.webfluxS3FileStorageRestApi.config;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.TransferAdmission;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Opens a {@link TransferAdmission.PermitScope} for every exchange and closes it once the
+ * exchange has completed, failed or been cancelled, so no download permit outlives its request.
+ */
+@Component
+public class TransferPermitWebFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        TransferAdmission.PermitScope scope = new TransferAdmission.PermitScope();
+        return chain.filter(exchange)
+                .doFinally(signal -> scope.close())
+                .contextWrite(Context.of(TransferAdmission.PermitScope.class, scope));
+    }
+}
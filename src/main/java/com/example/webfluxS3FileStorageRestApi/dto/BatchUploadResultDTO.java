@@ -0,0 +1,26 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class BatchUploadResultDTO {
+
+    private String fileName;
+    private Result result;
+    private LocalDateTime uploadDateTime;
+    private String error;
+
+    public enum Result {
+        UPLOADED,
+        FAILED
+    }
+}
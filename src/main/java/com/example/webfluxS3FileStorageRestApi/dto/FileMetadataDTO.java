@@ -0,0 +1,24 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class FileMetadataDTO {
+
+    private String storageKey;
+    private String etag;
+    private Long size;
+    private Instant lastModified;
+    private String contentEncoding;
+    private String checksumCrc32c;
+
+    public FileMetadataDTO(String storageKey, String etag, Long size, Instant lastModified) {
+        this(storageKey, etag, size, lastModified, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PresignedUploadCompleteRequestDTO {
+
+    private String uploadId;
+    private List<CompletedPartDTO> parts;
+}
@@ -0,0 +1,16 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PresignedUploadRequestDTO {
+
+    private String fileName;
+    private Long contentLength;
+    private String contentType;
+}
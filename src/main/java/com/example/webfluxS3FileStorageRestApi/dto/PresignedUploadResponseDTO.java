@@ -0,0 +1,24 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class PresignedUploadResponseDTO {
+
+    private Long fileId;
+    private String fileName;
+    private String uploadId;
+    private Long partSize;
+    private List<PresignedPartUrlDTO> parts;
+    private Instant expiresAt;
+}
@@ -0,0 +1,15 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class ResumableUploadDTO {
+
+    private String objectName;
+    private String uploadId;
+    private Long partSize;
+}
@@ -0,0 +1,21 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Builder
+public class StagedObjectDTO {
+
+    private String objectName;
+    private String contentHash;
+    private Long size;
+    private String contentEncoding;
+    private String checksumCrc32c;
+
+    public StagedObjectDTO(String objectName, String contentHash, Long size) {
+        this(objectName, contentHash, size, null, null);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class UploadJobDTO {
+
+    private String jobId;
+    private String fileName;
+    private State state;
+    private long bytesTransferred;
+    private long totalBytes;
+    private UploadedFileResponseDTO.StorageStatus storageStatus;
+    private String error;
+    private LocalDateTime acceptedDateTime;
+
+    public enum State {
+        QUEUED,
+        TRANSFERRING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.webfluxS3FileStorageRestApi.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Builder
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class UploadSessionDTO {
+
+    private String uploadId;
+    private String fileName;
+    private long uploadOffset;
+    private long uploadLength;
+    private long partSize;
+    private boolean completed;
+    private Instant expiresAt;
+}
@@ -16,4 +16,17 @@ public class UploadedFileResponseDTO {
 
     private String fileName;
     private LocalDateTime uploadDateTime;
+    private StorageStatus storageStatus;
+
+    public UploadedFileResponseDTO(String fileName, LocalDateTime uploadDateTime) {
+        this(fileName, uploadDateTime, StorageStatus.STORED);
+    }
+
+    /**
+     * {@code STAGED} while a write-behind upload is held on local disk, {@code STORED} once it is in S3.
+     */
+    public enum StorageStatus {
+        STAGED,
+        STORED
+    }
 }
@@ -41,6 +41,7 @@ public class CustomErrorWebExceptionHandler implements ErrorWebExceptionHandler
             errorPropertiesMap.put("timestamp", Instant.now().toString());
 
             exchange.getResponse().setStatusCode(responseStatusException.getStatusCode());
+            exchange.getResponse().getHeaders().addAll(responseStatusException.getHeaders());
 
             try {
                 byte[] errorBytes = objectMapper.writeValueAsBytes(errorPropertiesMap);
@@ -0,0 +1,25 @@
+package com.example.webfluxS3FileStorageRestApi.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * 429 answer of the transfer admission control, telling the client when to try again.
+ */
+public class TransferRejectedException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public TransferRejectedException(String reason, Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
@@ -52,12 +52,75 @@ public final class ErrorMessages {
         public static final String ERR_FILE_UPLOAD_FAILED = "File upload failed: ";
         public static final String ERR_UPLOADING_FILE_WITH_FILENAME_AND_USER_ID = "Error uploading file with filename and user ID: {}, {}, {}";
         public static final String ERR_DOWNLOADING_FILE_WITH_FILENAME = "Error downloading file with filename: {}, {}";
+        public static final String ERR_RECONCILING_PENDING_UPLOAD = "Reconciling pending upload failed with file ID: {}, {}";
+        public static final String ERR_SEALING_PACKS_FAILED = "Sealing packs failed: {}";
+        public static final String ERR_COMPACTING_PACKS_FAILED = "Compacting packs failed: {}";
+        public static final String ERR_FLUSHING_LOCAL_FILES_FAILED = "Flushing write-behind files failed: {}";
+        public static final String ERR_FLUSHING_LOCAL_FILE = "Flushing write-behind file {} failed: {}";
 
         public static final String ERR_FILE_NOT_FOUND_IN_S_3 = "File not found in S3: {}";
         public static final String ERR_CREATE_TEMP_DIRECTORY_FAILED = "Create temp directory failed: ";
         public static final String ERR_FILE_UPLOAD_TO_S_3_FAILED = "File upload to S3 failed: ";
+        public static final String ERR_DELETE_TEMP_FILE_FAILED = "Delete temp file failed: ";
+        public static final String ERR_INVALID_MULTIPART_PART_SIZE = "Multipart part size must be between 5MB and 2GB: ";
+        public static final String ERR_MULTIPART_UPLOAD_ABORT_FAILED = "Multipart upload abort failed for key: {}, {}";
+        public static final String WARN_RETRYING_MULTIPART_PART = "Retrying multipart part {} of key {}: {}";
+        public static final String WARN_RETRYING_RANGED_GET = "Retrying ranged GET {}-{} of key {}: {}";
+        public static final String WARN_DISK_CACHE_POPULATE_FAILED = "Disk cache population failed for key {}, streaming from S3: {}";
+        public static final String ERR_DISK_CACHE_INIT_FAILED = "Disk cache initialization failed: ";
+        public static final String ERR_DISK_CACHE_DELETE_FAILED = "Disk cache file delete failed: ";
+        public static final String ERR_MEMORY_CACHE_ENTRY_RELEASED = "Memory cache entry was released before it was sent: ";
 
         public static final String ERR_FILE_DOWNLOADED_FROM_S_3_FAILED = "File downloaded from S3 failed: ";
+        public static final String ERR_INVALID_RANGE = "Requested range not satisfiable: ";
+        public static final String ERR_PRESIGNED_TRANSFERS_DISABLED = "Presigned transfers are disabled";
+        public static final String ERR_INVALID_CONTENT_LENGTH = "Invalid content length: ";
+        public static final String ERR_PRESIGNED_UPLOAD_TOO_LARGE = "Presigned upload exceeds 10000 parts: ";
+        public static final String ERR_PRESIGNED_UPLOAD_PARTS_MISSING = "No parts given to complete upload: ";
+        public static final String ERR_PRESIGNED_UPLOAD_INCOMPLETE = "Presigned upload is not complete: ";
+        public static final String ERR_PENDING_UPLOAD_NOT_FOUND = "Pending upload not found with file ID: ";
+        public static final String ERR_INVALID_IF_RANGE = "Invalid If-Range header: ";
+        public static final String ERR_INVALID_CHUNK_SIZES = "Chunk sizes must satisfy 0 < min < avg < max: ";
+        public static final String ERR_CHUNK_MANIFEST_NOT_FOUND = "Chunk manifest not found: ";
+        public static final String ERR_PRESIGNED_DOWNLOAD_UNAVAILABLE = "File is not stored as a single object and cannot be downloaded through a presigned URL: ";
+        public static final String ERR_PRESIGNED_DOWNLOAD_ENCRYPTED = "File is encrypted by the server and cannot be downloaded through a presigned URL: ";
+        public static final String ERR_PACK_DIRECTORY_INIT_FAILED = "Pack directory initialization failed: ";
+        public static final String ERR_PACK_ENTRY_NOT_FOUND = "Pack entry not found: ";
+        public static final String ERR_PACK_CLOSE_FAILED = "Pack file close failed: ";
+        public static final String ERR_WRITE_BEHIND_DIRECTORY_INIT_FAILED = "Write-behind directory initialization failed: ";
+        public static final String ERR_LOCAL_FILE_NOT_FOUND = "Write-behind file not found: ";
+        public static final String ERR_PRESIGNED_DOWNLOAD_NOT_FLUSHED = "File has not been flushed to S3 yet and cannot be downloaded through a presigned URL: ";
+        public static final String ERR_UPLOADED_FILE_NOT_FOUND = "Uploaded file not found with filename: ";
+        public static final String WARN_RETRYING_LOCAL_FILE_FLUSH = "Retrying flush of write-behind file {}: {}";
+        public static final String ERR_BATCH_UPLOAD_TOO_LARGE = "Batch upload exceeds the maximum number of files: ";
+        public static final String ERR_SPOOL_QUOTA_EXCEEDED = "Upload spool is full, disk quota: ";
+        public static final String ERR_INVALID_GZIP_CONTENT = "Invalid gzip content: ";
+        public static final String ERR_CHECKSUM_MISMATCH = "Stored content failed its CRC32C check: ";
+        public static final String ERR_SCRUBBING_FILES_FAILED = "Scrubbing stored files failed: {}";
+        public static final String ERR_SCRUB_CHECKSUM_MISMATCH = "Stored object {} of file ID {} has CRC32C {}, expected {}";
+        public static final String ERR_INVALID_ENCRYPTED_CONTENT = "Invalid encrypted content: ";
+        public static final String ERR_INVALID_MASTER_KEY = "Encryption master key is not usable: ";
+        public static final String ERR_INVALID_ENCRYPTION_SEGMENT_SIZE = "Encryption segment size must be between 1KB and 16MB: ";
+        public static final String ERR_ENCRYPTION_UNSUPPORTED = "Encryption cannot be enabled together with ";
+        public static final String ERR_PRESIGNED_UPLOADS_ENCRYPTED = "Presigned uploads are unavailable while encryption is enabled";
+        public static final String ERR_TRANSFER_QUEUE_FULL = "Too many transfers in progress, try again later";
+        public static final String ERR_TRANSFER_QUEUE_TIMEOUT = "Transfer waited too long for admission, try again later";
+        public static final String WARN_TRANSFER_REJECTED = "Transfer rejected: {}, in-flight budget {}";
+        public static final String ERR_UPLOAD_JOB_QUEUE_FULL = "Too many upload jobs in progress, try again later";
+        public static final String ERR_UPLOAD_JOB_NOT_FOUND = "Upload job not found: ";
+        public static final String ERR_UPLOAD_JOB_FAILED = "Upload job {} failed for filename: {}, {}";
+        public static final String ERR_INVALID_IDEMPOTENCY_KEY = "Idempotency-Key must be 1 to 255 characters: ";
+        public static final String ERR_IDEMPOTENCY_KEY_REUSED = "Idempotency-Key was already used for a different file: ";
+        public static final String ERR_IDEMPOTENT_UPLOAD_IN_PROGRESS = "An upload with this Idempotency-Key is still in progress: ";
+        public static final String ERR_SWEEPING_IDEMPOTENCY_KEYS_FAILED = "Sweeping expired idempotency keys failed: {}";
+        public static final String ERR_UPLOAD_SESSION_NOT_FOUND = "Upload session not found: ";
+        public static final String ERR_UPLOAD_SESSION_EXPIRED = "Upload session expired: ";
+        public static final String ERR_UPLOAD_OFFSET_MISMATCH = "Upload-Offset does not match the session, current offset: ";
+        public static final String ERR_UPLOAD_SESSION_LENGTH_EXCEEDED = "Content goes beyond the Upload-Length of the session: ";
+        public static final String ERR_UPLOAD_SESSION_TOO_LARGE = "Upload session exceeds 10000 parts: ";
+        public static final String ERR_UPLOAD_SESSION_INCOMPLETE = "Stored parts do not cover the upload session: ";
+        public static final String ERR_UPLOAD_SESSIONS_ENCRYPTED = "Resumable uploads are unavailable while encryption is enabled";
+        public static final String ERR_EXPIRING_UPLOAD_SESSION = "Expiring upload session {} with multipart upload {} failed: {}";
 
     }
 }
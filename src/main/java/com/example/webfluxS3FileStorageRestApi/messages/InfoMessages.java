@@ -49,9 +49,37 @@ public final class InfoMessages {
     public static class FileStorage {
         public static final String INFO_FILE_UPLOADED_SUCCESSFULLY_WITH_FILENAME_AND_USER_ID = "File uploaded successfully with filename and user ID: {}, {}";
         public static final String INFO_FILE_DOWNLOADED_SUCCESSFULLY_WITH_FILENAME = "File downloaded successfully with filename: {},";
+        public static final String INFO_FILE_NOT_MODIFIED_WITH_FILENAME = "File not modified, answering from metadata: {}";
 
-        public static final String INFO_FILE_SAVED_SUCCESSFULLY = "File saved successfully: ";
+        public static final String INFO_FILE_SPILLED_TO_DISK = "Upload spilled to spool file: {}, declared length {}";
         public static final String INFO_FILE_UPLOADED_SUCCESSFULLY_TO_S_3 = "File uploaded successfully to S3: ";
+        public static final String INFO_FILE_STREAMING_TO_S_3 = "Streaming file to S3: {}, {} bytes";
+        public static final String INFO_FILE_MULTIPART_UPLOADING_TO_S_3 = "Multipart uploading file to S3: {}";
+        public static final String INFO_MULTIPART_UPLOAD_COMPLETED = "Multipart upload completed for key: {}, {} parts";
+        public static final String INFO_PRESIGNED_MULTIPART_UPLOAD_CREATED = "Presigned multipart upload created for key: {}, {} parts";
+        public static final String INFO_CONTENT_STORED = "Content stored under key: {}";
+        public static final String INFO_CONTENT_ALREADY_STORED = "Content already stored under key, staged copy dropped: {}";
+        public static final String INFO_SCRUB_COMPLETED = "Scrubbing round checked {} stored objects";
+        public static final String INFO_CHUNKED_UPLOAD_STORED = "Chunked upload stored under key: {}, {} chunks, {} new";
+        public static final String INFO_CHUNKED_DOWNLOAD_STARTED = "Chunked download of key {} started: {} chunks, prefetch {}";
+        public static final String INFO_PACK_SEALED = "Pack sealed and uploaded: {}, {} bytes";
+        public static final String INFO_PACK_COMPACTED = "Pack compacted: {}, {} live entries moved";
+        public static final String INFO_LOCAL_FILE_FLUSHED = "Write-behind file {} flushed to S3 under key: {}, {} files updated";
+        public static final String INFO_FILE_DEDUPLICATED = "Upload deduplicated against stored content: {}, {}";
+        public static final String INFO_PENDING_UPLOAD_ACTIVATED = "Pending upload reconciled as active with file ID: {}";
+        public static final String INFO_PENDING_UPLOAD_DISCARDED = "Pending upload reconciled as failed with file ID: {}";
+        public static final String INFO_PRESIGNED_UPLOAD_COMPLETED = "Presigned upload completed with file ID: {}";
+        public static final String INFO_UPLOAD_JOB_ACCEPTED = "Upload job {} accepted for filename: {}, {} bytes";
+        public static final String INFO_UPLOAD_JOB_COMPLETED = "Upload job {} completed for filename: {}";
+        public static final String INFO_IDEMPOTENT_UPLOAD_REPLAYED = "Replayed upload for Idempotency-Key: {}, filename: {}";
+        public static final String INFO_IDEMPOTENT_UPLOAD_ATTACHED = "Attached to upload in flight for Idempotency-Key: {}, filename: {}";
+        public static final String INFO_UPLOAD_SESSION_CREATED = "Upload session {} created for filename: {}, {} bytes";
+        public static final String INFO_UPLOAD_SESSION_COMPLETED = "Upload session {} completed for filename: {}";
+        public static final String INFO_UPLOAD_SESSION_EXPIRED = "Upload session {} expired at offset {}";
+        public static final String INFO_MULTIPART_UPLOAD_ABORTED = "Multipart upload aborted for key: {}";
+        public static final String INFO_MEMORY_CACHE_POPULATED = "Memory cache populated for key {}: {} bytes";
+        public static final String INFO_DISK_CACHE_POPULATED = "Disk cache populated for key {}: {} bytes";
+        public static final String INFO_PARALLEL_DOWNLOAD_STARTED = "Parallel download of key {} started: {} parts, parallelism {}";
         public static final String INFO_FILE_DOWNLOADED_SUCCESSFULLY_FROM_S_3 = "File downloaded successfully from S3: ";
     }
 }
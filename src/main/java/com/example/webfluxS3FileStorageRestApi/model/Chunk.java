@@ -0,0 +1,17 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "chunk")
+public class Chunk {
+
+    @Id
+    private String hash;
+    private Integer size;
+}
@@ -0,0 +1,21 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "chunk_manifest")
+public class ChunkManifest {
+
+    @Id
+    private String id;
+    private String contentHash;
+    private Long size;
+    private LocalDateTime createdAt;
+}
@@ -4,6 +4,8 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.time.LocalDateTime;
+
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
@@ -13,4 +15,11 @@ import org.springframework.data.relational.core.mapping.Table;
 public class File extends BaseEntity {
 
     private String location;
+    private String storageKey;
+    private String contentHash;
+    private String contentEncoding;
+    private String checksumCrc32c;
+    private String etag;
+    private Long size;
+    private LocalDateTime lastModified;
 }
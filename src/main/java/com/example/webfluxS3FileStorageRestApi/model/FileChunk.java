@@ -0,0 +1,21 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "file_chunk")
+public class FileChunk {
+
+    @Id
+    private Long id;
+    private String manifestId;
+    private Integer seq;
+    private String chunkHash;
+    private Long chunkOffset;
+    private Integer size;
+}
@@ -0,0 +1,20 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "pack")
+public class Pack {
+
+    @Id
+    private String id;
+    private Long size;
+    private LocalDateTime createdAt;
+}
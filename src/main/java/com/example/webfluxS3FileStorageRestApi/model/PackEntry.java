@@ -0,0 +1,23 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "pack_entry")
+public class PackEntry {
+
+    @Id
+    private Long id;
+    private String packId;
+    private Long entryOffset;
+    private Integer length;
+    private String contentHash;
+    private LocalDateTime createdAt;
+}
@@ -2,5 +2,6 @@ package com.example.webfluxS3FileStorageRestApi.model;
 
 public enum Status {
     ACTIVE,
-    DELETED
+    DELETED,
+    PENDING
 }
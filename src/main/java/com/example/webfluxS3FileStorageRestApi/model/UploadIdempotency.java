@@ -0,0 +1,30 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "upload_idempotency")
+public class UploadIdempotency {
+
+    @Id
+    private Long id;
+    private Long userId;
+    private String idempotencyKey;
+    private String fileName;
+    private State status;
+    private String storageStatus;
+    private LocalDateTime uploadDateTime;
+    private LocalDateTime createdAt;
+
+    public enum State {
+        IN_PROGRESS,
+        COMPLETED
+    }
+}
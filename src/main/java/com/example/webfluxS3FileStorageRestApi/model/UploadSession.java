@@ -0,0 +1,34 @@
+package com.example.webfluxS3FileStorageRestApi.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "upload_session")
+public class UploadSession {
+
+    @Id
+    private String id;
+    private Long userId;
+    private String fileName;
+    private String contentType;
+    private Long uploadLength;
+    private Long uploadOffset;
+    private Long partSize;
+    private String objectName;
+    private String multipartUploadId;
+    private State status;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    public enum State {
+        OPEN,
+        COMPLETED
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.ChunkManifest;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ChunkManifestRepository extends R2dbcRepository<ChunkManifest, String> {
+
+    @Modifying
+    @Query("""
+            insert into chunk_manifest (id, content_hash, size, created_at)
+            values (:id, :contentHash, :size, :createdAt)
+            """)
+    Mono<Integer> insert(String id, String contentHash, long size, LocalDateTime createdAt);
+}
@@ -0,0 +1,14 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.Chunk;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface ChunkRepository extends R2dbcRepository<Chunk, String> {
+
+    @Modifying
+    @Query("insert ignore into chunk (hash, size) values (:hash, :size)")
+    Mono<Integer> insertIgnore(String hash, int size);
+}
@@ -28,6 +28,10 @@ public interface EventRepository extends R2dbcRepository<Event, Long> {
     @Query("update event set status = 'DELETED' where status = 'ACTIVE' and id = :id")
     Mono<Void> deleteActiveById(Long id);
 
+    @Modifying
+    @Query("update event set status = 'DELETED' where status = 'ACTIVE' and file_id = :fileId")
+    Mono<Integer> deleteAllActiveByFileId(Long fileId);
+
     @Modifying
     @Query("update event set status = 'DELETED' where status = 'ACTIVE' and user_id = :userId")
     Mono<Integer> deleteAllActiveByUserId(Long userId);
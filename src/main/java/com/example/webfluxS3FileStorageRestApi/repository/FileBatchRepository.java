@@ -0,0 +1,21 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Writes the rows of a batch upload as one statement per table, each with a binding per file,
+ * instead of a round trip per row.
+ */
+public interface FileBatchRepository {
+
+    /**
+     * Inserts a PENDING file per location, staged under the storage key at the same index,
+     * and emits the generated IDs in the same order.
+     */
+    Flux<Long> insertPendingFiles(List<String> locations, List<String> storageKeys);
+
+    Mono<Void> insertEvents(Long userId, List<Long> fileIds);
+}
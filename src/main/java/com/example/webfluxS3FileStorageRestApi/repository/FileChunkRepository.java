@@ -0,0 +1,18 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.FileChunk;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface FileChunkRepository extends R2dbcRepository<FileChunk, Long> {
+
+    @Query("select * from file_chunk where manifest_id = :manifestId order by seq")
+    Flux<FileChunk> findAllByManifestId(String manifestId);
+
+    @Modifying
+    @Query("delete from file_chunk where manifest_id = :manifestId")
+    Mono<Integer> deleteAllByManifestId(String manifestId);
+}
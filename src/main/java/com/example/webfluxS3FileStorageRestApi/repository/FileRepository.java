@@ -8,14 +8,33 @@ import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 public interface FileRepository extends R2dbcRepository<File, Long> {
 
     @Query("select * from file where status = 'ACTIVE' and id = :id")
     Mono<File> findActiveById(@NonNull Long id);
 
+    @Query("select * from file where status = 'PENDING' and id = :id")
+    Mono<File> findPendingById(Long id);
+
+    @Query("select * from file where status = 'PENDING' and created_at < TIMESTAMPADD(SECOND, -:staleSeconds, NOW())")
+    Flux<File> findAllPendingOlderThan(long staleSeconds);
+
     @Query("select * from file where status = 'ACTIVE'")
     Flux<File> findAllActive();
 
+    @Query("select max(id) from file")
+    Mono<Long> findMaxId();
+
+    @Query("""
+            select * from file
+            where id >= :fromId and status = 'ACTIVE' and checksum_crc32c is not null
+            order by id
+            limit :limit
+            """)
+    Flux<File> findActiveWithChecksumFromId(long fromId, int limit);
+
     @Query(
             value = """
             SELECT *
@@ -38,6 +57,74 @@ public interface FileRepository extends R2dbcRepository<File, Long> {
             """)
     Mono<Long> getIdByFileName(String fileName);
 
+    @Query(
+            value = """
+            SELECT *
+            FROM file f
+            WHERE SUBSTRING_INDEX(f.location, '/', -1) = :fileName
+              AND f.status = 'ACTIVE'
+            ORDER BY f.id DESC
+            LIMIT 1;
+            """)
+    Mono<File> findLatestActiveByFileName(String fileName);
+
+    @Query(
+            value = """
+            SELECT f.*
+            FROM file f
+            JOIN event e ON e.file_id = f.id
+            WHERE SUBSTRING_INDEX(f.location, '/', -1) = :fileName
+              AND e.user_id = :userId
+              AND e.status = 'ACTIVE'
+              AND f.status = 'ACTIVE'
+            ORDER BY f.id DESC
+            LIMIT 1;
+            """)
+    Mono<File> findLatestActiveByFileNameAndUserId(String fileName, Long userId);
+
+    @Query(
+            value = """
+            SELECT *
+            FROM file f
+            WHERE f.content_hash = :contentHash
+              AND f.storage_key IS NOT NULL
+              AND f.status = 'ACTIVE'
+            ORDER BY f.id DESC
+            LIMIT 1;
+            """)
+    Mono<File> findLatestActiveByContentHash(String contentHash);
+
+    @Modifying
+    @Query("""
+            update file
+            set status = 'ACTIVE', storage_key = :storageKey, content_hash = :contentHash,
+                content_encoding = :contentEncoding, checksum_crc32c = :checksumCrc32c,
+                etag = :etag, size = :size, last_modified = :lastModified
+            where id = :id and status = 'PENDING'
+            """)
+    Mono<Integer> activateStored(Long id, String storageKey, String contentHash, String contentEncoding,
+                                 String checksumCrc32c, String etag, Long size, LocalDateTime lastModified);
+
+    @Query("select distinct storage_key from file where status = 'ACTIVE' and storage_key like :pattern")
+    Flux<String> findActiveStorageKeysLike(String pattern);
+
+    @Query("select count(*) from file where storage_key = :storageKey and status = 'ACTIVE'")
+    Mono<Long> countActiveByStorageKey(String storageKey);
+
+    @Modifying
+    @Query("""
+            update file
+            set storage_key = :storageKey, content_encoding = :contentEncoding, checksum_crc32c = :checksumCrc32c,
+                etag = :etag, size = :size, last_modified = :lastModified
+            where storage_key = :previousStorageKey
+            """)
+    Mono<Integer> relocateStored(String previousStorageKey, String storageKey, String contentEncoding,
+                                 String checksumCrc32c, String etag, Long size, LocalDateTime lastModified);
+
+    @Modifying
+    @Query("update file set status = 'DELETED' where id = :id and status = 'PENDING'")
+    Mono<Integer> deletePendingById(Long id);
+
     @Modifying
     @Query("update file f set status = 'DELETED' where f.id = :id and status = 'ACTIVE'")
     Mono<Void> deleteActiveById(Long id);
@@ -1,13 +1,93 @@
 package com.example.webfluxS3FileStorageRestApi.repository;
 
-import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
-import org.springframework.core.io.Resource;
+import com.example.webfluxS3FileStorageRestApi.dto.CompletedPartDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.ResumableUploadDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.util.List;
+
 public interface FileStorageRepository {
 
-    Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart);
-    Mono<ResponseEntity<Resource>> downloadFileFromStorage(String fileName);
+    /**
+     * A new key for {@link #uploadUserFileToStorage}, handed out before the transfer so that
+     * it can be recorded on the pending file and an interrupted upload can be found again.
+     */
+    String newStagingKey();
+
+    default Mono<StagedObjectDTO> uploadUserFileToStorage(FilePart filePart) {
+        return uploadUserFileToStorage(filePart, newStagingKey());
+    }
+
+    /**
+     * Stages the part under {@code stagingKey}. Packed, local and chunked uploads are stored
+     * under a name of their own, which the result carries.
+     */
+    Mono<StagedObjectDTO> uploadUserFileToStorage(FilePart filePart, String stagingKey);
+
+    Mono<FileMetadataDTO> promoteStagedObject(StagedObjectDTO stagedObject);
+
+    Mono<Void> deleteStagedObject(StagedObjectDTO stagedObject);
+
+    /**
+     * Moves a file that the write-behind mode holds on local disk to storage and returns
+     * where it is stored now.
+     */
+    Mono<FileMetadataDTO> flushLocalObject(String objectName);
+
+    default Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorage(String fileName) {
+        return downloadFileFromStorage(fileName, HttpHeaders.EMPTY);
+    }
+
+    Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorage(String fileName, HttpHeaders requestHeaders);
+
+    Mono<FileMetadataDTO> getFileMetadata(String fileName);
+
+    /**
+     * The base64 CRC32C that storage holds for the object, or empty when it has none.
+     */
+    Mono<String> getStoredChecksum(String objectName);
+
+    /**
+     * A new key for content that clients send in place, through presigned or resumable uploads.
+     * It is unique per upload, so uploads of equal file names never overwrite each other.
+     */
+    String newUploadKey();
+
+    Mono<PresignedUploadResponseDTO> createPresignedUpload(String objectName, String fileName, Long contentLength,
+                                                           String contentType);
+
+    Mono<FileMetadataDTO> completePresignedUpload(String objectName, String uploadId, List<CompletedPartDTO> parts);
+
+    Mono<URI> presignDownload(String objectName, String fileName);
+
+    /**
+     * Starts an upload of {@code uploadLength} bytes that is fed in pieces by
+     * {@link #appendResumableUpload} and can be resumed after any acknowledged part.
+     */
+    Mono<ResumableUploadDTO> createResumableUpload(String contentType, long uploadLength);
+
+    /**
+     * Stores {@code content}, which starts at {@code offset}, and emits the offset up to which
+     * the upload is durable after every part storage has acknowledged.
+     */
+    Flux<Long> appendResumableUpload(ResumableUploadDTO upload, long offset, long uploadLength, Flux<DataBuffer> content);
+
+    /**
+     * Assembles the stored parts into the object. Completing an upload again returns the same object.
+     */
+    Mono<FileMetadataDTO> completeResumableUpload(ResumableUploadDTO upload, long uploadLength);
+
+    /**
+     * Drops the stored parts, and the object if the upload had been assembled already.
+     */
+    Mono<Void> abortResumableUpload(ResumableUploadDTO upload);
 }
@@ -0,0 +1,33 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.PackEntry;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface PackEntryRepository extends R2dbcRepository<PackEntry, Long> {
+
+    @Query(
+            value = """
+            SELECT *
+            FROM pack_entry e
+            WHERE e.pack_id = :packId
+              AND (e.created_at > TIMESTAMPADD(SECOND, -:graceSeconds, UTC_TIMESTAMP())
+                   OR EXISTS (SELECT 1
+                              FROM file f
+                              WHERE f.storage_key = CONCAT('packed/', e.id)
+                                AND f.status = 'ACTIVE'))
+            ORDER BY e.entry_offset;
+            """)
+    Flux<PackEntry> findAllLiveByPackId(String packId, long graceSeconds);
+
+    @Modifying
+    @Query("update pack_entry set pack_id = :packId, entry_offset = :entryOffset where id = :id")
+    Mono<Integer> relocate(Long id, String packId, long entryOffset);
+
+    @Modifying
+    @Query("delete from pack_entry where pack_id = :packId")
+    Mono<Integer> deleteAllByPackId(String packId);
+}
@@ -0,0 +1,37 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.Pack;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface PackRepository extends R2dbcRepository<Pack, String> {
+
+    @Modifying
+    @Query("insert ignore into pack (id, size, created_at) values (:id, :size, :createdAt)")
+    Mono<Integer> insertIgnore(String id, long size, LocalDateTime createdAt);
+
+    /**
+     * Packs whose live entries take up at most {@code maxLiveRatio} of their size. An entry is
+     * live while an ACTIVE file points at it, or while it is younger than the grace period,
+     * so an upload that is not activated yet keeps its entry.
+     */
+    @Query(
+            value = """
+            SELECT *
+            FROM pack p
+            WHERE (SELECT COALESCE(SUM(e.length), 0)
+                   FROM pack_entry e
+                   WHERE e.pack_id = p.id
+                     AND (e.created_at > TIMESTAMPADD(SECOND, -:graceSeconds, UTC_TIMESTAMP())
+                          OR EXISTS (SELECT 1
+                                     FROM file f
+                                     WHERE f.storage_key = CONCAT('packed/', e.id)
+                                       AND f.status = 'ACTIVE'))) <= p.size * :maxLiveRatio;
+            """)
+    Flux<Pack> findAllCompactable(double maxLiveRatio, long graceSeconds);
+}
@@ -0,0 +1,41 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.UploadIdempotency;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface UploadIdempotencyRepository extends R2dbcRepository<UploadIdempotency, Long> {
+
+    @Modifying
+    @Query("""
+            insert ignore into upload_idempotency (user_id, idempotency_key, file_name, status, created_at)
+            values (:userId, :idempotencyKey, :fileName, 'IN_PROGRESS', :createdAt)
+            """)
+    Mono<Integer> insertIgnore(Long userId, String idempotencyKey, String fileName, LocalDateTime createdAt);
+
+    Mono<UploadIdempotency> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("""
+            update upload_idempotency
+            set status = 'COMPLETED', storage_status = :storageStatus, upload_date_time = :uploadDateTime
+            where user_id = :userId and idempotency_key = :idempotencyKey and status = 'IN_PROGRESS'
+            """)
+    Mono<Integer> complete(Long userId, String idempotencyKey, String storageStatus, LocalDateTime uploadDateTime);
+
+    @Modifying
+    @Query("delete from upload_idempotency where user_id = :userId and idempotency_key = :idempotencyKey and status = 'IN_PROGRESS'")
+    Mono<Integer> deleteInProgress(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query("""
+            delete from upload_idempotency
+            where created_at < :completedBefore
+               or (status = 'IN_PROGRESS' and created_at < :inProgressBefore)
+            """)
+    Mono<Integer> deleteExpired(LocalDateTime completedBefore, LocalDateTime inProgressBefore);
+}
@@ -0,0 +1,49 @@
+package com.example.webfluxS3FileStorageRestApi.repository;
+
+import com.example.webfluxS3FileStorageRestApi.model.UploadSession;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface UploadSessionRepository extends R2dbcRepository<UploadSession, String> {
+
+    @Modifying
+    @Query("""
+            insert into upload_session (id, user_id, file_name, content_type, upload_length, upload_offset, part_size,
+                                        object_name, multipart_upload_id, status, created_at, expires_at)
+            values (:id, :userId, :fileName, :contentType, :uploadLength, 0, :partSize,
+                    :objectName, :multipartUploadId, 'OPEN', :createdAt, :expiresAt)
+            """)
+    Mono<Integer> insert(String id, Long userId, String fileName, String contentType, long uploadLength, long partSize,
+                         String objectName, String multipartUploadId, LocalDateTime createdAt, LocalDateTime expiresAt);
+
+    /**
+     * Only moves the offset on from where the caller found it, so of two requests appending
+     * at the same offset only the first acknowledgement counts.
+     */
+    @Modifying
+    @Query("""
+            update upload_session
+            set upload_offset = :newOffset, expires_at = :expiresAt
+            where id = :id and upload_offset = :expectedOffset and status = 'OPEN'
+            """)
+    Mono<Integer> advanceOffset(String id, long expectedOffset, long newOffset, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update upload_session set status = 'COMPLETED' where id = :id and status = 'OPEN'")
+    Mono<Integer> markCompleted(String id);
+
+    @Query("select * from upload_session where expires_at < :now")
+    Flux<UploadSession> findAllExpired(LocalDateTime now);
+
+    /**
+     * Deletes the session unless a request has extended it since it was found expired.
+     */
+    @Modifying
+    @Query("delete from upload_session where id = :id and expires_at < :now")
+    Mono<Integer> deleteExpired(String id, LocalDateTime now);
+}
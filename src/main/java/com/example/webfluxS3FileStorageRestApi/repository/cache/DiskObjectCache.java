@@ -0,0 +1,227 @@
+package com.example.webfluxS3FileStorageRestApi.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_DISK_CACHE_DELETE_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_DISK_CACHE_INIT_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_DISK_CACHE_POPULATED;
+
+/**
+ * Read-through cache of S3 objects on local disk, keyed by S3 key and ETag so a replaced
+ * object never serves stale bytes. Caffeine's W-TinyLFU policy decides what stays within
+ * the byte budget; evicted files are deleted by the removal listener.
+ * <p>
+ * Objects are downloaded into a temp file and moved into place atomically before they are
+ * registered, so readers only ever see complete files. Entries are reference counted: the
+ * cache holds one reference and every reader another, so an evicted file is deleted only
+ * after the last download of it has finished. The index lives in memory, so the directory
+ * is emptied on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiskObjectCache {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final S3AsyncClient s3Client;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.s3.disk-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.disk-cache.directory:/tmp/myapp/cache}")
+    private String directory = "/tmp/myapp/cache";
+
+    @Value("${app.s3.disk-cache.max-size:1GB}")
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+
+    @Value("${app.s3.disk-cache.max-object-size:128MB}")
+    private DataSize maxObjectSize = DataSize.ofMegabytes(128);
+
+    private Path cacheDir;
+    private Cache<String, CachedObject> cache;
+    private final SingleFlight<CachedObject> populations = new SingleFlight<>();
+
+    public static final class CachedObject {
+
+        private final Path path;
+        private final long size;
+        private final String contentType;
+        private final String eTag;
+        private final Instant lastModified;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private CachedObject(Path path, long size, String contentType, String eTag, Instant lastModified) {
+            this.path = path;
+            this.size = size;
+            this.contentType = contentType;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String eTag() {
+            return eTag;
+        }
+
+        public Instant lastModified() {
+            return lastModified;
+        }
+
+        private boolean retain() {
+            int current;
+            do {
+                current = references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        public void release() {
+            if (references.decrementAndGet() == 0) {
+                deleteQuietly(path);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        cacheDir = Paths.get(directory);
+        try {
+            Files.createDirectories(cacheDir);
+            try (Stream<Path> orphans = Files.list(cacheDir)) {
+                orphans.forEach(DiskObjectCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(ERR_DISK_CACHE_INIT_FAILED + cacheDir, e);
+        }
+
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedObject cachedObject) -> (int) Math.min(cachedObject.size(), Integer.MAX_VALUE))
+                .removalListener((String key, CachedObject cachedObject, RemovalCause cause) -> {
+                    if (cachedObject != null) {
+                        cachedObject.release();
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "s3-disk-cache");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean accepts(long size) {
+        return enabled && size <= maxObjectSize.toBytes();
+    }
+
+    /**
+     * Returns a retained entry; the caller must {@link CachedObject#release() release} it.
+     */
+    public Optional<CachedObject> get(String key, String eTag) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(cacheKey(key, eTag)))
+                .filter(CachedObject::retain);
+    }
+
+    /**
+     * Downloads the version described by {@code head} and registers it. The GET is pinned
+     * to the ETag, so the file always matches the key it is stored under. Concurrent calls
+     * for the same version share one download. The returned entry is retained for the
+     * caller like one from {@link #get(String, String)}; the result is empty in the rare case
+     * the entry was evicted before the caller could retain it.
+     */
+    public Mono<CachedObject> populate(String bucket, String key, HeadObjectResponse head) {
+        return populations.execute(cacheKey(key, head.eTag()), () -> download(bucket, key, head))
+                .filter(CachedObject::retain);
+    }
+
+    private Mono<CachedObject> download(String bucket, String key, HeadObjectResponse head) {
+        Path tempFile = cacheDir.resolve(UUID.randomUUID() + TEMP_FILE_SUFFIX);
+        return Mono.fromFuture(() ->
+                        s3Client.getObject(
+                                GetObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .ifMatch(head.eTag())
+                                        .build(),
+                                AsyncResponseTransformer.toFile(tempFile)))
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> {
+                    Path target = cacheDir.resolve(UUID.randomUUID().toString());
+                    try {
+                        Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    CachedObject cachedObject = new CachedObject(target, response.contentLength(),
+                            response.contentType(), response.eTag(), response.lastModified());
+                    cache.put(cacheKey(key, response.eTag()), cachedObject);
+                    log.info(INFO_DISK_CACHE_POPULATED, key, cachedObject.size());
+                    return cachedObject;
+                })
+                .doOnError(error -> deleteQuietly(tempFile))
+                .doOnCancel(() -> deleteQuietly(tempFile));
+    }
+
+    private static String cacheKey(String key, String eTag) {
+        return key + "@" + eTag;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error(ERR_DISK_CACHE_DELETE_FAILED + path, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.webfluxS3FileStorageRestApi.repository.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Body of a download that is available as a region of a local file. Writers that support
+ * zero-copy send the region with {@code sendfile} via {@link #getPath()}; everyone else
+ * subscribes and reads it as data buffers. Either way {@link #release()} runs exactly once
+ * when the body is done, which lets the cache delete evicted files only after the last reader.
+ */
+public final class LocalFileContent extends Flux<DataBuffer> {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final long position;
+    private final long count;
+    private final Runnable onRelease;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public LocalFileContent(Path path, long position, long count, Runnable onRelease) {
+        this.path = path;
+        this.position = position;
+        this.count = count;
+        this.onRelease = onRelease;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            onRelease.run();
+        }
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super DataBuffer> actual) {
+        DataBufferUtils.takeUntilByteCount(
+                        DataBufferUtils.readAsynchronousFileChannel(
+                                () -> AsynchronousFileChannel.open(path, StandardOpenOption.READ),
+                                position, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE),
+                        count)
+                .doFinally(signal -> release())
+                .subscribe(actual);
+    }
+}
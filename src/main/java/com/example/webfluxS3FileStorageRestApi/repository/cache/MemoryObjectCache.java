@@ -0,0 +1,274 @@
+package com.example.webfluxS3FileStorageRestApi.repository.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_MEMORY_CACHE_ENTRY_RELEASED;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_MEMORY_CACHE_POPULATED;
+
+/**
+ * In-process cache for small S3 objects, keyed by S3 key. The bytes live off-heap in pooled
+ * direct buffers, so a full cache adds nothing to the GC-managed heap, and Caffeine keeps
+ * the total within the memory budget.
+ * <p>
+ * After the TTL an entry is revalidated with a conditional GET on its ETag: an unchanged
+ * object costs a 304 instead of a transfer. An object is admitted only once it has been
+ * requested {@code admission-threshold} times within the admission window, so one-off
+ * downloads never take pool memory. The cache holds one reference to each pooled buffer and
+ * every body takes another when it is subscribed, so the buffer goes back to the pool after
+ * eviction and the last reader has sent it, and a body that is never sent holds nothing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemoryObjectCache {
+
+    private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    private final S3AsyncClient s3Client;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.s3.memory-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.memory-cache.max-size:64MB}")
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    @Value("${app.s3.memory-cache.max-object-size:256KB}")
+    private DataSize maxObjectSize = DataSize.ofKilobytes(256);
+
+    @Value("${app.s3.memory-cache.ttl:60s}")
+    private Duration ttl = Duration.ofSeconds(60);
+
+    @Value("${app.s3.memory-cache.admission-threshold:2}")
+    private int admissionThreshold = 2;
+
+    @Value("${app.s3.memory-cache.admission-window:10m}")
+    private Duration admissionWindow = Duration.ofMinutes(10);
+
+    private Cache<String, CachedBytes> cache;
+    private Cache<String, AtomicInteger> requestCounts;
+    private final SingleFlight<ResponseBytes<GetObjectResponse>> loads = new SingleFlight<>();
+    private final SingleFlight<Optional<ResponseBytes<GetObjectResponse>>> revalidations = new SingleFlight<>();
+
+    public static final class CachedBytes {
+
+        private final ByteBuf content;
+        private final String contentType;
+        private final String eTag;
+        private final Instant lastModified;
+        private volatile long expiresAt;
+
+        private CachedBytes(ByteBuf content, GetObjectResponse response, long expiresAt) {
+            this.content = content;
+            this.contentType = response.contentType();
+            this.eTag = response.eTag();
+            this.lastModified = response.lastModified();
+            this.expiresAt = expiresAt;
+        }
+
+        public long size() {
+            return content.readableBytes();
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String eTag() {
+            return eTag;
+        }
+
+        public Instant lastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Takes its own reference on subscription, which the writer releases once the buffer
+         * is sent. Fails if the entry was evicted and released in the meantime.
+         */
+        public Flux<DataBuffer> body() {
+            return Flux.defer(() -> retain()
+                            ? Flux.<DataBuffer>just(BUFFER_FACTORY.wrap(content.duplicate()))
+                            : Flux.<DataBuffer>error(new IllegalStateException(ERR_MEMORY_CACHE_ENTRY_RELEASED + eTag)))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        }
+
+        private void release() {
+            content.release();
+        }
+
+        private boolean retain() {
+            try {
+                content.retain();
+                return true;
+            } catch (IllegalReferenceCountException e) {
+                return false;
+            }
+        }
+
+        private boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+
+        private void renew(Duration ttl) {
+            expiresAt = System.nanoTime() + ttl.toNanos();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedBytes cachedBytes) -> (int) cachedBytes.size())
+                .removalListener((String key, CachedBytes cachedBytes, RemovalCause cause) -> {
+                    if (cachedBytes != null) {
+                        cachedBytes.release();
+                    }
+                })
+                .recordStats()
+                .build();
+        requestCounts = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_KEYS)
+                .expireAfterWrite(admissionWindow)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "s3-memory-cache");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean accepts(long size) {
+        return enabled && size <= maxObjectSize.toBytes();
+    }
+
+    /**
+     * The entry holds no reference for the caller; its {@link CachedBytes#body() body} takes
+     * one when it is sent.
+     */
+    public Optional<CachedBytes> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Returns a fresh entry as is. A stale one is revalidated with {@code If-None-Match}:
+     * a 304 renews it, new content replaces it. Concurrent revalidations of the same version
+     * share one conditional GET.
+     */
+    public Mono<CachedBytes> revalidate(String bucket, String key, CachedBytes cachedBytes) {
+        if (cachedBytes.isFresh()) {
+            return Mono.just(cachedBytes);
+        }
+        return revalidations.execute(key + "@" + cachedBytes.eTag(), () -> fetch(GetObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .ifNoneMatch(cachedBytes.eTag())
+                                .build())
+                        .map(Optional::of)
+                        .onErrorResume(MemoryObjectCache::isNotModified, error -> Mono.just(Optional.empty())))
+                .map(modified -> {
+                    if (modified.isEmpty()) {
+                        cachedBytes.renew(ttl);
+                        return cachedBytes;
+                    }
+                    return toEntry(key, modified.get());
+                });
+    }
+
+    /**
+     * Fetches the version described by {@code head}; concurrent loads of it share one GET.
+     * It is kept in memory only if it has been requested often enough; otherwise the
+     * returned entry is a one-off heap copy.
+     */
+    public Mono<CachedBytes> load(String bucket, String key, HeadObjectResponse head) {
+        return loads.execute(key + "@" + head.eTag(), () -> fetch(GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .ifMatch(head.eTag())
+                        .build()))
+                .map(responseBytes -> toEntry(key, responseBytes));
+    }
+
+    /**
+     * Turns a shared response into an entry. The first caller of a coalesced fetch stores it;
+     * the others find it in the cache.
+     */
+    private CachedBytes toEntry(String key, ResponseBytes<GetObjectResponse> responseBytes) {
+        String eTag = responseBytes.response().eTag();
+        Optional<CachedBytes> cached = get(key).filter(cachedBytes -> cachedBytes.eTag().equals(eTag));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return admit(key) ? store(key, responseBytes) : detached(responseBytes);
+    }
+
+    private Mono<ResponseBytes<GetObjectResponse>> fetch(GetObjectRequest request) {
+        return Mono.fromFuture(() -> s3Client.getObject(request, AsyncResponseTransformer.toBytes()));
+    }
+
+    private boolean admit(String key) {
+        return requestCounts.get(key, k -> new AtomicInteger()).incrementAndGet() >= admissionThreshold;
+    }
+
+    private CachedBytes store(String key, ResponseBytes<GetObjectResponse> responseBytes) {
+        byte[] bytes = responseBytes.asByteArrayUnsafe();
+        if (bytes.length > maxObjectSize.toBytes()) {
+            cache.invalidate(key);
+            return detached(responseBytes);
+        }
+        ByteBuf content = PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length);
+        content.writeBytes(bytes);
+        CachedBytes cachedBytes = new CachedBytes(content, responseBytes.response(), 0);
+        cachedBytes.renew(ttl);
+        cache.put(key, cachedBytes);
+        log.info(INFO_MEMORY_CACHE_POPULATED, key, bytes.length);
+        return cachedBytes;
+    }
+
+    private static CachedBytes detached(ResponseBytes<GetObjectResponse> responseBytes) {
+        return new CachedBytes(Unpooled.wrappedBuffer(responseBytes.asByteArrayUnsafe()),
+                responseBytes.response(), System.nanoTime());
+    }
+
+    private static boolean isNotModified(Throwable error) {
+        return error instanceof S3Exception s3Exception && s3Exception.statusCode() == 304;
+    }
+}
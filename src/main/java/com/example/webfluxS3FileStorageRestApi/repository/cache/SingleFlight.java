@@ -0,0 +1,32 @@
+package com.example.webfluxS3FileStorageRestApi.repository.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one upstream call whose result fans
+ * out to every caller. The flight is cached, so a caller that joins just as it finishes
+ * still gets the result; it is forgotten once it terminates, so the next call starts fresh.
+ * A caller that cancels does not cancel the flight for the others.
+ * <p>
+ * Results are shared by reference, so they must be immutable or reference counted by the
+ * caller.
+ */
+public final class SingleFlight<T> {
+
+    private final ConcurrentMap<String, Mono<T>> flights = new ConcurrentHashMap<>();
+
+    public Mono<T> execute(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> flights.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<T>> flight = new AtomicReference<>();
+            flight.set(call.get()
+                    .doFinally(signal -> flights.remove(k, flight.get()))
+                    .cache());
+            return flight.get();
+        }));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_CHECKSUM_MISMATCH;
+
+/**
+ * CRC32C of content as it streams past, in the base64 form S3 uses for
+ * {@code x-amz-checksum-crc32c}. Like {@link ContentDigest} it reads buffers without moving
+ * their read position, so the same buffer can still be sent on afterwards.
+ */
+public final class ContentChecksum {
+
+    private static final long POLYNOMIAL = 0x82F63B78L;
+
+    private final CRC32C crc = new CRC32C();
+
+    public void update(DataBuffer dataBuffer) {
+        try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                crc.update(iterator.next());
+            }
+        }
+    }
+
+    public String toBase64() {
+        return toBase64(crc.getValue());
+    }
+
+    public static String of(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return toBase64(crc.getValue());
+    }
+
+    /**
+     * The CRC32C of {@code A + B} from the checksums of both and the length of {@code B},
+     * as in zlib's {@code crc32_combine}, so part checksums add up without reading the parts.
+     */
+    public static String combine(String first, String second, long secondLength) {
+        return toBase64(combine(fromBase64(first), fromBase64(second), secondLength));
+    }
+
+    /**
+     * Passes the content through and checks it against {@code expected} at the end. The last
+     * buffer is held back until the check passes, so corrupt content never reaches the client
+     * in full. Fails with {@link IllegalStateException} on a mismatch.
+     */
+    public static Flux<DataBuffer> verify(Flux<DataBuffer> content, String expected) {
+        return Flux.defer(() -> {
+            ContentChecksum checksum = new ContentChecksum();
+            DataBuffer[] held = new DataBuffer[1];
+            return content
+                    .concatMapIterable(dataBuffer -> {
+                        checksum.update(dataBuffer);
+                        DataBuffer previous = held[0];
+                        held[0] = dataBuffer;
+                        return previous != null ? List.of(previous) : List.<DataBuffer>of();
+                    })
+                    .concatWith(Mono.fromSupplier(() -> {
+                        DataBuffer last = held[0];
+                        held[0] = null;
+                        String actual = checksum.toBase64();
+                        if (!actual.equals(expected)) {
+                            DataBufferUtils.release(last);
+                            throw new IllegalStateException(ERR_CHECKSUM_MISMATCH + "expected " + expected + ", got " + actual);
+                        }
+                        return last;
+                    }))
+                    .doFinally(signal -> DataBufferUtils.release(held[0]))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    private static String toBase64(long value) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) value).array());
+    }
+
+    private static long fromBase64(String value) {
+        return ByteBuffer.wrap(Base64.getDecoder().decode(value)).getInt() & 0xFFFFFFFFL;
+    }
+
+    private static long combine(long first, long second, long secondLength) {
+        if (secondLength <= 0) {
+            return first;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = POLYNOMIAL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        long length = secondLength;
+        do {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                first = times(even, first);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length & 1) != 0) {
+                first = times(odd, first);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return first ^ second;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_INVALID_CHUNK_SIZES;
+
+/**
+ * Splits content at boundaries chosen by the content itself (FastCDC): a Gear rolling hash
+ * runs over the bytes and a chunk ends where its top bits are zero. An edit only moves the
+ * boundaries next to it, so the other chunks of a new version hash the same as before.
+ * <p>
+ * Boundaries are never placed before {@code minSize} and always at {@code maxSize}. Between
+ * them normalized chunking applies a stricter mask below {@code avgSize} and a looser one
+ * above it, which keeps chunk sizes close to the average.
+ */
+public final class ContentDefinedChunker {
+
+    private static final long[] GEAR = new SplittableRandom(0x6A09E667F3BCC908L).longs(256).toArray();
+    private static final int NORMALIZATION_LEVEL = 2;
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long strictMask;
+    private final long looseMask;
+    private byte[] current;
+    private int position;
+    private long hash;
+
+    private ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize >= avgSize || avgSize >= maxSize) {
+            throw new IllegalArgumentException(ERR_INVALID_CHUNK_SIZES + minSize + ", " + avgSize + ", " + maxSize);
+        }
+        int bits = 63 - Long.numberOfLeadingZeros(avgSize);
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        this.strictMask = topBits(bits + NORMALIZATION_LEVEL);
+        this.looseMask = topBits(bits - NORMALIZATION_LEVEL);
+    }
+
+    /**
+     * Emits the chunks of {@code content} in order; empty content yields no chunks.
+     * Every buffer is released once it has been copied.
+     */
+    public static Flux<byte[]> split(Flux<DataBuffer> content, int minSize, int avgSize, int maxSize) {
+        return Flux.defer(() -> {
+            ContentDefinedChunker chunker = new ContentDefinedChunker(minSize, avgSize, maxSize);
+            return content
+                    .concatMapIterable(chunker::append)
+                    .concatWith(Mono.fromSupplier(chunker::remainder));
+        });
+    }
+
+    private List<byte[]> append(DataBuffer dataBuffer) {
+        try {
+            List<byte[]> completed = new ArrayList<>(1);
+            while (dataBuffer.readableByteCount() > 0) {
+                if (current == null) {
+                    current = new byte[maxSize];
+                    position = 0;
+                    hash = 0;
+                }
+                int length = Math.min(dataBuffer.readableByteCount(), maxSize - position);
+                dataBuffer.read(current, position, length);
+                int cut = findBoundary(position, position + length);
+                if (cut < 0) {
+                    position += length;
+                    continue;
+                }
+                // bytes past the boundary start the next chunk, so they are read again
+                dataBuffer.readPosition(dataBuffer.readPosition() - (position + length - cut));
+                if (cut == maxSize) {
+                    completed.add(current);
+                    current = null;
+                } else {
+                    completed.add(Arrays.copyOf(current, cut));
+                    position = 0;
+                    hash = 0;
+                }
+            }
+            return completed;
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    /**
+     * Continues the rolling hash over {@code current[from, to)} and returns the length of the
+     * chunk ending at the first boundary, or -1 when there is none yet.
+     */
+    private int findBoundary(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int size = i + 1;
+            if (size <= minSize) {
+                continue;
+            }
+            hash = (hash << 1) + GEAR[current[i] & 0xFF];
+            if ((hash & (size < avgSize ? strictMask : looseMask)) == 0) {
+                return size;
+            }
+        }
+        return to == maxSize ? maxSize : -1;
+    }
+
+    private byte[] remainder() {
+        if (current == null || position == 0) {
+            return null;
+        }
+        return Arrays.copyOf(current, position);
+    }
+
+    private static long topBits(int bits) {
+        return -1L << (Long.SIZE - bits);
+    }
+}
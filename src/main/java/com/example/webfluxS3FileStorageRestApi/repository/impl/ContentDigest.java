@@ -0,0 +1,49 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of content as it streams past. Buffers are read without moving their read
+ * position, so the same buffer can still be sent on afterwards.
+ */
+final class ContentDigest {
+
+    private final MessageDigest digest;
+    private long size;
+
+    ContentDigest() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void update(DataBuffer dataBuffer) {
+        try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                size += byteBuffer.remaining();
+                digest.update(byteBuffer);
+            }
+        }
+    }
+
+    void update(byte[] bytes, int length) {
+        size += length;
+        digest.update(bytes, 0, length);
+    }
+
+    long size() {
+        return size;
+    }
+
+    String toHex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.FileBatchRepository;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Binds every row to a single prepared statement via {@link Statement#add()}, so the driver
+ * pipelines the executions. Runs on the connection of the surrounding transaction, if any.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileBatchRepositoryR2dbcImpl implements FileBatchRepository {
+
+    private static final String INSERT_PENDING_FILE = "insert into file (location, storage_key, status) values (?, ?, 'PENDING')";
+    private static final String INSERT_EVENT = "insert into event (user_id, file_id, status) values (?, ?, 'ACTIVE')";
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Flux<Long> insertPendingFiles(List<String> locations, List<String> storageKeys) {
+        if (locations.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_PENDING_FILE);
+            for (int i = 0; i < locations.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, locations.get(i)).bind(1, storageKeys.get(i));
+            }
+            return Flux.from(statement.returnGeneratedValues("id").execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)));
+        });
+    }
+
+    @Override
+    public Mono<Void> insertEvents(Long userId, List<Long> fileIds) {
+        if (fileIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_EVENT);
+                    for (int i = 0; i < fileIds.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        statement.bind(0, userId).bind(1, fileIds.get(i));
+                    }
+                    return Flux.from(statement.execute())
+                            .concatMap(result -> result.getRowsUpdated());
+                })
+                .then();
+    }
+}
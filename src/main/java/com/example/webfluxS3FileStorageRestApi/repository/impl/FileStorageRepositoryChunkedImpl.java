@@ -0,0 +1,384 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.CompletedPartDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.ResumableUploadDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.model.ChunkManifest;
+import com.example.webfluxS3FileStorageRestApi.model.FileChunk;
+import com.example.webfluxS3FileStorageRestApi.repository.ChunkManifestRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.ChunkRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileChunkRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.*;
+
+/**
+ * Storage engine that splits uploads into content-defined chunks and stores every distinct
+ * chunk once, under {@code chunks/<sha256>}. A file is a manifest of its chunks kept in the
+ * database, so a new version of a large file only uploads and stores the chunks that changed.
+ * <p>
+ * New uploads are chunked only while {@code app.s3.chunking.enabled} is on. Manifests stay
+ * readable after it is switched off, and everything that is not a manifest, including
+ * presigned transfers, is handed to {@link FileStorageRepositoryS3Impl}.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+public class FileStorageRepositoryChunkedImpl implements FileStorageRepository {
+
+    private static final String MANIFEST_DIRECTORY = "manifests/";
+    private static final String CHUNK_DIRECTORY = "chunks/";
+
+    @Value("${app.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${app.s3.key-prefix}")
+    private String keyPrefix;
+
+    @Value("${app.s3.chunking.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.chunking.min-size:256KB}")
+    private DataSize minSize = DataSize.ofKilobytes(256);
+
+    @Value("${app.s3.chunking.avg-size:1MB}")
+    private DataSize avgSize = DataSize.ofMegabytes(1);
+
+    @Value("${app.s3.chunking.max-size:4MB}")
+    private DataSize maxSize = DataSize.ofMegabytes(4);
+
+    @Value("${app.s3.chunking.upload-concurrency:4}")
+    private int uploadConcurrency = 4;
+
+    @Value("${app.s3.chunking.prefetch:4}")
+    private int prefetch = 4;
+
+    private final FileStorageRepositoryS3Impl objectStorage;
+    private final S3AsyncClient s3Client;
+    private final ChunkRepository chunkRepository;
+    private final ChunkManifestRepository chunkManifestRepository;
+    private final FileChunkRepository fileChunkRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final TransferAdmission transferAdmission;
+
+    private record PendingChunk(FileChunk entry, byte[] bytes) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (minSize.toBytes() <= 0 || minSize.toBytes() >= avgSize.toBytes()
+                || avgSize.toBytes() >= maxSize.toBytes() || maxSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException(ERR_INVALID_CHUNK_SIZES + minSize + ", " + avgSize + ", " + maxSize);
+        }
+    }
+
+    @Override
+    public String newStagingKey() {
+        return objectStorage.newStagingKey();
+    }
+
+    /**
+     * Chunks are hashed and written as they are cut, {@code upload-concurrency} at a time, and
+     * a chunk already in the store is not uploaded again. A file no larger than one chunk
+     * gains nothing from chunking and is stored as a plain object. The manifest is written last, so it
+     * only ever lists chunks that exist. Like a plain upload, it runs under a {@link TransferAdmission} permit.
+     */
+    @Override
+    public Mono<StagedObjectDTO> uploadUserFileToStorage(FilePart filePart, String stagingKey) {
+        long contentLength = filePart.headers().getContentLength();
+        if (!enabled || (contentLength >= 0 && contentLength <= minSize.toBytes())) {
+            return objectStorage.uploadUserFileToStorage(filePart, stagingKey);
+        }
+        String manifestId = UUID.randomUUID().toString();
+        String objectName = MANIFEST_DIRECTORY + manifestId;
+        ContentDigest digest = new ContentDigest();
+        AtomicInteger newChunks = new AtomicInteger();
+
+        long bufferedChunks = maxSize.toBytes() * (uploadConcurrency + 1);
+        return transferAdmission.admit(contentLength >= 0 ? Math.min(contentLength, bufferedChunks) : bufferedChunks,
+                Flux.defer(() -> {
+                    long[] offset = {0};
+                    int[] seq = {0};
+                    return ContentDefinedChunker.split(filePart.content().doOnNext(digest::update),
+                                    (int) minSize.toBytes(), (int) avgSize.toBytes(), (int) maxSize.toBytes())
+                            .map(bytes -> {
+                                ContentDigest chunkDigest = new ContentDigest();
+                                chunkDigest.update(bytes, bytes.length);
+                                FileChunk entry = FileChunk.builder()
+                                        .manifestId(manifestId)
+                                        .seq(seq[0]++)
+                                        .chunkHash(chunkDigest.toHex())
+                                        .chunkOffset(offset[0])
+                                        .size(bytes.length)
+                                        .build();
+                                offset[0] += bytes.length;
+                                return new PendingChunk(entry, bytes);
+                            });
+                })
+                .flatMap(chunk -> storeChunk(chunk, newChunks).thenReturn(chunk.entry()), uploadConcurrency)
+                .collectList()
+                .flatMap(entries -> {
+                    StagedObjectDTO stagedObject = new StagedObjectDTO(objectName, digest.toHex(), digest.size());
+                    return chunkManifestRepository.insert(manifestId, stagedObject.getContentHash(), stagedObject.getSize(),
+                                    LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS))
+                            .thenMany(fileChunkRepository.saveAll(entries))
+                            .then()
+                            .as(transactionalOperator::transactional)
+                            .doOnSuccess(unused -> log.info(INFO_CHUNKED_UPLOAD_STORED, objectName, entries.size(), newChunks.get()))
+                            .thenReturn(stagedObject);
+                }));
+    }
+
+    /**
+     * A chunk is recorded only after its object is written. Two uploads racing on the same
+     * new chunk both write it; the content is identical, so the second write is harmless.
+     */
+    private Mono<Void> storeChunk(PendingChunk chunk, AtomicInteger newChunks) {
+        String hash = chunk.entry().getChunkHash();
+        return chunkRepository.existsById(hash)
+                .flatMap(exists -> {
+                    if (exists) {
+                        return Mono.empty();
+                    }
+                    newChunks.incrementAndGet();
+                    return Mono.fromFuture(() ->
+                                    s3Client.putObject(PutObjectRequest.builder()
+                                                    .bucket(bucketName)
+                                                    .key(chunkKey(hash))
+                                                    .contentLength((long) chunk.bytes().length)
+                                                    .build(),
+                                            AsyncRequestBody.fromBytesUnsafe(chunk.bytes())))
+                            .then(chunkRepository.insertIgnore(hash, chunk.bytes().length));
+                })
+                .then();
+    }
+
+    /**
+     * A manifest is written in place, so there is nothing to move.
+     */
+    @Override
+    public Mono<FileMetadataDTO> promoteStagedObject(StagedObjectDTO stagedObject) {
+        if (!isManifest(stagedObject.getObjectName())) {
+            return objectStorage.promoteStagedObject(stagedObject);
+        }
+        return getFileMetadata(stagedObject.getObjectName());
+    }
+
+    /**
+     * Drops the manifest only: its chunks may be shared with other files.
+     */
+    @Override
+    public Mono<Void> deleteStagedObject(StagedObjectDTO stagedObject) {
+        if (!isManifest(stagedObject.getObjectName())) {
+            return objectStorage.deleteStagedObject(stagedObject);
+        }
+        String manifestId = manifestId(stagedObject.getObjectName());
+        return fileChunkRepository.deleteAllByManifestId(manifestId)
+                .then(chunkManifestRepository.deleteById(manifestId))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<FileMetadataDTO> flushLocalObject(String objectName) {
+        return objectStorage.flushLocalObject(objectName);
+    }
+
+    @Override
+    public Mono<FileMetadataDTO> getFileMetadata(String fileName) {
+        if (!isManifest(fileName)) {
+            return objectStorage.getFileMetadata(fileName);
+        }
+        return chunkManifestRepository.findById(manifestId(fileName))
+                .map(manifest -> FileMetadataDTO.builder()
+                        .storageKey(fileName)
+                        .etag(eTag(manifest))
+                        .size(manifest.getSize())
+                        .lastModified(manifest.getCreatedAt().toInstant(ZoneOffset.UTC))
+                        .build());
+    }
+
+    /**
+     * A manifest has no single stored object to check; its chunks are addressed by their hash.
+     */
+    @Override
+    public Mono<String> getStoredChecksum(String objectName) {
+        if (!isManifest(objectName)) {
+            return objectStorage.getStoredChecksum(objectName);
+        }
+        return Mono.empty();
+    }
+
+    /**
+     * Reassembles the file from its chunks in manifest order, fetching up to {@code prefetch}
+     * chunks ahead of the writer. A single range only fetches the chunks it overlaps, the
+     * ones at its edges as ranged GETs; other range requests get the whole file.
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorage(String fileName, HttpHeaders requestHeaders) {
+        if (!isManifest(fileName)) {
+            return objectStorage.downloadFileFromStorage(fileName, requestHeaders);
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, ERR_INVALID_RANGE, e));
+        }
+        String manifestId = manifestId(fileName);
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+
+        return transferAdmission.admitDownload(maxSize.toBytes() * prefetch, chunkManifestRepository.findById(manifestId)
+                .switchIfEmpty(Mono.error(() -> NoSuchKeyException.builder()
+                        .message(ERR_CHUNK_MANIFEST_NOT_FOUND + fileName)
+                        .build()))
+                .flatMap(manifest -> fileChunkRepository.findAllByManifestId(manifestId)
+                        .collectList()
+                        .flatMap(chunks -> {
+                            String eTag = eTag(manifest);
+                            HttpHeaders headers = FileStorageRepositoryS3Impl.toHttpHeaders(null, manifest.getSize(),
+                                    eTag, manifest.getCreatedAt().toInstant(ZoneOffset.UTC));
+                            if (ranges.size() != 1 || (ifRange != null && !ifRange.equals(eTag))) {
+                                log.info(INFO_CHUNKED_DOWNLOAD_STARTED, fileName, chunks.size(), prefetch);
+                                return Mono.just(ResponseEntity.ok()
+                                        .headers(headers)
+                                        .body(readChunks(chunks, 0, manifest.getSize() - 1)));
+                            }
+                            long[] region = FileStorageRepositoryS3Impl.toRegion(ranges.get(0), manifest.getSize());
+                            if (region == null) {
+                                return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                                        ERR_INVALID_RANGE + "bytes */" + manifest.getSize()));
+                            }
+                            headers.setContentLength(region[1] - region[0] + 1);
+                            headers.set(HttpHeaders.CONTENT_RANGE,
+                                    "bytes " + region[0] + "-" + region[1] + "/" + manifest.getSize());
+                            return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                                    .headers(headers)
+                                    .body(readChunks(chunks, region[0], region[1])));
+                        })));
+    }
+
+    /**
+     * Emits the inclusive byte range {@code [start, end]} of the file.
+     */
+    private Flux<DataBuffer> readChunks(List<FileChunk> chunks, long start, long end) {
+        return Flux.fromIterable(chunks)
+                .filter(chunk -> chunk.getChunkOffset() + chunk.getSize() > start && chunk.getChunkOffset() <= end)
+                .flatMapSequential(chunk -> {
+                    long from = Math.max(start - chunk.getChunkOffset(), 0);
+                    long to = Math.min(end - chunk.getChunkOffset(), chunk.getSize() - 1);
+                    return readChunk(chunk, from, to);
+                }, prefetch, 1)
+                .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private Mono<byte[]> readChunk(FileChunk chunk, long from, long to) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(chunkKey(chunk.getChunkHash()));
+        if (from > 0 || to < chunk.getSize() - 1) {
+            request.range("bytes=" + from + "-" + to);
+        }
+        return Mono.fromFuture(() -> s3Client.getObject(request.build(), AsyncResponseTransformer.toBytes()))
+                .map(ResponseBytes::asByteArrayUnsafe);
+    }
+
+    @Override
+    public String newUploadKey() {
+        return objectStorage.newUploadKey();
+    }
+
+    @Override
+    public Mono<PresignedUploadResponseDTO> createPresignedUpload(String objectName, String fileName, Long contentLength,
+                                                                  String contentType) {
+        return objectStorage.createPresignedUpload(objectName, fileName, contentLength, contentType);
+    }
+
+    @Override
+    public Mono<FileMetadataDTO> completePresignedUpload(String objectName, String uploadId, List<CompletedPartDTO> parts) {
+        return objectStorage.completePresignedUpload(objectName, uploadId, parts);
+    }
+
+    /**
+     * A chunked file is no single S3 object, so it cannot be handed out as one URL.
+     */
+    @Override
+    public Mono<URI> presignDownload(String objectName, String fileName) {
+        if (isManifest(objectName)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_DOWNLOAD_UNAVAILABLE + fileName));
+        }
+        return objectStorage.presignDownload(objectName, fileName);
+    }
+
+    @Override
+    public Mono<ResumableUploadDTO> createResumableUpload(String contentType, long uploadLength) {
+        return objectStorage.createResumableUpload(contentType, uploadLength);
+    }
+
+    @Override
+    public Flux<Long> appendResumableUpload(ResumableUploadDTO upload, long offset, long uploadLength, Flux<DataBuffer> content) {
+        return objectStorage.appendResumableUpload(upload, offset, uploadLength, content);
+    }
+
+    @Override
+    public Mono<FileMetadataDTO> completeResumableUpload(ResumableUploadDTO upload, long uploadLength) {
+        return objectStorage.completeResumableUpload(upload, uploadLength);
+    }
+
+    @Override
+    public Mono<Void> abortResumableUpload(ResumableUploadDTO upload) {
+        return objectStorage.abortResumableUpload(upload);
+    }
+
+    private String chunkKey(String hash) {
+        return keyPrefix + "/" + CHUNK_DIRECTORY + hash;
+    }
+
+    private static boolean isManifest(String objectName) {
+        return objectName.startsWith(MANIFEST_DIRECTORY);
+    }
+
+    private static String manifestId(String objectName) {
+        return objectName.substring(MANIFEST_DIRECTORY.length());
+    }
+
+    private static String eTag(ChunkManifest manifest) {
+        return "\"" + manifest.getContentHash() + "\"";
+    }
+}
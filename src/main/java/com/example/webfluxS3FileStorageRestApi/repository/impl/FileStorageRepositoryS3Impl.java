@@ -1,44 +1,80 @@
 package com.example.webfluxS3FileStorageRestApi.repository.impl;
 
-import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.CompletedPartDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.ResumableUploadDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
 import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
-import jakarta.annotation.PostConstruct;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.DiskObjectCache;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.DiskObjectCache.CachedObject;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.LocalFileContent;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.MemoryObjectCache;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.MemoryObjectCache.CachedBytes;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.SingleFlight;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.core.async.ResponsePublisher;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectAttributesRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectAttributesResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectAttributes;
+import software.amazon.awssdk.services.s3.model.ObjectPart;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
-import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 
 import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
 import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.*;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class FileStorageRepositoryS3Impl implements FileStorageRepository {
 
-    private static final Region AWS_S3_REGION_EU_CENTRAL_1 = Region.EU_CENTRAL_1;
-
-    private static final String TMP_DIR_PATH = "/tmp/myapp";
-    private static final String TEMP_FILE_NAME_PREFIX = "tmp-file-";
+    private static final String STAGING_DIRECTORY = "staging/";
+    private static final String CONTENT_DIRECTORY = "content/";
+    private static final String UPLOADS_DIRECTORY = "uploads/";
+    private static final long MAX_COPY_OBJECT_SIZE = DataSize.ofGigabytes(5).toBytes();
 
     @Value("${app.s3.bucket-name}")
     private String bucketName;
@@ -46,76 +82,897 @@ public class FileStorageRepositoryS3Impl implements FileStorageRepository {
     @Value("${app.s3.key-prefix}")
     private String keyPrefix;
 
-    @Value("${app.s3.aws-access-key-id}")
-    private String awsAccessKeyId;
+    @Value("${app.s3.upload.streaming-enabled:true}")
+    private boolean streamingUploadEnabled = true;
 
-    @Value("${app.s3.aws-secret-access-key}")
-    private String awsSecretAccessKey;
+    @Value("${app.s3.multipart.enabled:true}")
+    private boolean multipartUploadEnabled = true;
 
-    private S3AsyncClient s3Client;
+    @Value("${app.s3.compression.enabled:false}")
+    private boolean compressionEnabled;
 
-    @PostConstruct
-    public void init() {
-        this.s3Client = S3AsyncClient.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(this.awsAccessKeyId, this.awsSecretAccessKey)))
-                .region(AWS_S3_REGION_EU_CENTRAL_1)
-                .build();
+    @Value("${app.s3.compression.content-types:text/*,application/json,application/xml,application/x-ndjson}")
+    private List<String> compressibleTypes = List.of("text/*", "application/json", "application/xml", "application/x-ndjson");
+
+    @Value("${app.s3.compression.min-size:1KB}")
+    private DataSize compressionMinSize = DataSize.ofKilobytes(1);
+
+    @Value("${app.s3.compression.level:6}")
+    private int compressionLevel = 6;
+
+    private final S3AsyncClient s3Client;
+    private final S3MultipartUploader multipartUploader;
+    private final S3ParallelDownloader parallelDownloader;
+    private final DiskObjectCache diskObjectCache;
+    private final MemoryObjectCache memoryObjectCache;
+    private final S3PresignedTransfers presignedTransfers;
+    private final S3ResumableUploads resumableUploads;
+    private final S3PackStore packStore;
+    private final TransferAdmission transferAdmission;
+    private final UploadSpool uploadSpool;
+    private final ObjectEncryption objectEncryption;
+    private final WriteBehindStore writeBehindStore;
+    private final SingleFlight<HeadObjectResponse> headRequests = new SingleFlight<>();
+
+    /**
+     * Uploads to a unique staging key while hashing the content inline, so the hash is known
+     * as soon as the last byte is sent; {@link #promoteStagedObject} then moves it to its
+     * content address. With packing enabled, small parts are appended to a pack instead;
+     * with write-behind enabled, all other parts are only written to local disk here and
+     * reach S3 later through {@link #flushLocalObject}.
+     * Small parts of known length are streamed in a single PutObject.
+     * Everything else goes through the multipart engine, which also covers unknown lengths
+     * without touching disk. The {@link UploadSpool} is only used when both modes are switched off.
+     * Transfers to S3 run under a {@link TransferAdmission} permit for what they keep in memory.
+     * <p>
+     * Parts of a compressible content type are gzipped on the way and stored with their
+     * {@code Content-Type} and {@code Content-Encoding}; the hash is still taken over the
+     * original bytes. The compressed length is not known up front, so such parts always go
+     * through the multipart engine or the spool.
+     * <p>
+     * With encryption enabled the (possibly compressed) content is then sealed segment by
+     * segment under a fresh data key, whose wrapped form is stored as object metadata.
+     * Sealing adds a fixed overhead per segment, so known lengths stay known.
+     * <p>
+     * The CRC32C of the bytes as stored is computed on the way out and sent to S3 as the
+     * request checksum, so S3 rejects a transfer that got damaged; where S3 reports the
+     * checksum back, it is compared with the local one as well.
+     */
+    @Override
+    public Mono<StagedObjectDTO> uploadUserFileToStorage(FilePart filePart, String stagingKey) {
+        long contentLength = filePart.headers().getContentLength();
+        if (packStore.appliesTo(contentLength)) {
+            return packStore.append(filePart.content());
+        }
+        if (writeBehindStore.isEnabled()) {
+            return writeBehindStore.write(filePart.content());
+        }
+        return uploadContent(stagingKey, filePart.filename(), filePart.content(), contentLength,
+                filePart.headers().getContentType());
+    }
+
+    /**
+     * {@code staging/<uuid>}, with the {@code .enc} suffix when the content will be encrypted.
+     */
+    @Override
+    public String newStagingKey() {
+        return STAGING_DIRECTORY + UUID.randomUUID()
+                + (objectEncryption.isEnabled() ? ObjectEncryption.FILE_EXTENSION : "");
     }
 
+    /**
+     * {@code uploads/<uuid>}; such objects are assembled in place and never promoted.
+     */
     @Override
-    public Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart) {
-        String fileName = filePart.filename();
-        Path tempDir = Paths.get(TMP_DIR_PATH);
-        Path tempFile = tempDir.resolve(TEMP_FILE_NAME_PREFIX + fileName);
+    public String newUploadKey() {
+        return UPLOADS_DIRECTORY + UUID.randomUUID();
+    }
+
+    private Mono<StagedObjectDTO> uploadContent(String objectName, String fileName, Flux<DataBuffer> source,
+                                                long contentLength, MediaType contentType) {
+        ContentDigest digest = new ContentDigest();
+        Flux<DataBuffer> content = source.doOnNext(digest::update);
+        String contentEncoding = null;
+        long storedLength = contentLength;
+        if (isCompressible(contentType, contentLength)) {
+            content = GzipCodec.compress(content, compressionLevel);
+            contentEncoding = GzipCodec.ENCODING;
+            storedLength = -1;
+        }
+        Map<String, String> metadata = null;
+        if (ObjectEncryption.isEncrypted(objectName)) {
+            ObjectEncryption.Envelope envelope = objectEncryption.newEnvelope();
+            content = envelope.encrypt(content);
+            metadata = envelope.metadata();
+            storedLength = storedLength >= 0 ? envelope.ciphertextLength(storedLength) : -1;
+        }
+        ContentChecksum checksum = new ContentChecksum();
+        content = content.doOnNext(checksum::update);
+        String storedContentType = contentEncoding != null ? contentType.toString() : null;
+
+        Mono<?> upload;
+        long bufferedBytes = transferAdmission.streamed(contentLength);
+        if (streamingUploadEnabled && storedLength >= 0
+                && (!multipartUploadEnabled || storedLength < multipartUploader.getPartSize())) {
+            upload = streamUserFileToStorage(fileName, objectName, content, storedLength, metadata)
+                    .doOnNext(response -> verifyReportedChecksum(response.checksumCRC32C(), checksum.toBase64()));
+        } else if (multipartUploadEnabled) {
+            log.info(INFO_FILE_MULTIPART_UPLOADING_TO_S_3, fileName);
+            bufferedBytes = multipartUploader.bufferedBytes(contentLength);
+            upload = multipartUploader.upload(bucketName, keyPrefix + "/" + objectName, content,
+                    storedContentType, contentEncoding, metadata);
+        } else {
+            upload = spoolUserFileToStorage(objectName, content, storedLength, storedContentType, contentEncoding,
+                    metadata, checksum);
+        }
+
+        String encoding = contentEncoding;
+        return transferAdmission.admit(bufferedBytes, upload)
+                .doOnSuccess(response -> log.info(INFO_FILE_UPLOADED_SUCCESSFULLY_TO_S_3 + bucketName))
+                .doOnError(error -> log.error(ERR_FILE_UPLOAD_TO_S_3_FAILED + error.getMessage()))
+                .then(Mono.fromSupplier(() -> StagedObjectDTO.builder()
+                        .objectName(objectName)
+                        .contentHash(digest.toHex())
+                        .size(digest.size())
+                        .contentEncoding(encoding)
+                        .checksumCrc32c(checksum.toBase64())
+                        .build()));
+    }
 
-        return Mono.fromRunnable(() -> {
-                    try {
-                        Files.createDirectories(tempDir);
-                    } catch (IOException e) {
-                        throw new RuntimeException(ERR_CREATE_TEMP_DIRECTORY_FAILED + tempDir, e);
+    /**
+     * Sends a file held by the write-behind store through the regular upload path and
+     * promotes it. Its content type was not kept, so it is stored uncompressed.
+     */
+    @Override
+    public Mono<FileMetadataDTO> flushLocalObject(String objectName) {
+        return writeBehindStore.getMetadata(objectName)
+                .switchIfEmpty(Mono.error(() -> NoSuchKeyException.builder()
+                        .message(ERR_LOCAL_FILE_NOT_FOUND + objectName)
+                        .build()))
+                .flatMap(local -> uploadContent(newStagingKey(), objectName, writeBehindStore.read(objectName),
+                        local.getSize(), null))
+                .flatMap(this::promoteStagedObject);
+    }
+
+    private static void verifyReportedChecksum(String reported, String expected) {
+        if (reported != null && expected != null && !reported.equals(expected)) {
+            throw new IllegalStateException(ERR_CHECKSUM_MISMATCH + "expected " + expected + ", S3 reported " + reported);
+        }
+    }
+
+    private boolean isCompressible(MediaType contentType, long contentLength) {
+        return compressionEnabled && contentType != null
+                && (contentLength < 0 || contentLength >= compressionMinSize.toBytes())
+                && MediaType.parseMediaTypes(compressibleTypes).stream()
+                .anyMatch(type -> type.includes(contentType));
+    }
+
+    /**
+     * Copies the staged object to {@code content/<sha256>} server-side and drops the staging
+     * copy; compressed content goes to {@code content/<sha256>.gz}, so the two encodings of the
+     * same bytes never share a key. Encrypted content keeps its {@code .enc} suffix and is
+     * addressed by {@link ObjectEncryption#contentAddress} instead of the plain hash. Objects
+     * above the CopyObject limit stay where they are, and so do packed and local ones.
+     * <p>
+     * An object already at the content address was stored by a concurrent upload of the same
+     * content; it is kept with its own metadata and the staged copy is dropped, so the version
+     * that upload recorded is never replaced. S3 computes the CRC32C of a new copy, which has
+     * to match the one taken during the upload.
+     */
+    @Override
+    public Mono<FileMetadataDTO> promoteStagedObject(StagedObjectDTO stagedObject) {
+        boolean encrypted = ObjectEncryption.isEncrypted(stagedObject.getObjectName());
+        long storedSize = encrypted
+                ? ObjectEncryption.maxCiphertextLength(stagedObject.getSize())
+                : stagedObject.getSize();
+        if (S3PackStore.isPacked(stagedObject.getObjectName()) || WriteBehindStore.isLocal(stagedObject.getObjectName())) {
+            return getFileMetadata(stagedObject.getObjectName());
+        }
+        if (storedSize > MAX_COPY_OBJECT_SIZE) {
+            return getFileMetadata(stagedObject.getObjectName())
+                    .doOnNext(metadata -> metadata.setChecksumCrc32c(stagedObject.getChecksumCrc32c()));
+        }
+        String objectName = CONTENT_DIRECTORY
+                + (encrypted ? objectEncryption.contentAddress(stagedObject.getContentHash()) : stagedObject.getContentHash())
+                + (GzipCodec.ENCODING.equals(stagedObject.getContentEncoding()) ? GzipCodec.FILE_EXTENSION : "")
+                + (encrypted ? ObjectEncryption.FILE_EXTENSION : "");
+        return getFileMetadata(objectName)
+                .flatMap(existing -> deleteStagedObject(stagedObject)
+                        .then(getStoredChecksum(objectName))
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .map(checksum -> {
+                            existing.setChecksumCrc32c(checksum.orElse(null));
+                            return existing;
+                        })
+                        .doOnSuccess(metadata -> log.info(INFO_CONTENT_ALREADY_STORED, objectName)))
+                .switchIfEmpty(Mono.defer(() -> copyStagedObject(stagedObject, objectName)));
+    }
+
+    private Mono<FileMetadataDTO> copyStagedObject(StagedObjectDTO stagedObject, String objectName) {
+        return Mono.fromFuture(() ->
+                        s3Client.copyObject(CopyObjectRequest.builder()
+                                .sourceBucket(bucketName)
+                                .sourceKey(keyPrefix + "/" + stagedObject.getObjectName())
+                                .destinationBucket(bucketName)
+                                .destinationKey(keyPrefix + "/" + objectName)
+                                .checksumAlgorithm(ChecksumAlgorithm.CRC32C)
+                                .build()))
+                .doOnNext(response -> verifyReportedChecksum(response.copyObjectResult().checksumCRC32C(),
+                        stagedObject.getChecksumCrc32c()))
+                .then(deleteStagedObject(stagedObject))
+                .then(getFileMetadata(objectName))
+                .doOnNext(metadata -> metadata.setChecksumCrc32c(stagedObject.getChecksumCrc32c()))
+                .doOnSuccess(metadata -> log.info(INFO_CONTENT_STORED, objectName));
+    }
+
+    @Override
+    public Mono<Void> deleteStagedObject(StagedObjectDTO stagedObject) {
+        if (S3PackStore.isPacked(stagedObject.getObjectName())) {
+            return packStore.delete(stagedObject.getObjectName());
+        }
+        if (WriteBehindStore.isLocal(stagedObject.getObjectName())) {
+            return writeBehindStore.delete(stagedObject.getObjectName());
+        }
+        return Mono.fromFuture(() ->
+                        s3Client.deleteObject(DeleteObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyPrefix + "/" + stagedObject.getObjectName())
+                                .build()))
+                .then();
+    }
+
+    /**
+     * Empty when there is no such object. The size of an encrypted object is its plaintext size.
+     */
+    @Override
+    public Mono<FileMetadataDTO> getFileMetadata(String fileName) {
+        if (S3PackStore.isPacked(fileName)) {
+            return packStore.getMetadata(fileName);
+        }
+        if (WriteBehindStore.isLocal(fileName)) {
+            return writeBehindStore.getMetadata(fileName);
+        }
+        return headObject(keyPrefix + "/" + fileName)
+                .map(head -> {
+                    FileMetadataDTO metadata = toFileMetadata(fileName, head);
+                    if (ObjectEncryption.isEncrypted(fileName)) {
+                        metadata.setSize(objectEncryption.open(head.metadata()).plaintextLength(head.contentLength()));
                     }
+                    return metadata;
                 })
-                .subscribeOn(Schedulers.boundedElastic())
-                .then(filePart.transferTo(tempFile))
-                .doOnSuccess(aVoid -> log.info(INFO_FILE_SAVED_SUCCESSFULLY + tempFile))
+                .onErrorResume(error -> S3Errors.hasStatus(error, HttpStatus.NOT_FOUND), error -> Mono.empty());
+    }
+
+    /**
+     * Read from the object attributes, so no body is transferred. S3 keeps only a checksum of
+     * the part checksums for a multipart object; its part checksums are combined into the
+     * checksum of the whole object instead.
+     */
+    @Override
+    public Mono<String> getStoredChecksum(String objectName) {
+        if (S3PackStore.isPacked(objectName) || WriteBehindStore.isLocal(objectName)) {
+            return Mono.empty();
+        }
+        String key = keyPrefix + "/" + objectName;
+        return getObjectAttributes(key, null)
+                .expand(response -> response.objectParts() != null && Boolean.TRUE.equals(response.objectParts().isTruncated())
+                        ? getObjectAttributes(key, response.objectParts().nextPartNumberMarker())
+                        : Mono.empty())
+                .collectList()
+                .flatMap(pages -> {
+                    GetObjectAttributesResponse first = pages.get(0);
+                    if (first.objectParts() == null || first.objectParts().parts().isEmpty()) {
+                        return Mono.justOrEmpty(first.checksum() != null ? first.checksum().checksumCRC32C() : null);
+                    }
+                    String combined = null;
+                    for (GetObjectAttributesResponse page : pages) {
+                        for (ObjectPart part : page.objectParts().parts()) {
+                            if (part.checksumCRC32C() == null) {
+                                return Mono.empty();
+                            }
+                            combined = combined == null
+                                    ? part.checksumCRC32C()
+                                    : ContentChecksum.combine(combined, part.checksumCRC32C(), part.size());
+                        }
+                    }
+                    return Mono.justOrEmpty(combined);
+                });
+    }
+
+    private Mono<GetObjectAttributesResponse> getObjectAttributes(String key, Integer partNumberMarker) {
+        return Mono.fromFuture(() ->
+                s3Client.getObjectAttributes(GetObjectAttributesRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .objectAttributes(ObjectAttributes.CHECKSUM, ObjectAttributes.OBJECT_PARTS)
+                        .maxParts(1000)
+                        .partNumberMarker(partNumberMarker)
+                        .build()));
+    }
+
+    /**
+     * Presigned uploads go from the client straight to S3 under {@code objectName} and cannot
+     * be sealed on the way, so they are refused while encryption is enabled.
+     */
+    @Override
+    public Mono<PresignedUploadResponseDTO> createPresignedUpload(String objectName, String fileName, Long contentLength,
+                                                                  String contentType) {
+        if (objectEncryption.isEnabled()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_UPLOADS_ENCRYPTED));
+        }
+        return presignedTransfers.createUpload(bucketName, keyPrefix + "/" + objectName, fileName, contentLength, contentType);
+    }
+
+    @Override
+    public Mono<FileMetadataDTO> completePresignedUpload(String objectName, String uploadId, List<CompletedPartDTO> parts) {
+        return presignedTransfers.completeUpload(bucketName, keyPrefix + "/" + objectName, uploadId, parts)
+                .map(head -> toFileMetadata(objectName, head));
+    }
+
+    @Override
+    public Mono<URI> presignDownload(String objectName, String fileName) {
+        if (S3PackStore.isPacked(objectName)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_DOWNLOAD_UNAVAILABLE + fileName));
+        }
+        if (WriteBehindStore.isLocal(objectName)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_DOWNLOAD_NOT_FLUSHED + fileName));
+        }
+        if (ObjectEncryption.isEncrypted(objectName)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_DOWNLOAD_ENCRYPTED + fileName));
+        }
+        return presignedTransfers.presignDownload(bucketName, keyPrefix + "/" + objectName, fileName);
+    }
+
+    /**
+     * Resumable uploads are assembled in place under {@code uploads/<uuid>} with the multipart
+     * part size of the time they were created. Their bytes only become known one request at
+     * a time, so they are neither content-addressed, compressed nor encrypted; while
+     * encryption is enabled they are refused rather than stored in plain text.
+     */
+    @Override
+    public Mono<ResumableUploadDTO> createResumableUpload(String contentType, long uploadLength) {
+        if (objectEncryption.isEnabled()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_UPLOAD_SESSIONS_ENCRYPTED));
+        }
+        String objectName = newUploadKey();
+        long partSize = multipartUploader.getPartSize();
+        return resumableUploads.create(bucketName, keyPrefix + "/" + objectName, contentType, uploadLength, partSize)
+                .map(uploadId -> new ResumableUploadDTO(objectName, uploadId, partSize));
+    }
+
+    @Override
+    public Flux<Long> appendResumableUpload(ResumableUploadDTO upload, long offset, long uploadLength, Flux<DataBuffer> content) {
+        return resumableUploads.append(bucketName, keyPrefix + "/" + upload.getObjectName(), upload.getUploadId(),
+                offset, upload.getPartSize(), uploadLength, content);
+    }
+
+    /**
+     * S3 no longer knows an upload once it is completed, so a repeated completion falls back
+     * to the assembled object, provided it has the expected length.
+     */
+    @Override
+    public Mono<FileMetadataDTO> completeResumableUpload(ResumableUploadDTO upload, long uploadLength) {
+        String objectName = upload.getObjectName();
+        return resumableUploads.complete(bucketName, keyPrefix + "/" + objectName, upload.getUploadId(), uploadLength)
+                .onErrorResume(error -> S3Errors.hasStatus(error, HttpStatus.NOT_FOUND), error -> getStoredChecksum(objectName))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(checksum -> getFileMetadata(objectName)
+                        .filter(metadata -> Objects.equals(metadata.getSize(), uploadLength))
+                        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                                ERR_UPLOAD_SESSION_INCOMPLETE + objectName)))
+                        .doOnNext(metadata -> metadata.setChecksumCrc32c(checksum.orElse(null))));
+    }
+
+    @Override
+    public Mono<Void> abortResumableUpload(ResumableUploadDTO upload) {
+        String key = keyPrefix + "/" + upload.getObjectName();
+        return resumableUploads.abort(bucketName, key, upload.getUploadId())
                 .then(Mono.fromFuture(() ->
+                        s3Client.deleteObject(DeleteObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build())))
+                .then();
+    }
+
+    /**
+     * Feeds the multipart content straight into the S3 request body. The SDK only requests
+     * the next buffer when the connection can take it, so backpressure reaches the Netty request.
+     */
+    private Mono<PutObjectResponse> streamUserFileToStorage(String fileName, String objectName,
+                                                            Flux<DataBuffer> content, long contentLength,
+                                                            Map<String, String> metadata) {
+        Flux<ByteBuffer> body = content.map(FileStorageRepositoryS3Impl::copyAndRelease);
+
+        log.info(INFO_FILE_STREAMING_TO_S_3, fileName, contentLength);
+        return Mono.fromFuture(() ->
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(keyPrefix + "/" + objectName)
+                                .contentLength(contentLength)
+                                .metadata(metadata)
+                                .checksumAlgorithm(ChecksumAlgorithm.CRC32C)
+                                .build(),
+                        AsyncRequestBody.fromPublisher(body)));
+    }
+
+    /**
+     * Fallback when multipart uploads are disabled and the part cannot be streamed:
+     * PutObject needs the length up front, so the part is spooled first. It has been hashed
+     * and checksummed on its way into the spool, so the checksum goes out as a header.
+     */
+    private Mono<PutObjectResponse> spoolUserFileToStorage(String objectName, Flux<DataBuffer> content, long contentLength,
+                                                           String contentType, String contentEncoding,
+                                                           Map<String, String> metadata, ContentChecksum checksum) {
+        return Mono.usingWhen(uploadSpool.spool(content, contentLength),
+                spooled -> Mono.fromFuture(() ->
                         s3Client.putObject(PutObjectRequest.builder()
                                         .bucket(bucketName)
-                                        .key(keyPrefix + "/" + fileName)
+                                        .key(keyPrefix + "/" + objectName)
+                                        .contentLength(spooled.size())
+                                        .contentType(contentType)
+                                        .contentEncoding(contentEncoding)
+                                        .metadata(metadata)
+                                        .checksumCRC32C(checksum.toBase64())
                                         .build(),
-                                AsyncRequestBody.fromFile(tempFile.toFile()))))
-                .subscribeOn(Schedulers.boundedElastic())
-                .doOnSuccess(aVoid -> {
-                    log.info(INFO_FILE_UPLOADED_SUCCESSFULLY_TO_S_3 + bucketName);
-                    try {
-                        Files.delete(tempFile);
-                    } catch (IOException e) {
-                        String ERR_DELETE_TEMP_FILE_FAILED = "Delete temp file failed";
-                        log.error(ERR_DELETE_TEMP_FILE_FAILED + tempFile, e);
-                    }
-                })
-                .doOnError(error -> log.error(ERR_FILE_UPLOAD_TO_S_3_FAILED + error.getMessage()))
-                .thenReturn(new UploadedFileResponseDTO(fileName, LocalDateTime.now()));
+                                spooled.requestBody())),
+                UploadSpool.SpooledContent::release);
     }
 
+    /**
+     * The SDK may hold on to a buffer after the next one was requested, so pooled
+     * request buffers are copied out and released right away.
+     */
+    private static ByteBuffer copyAndRelease(DataBuffer dataBuffer) {
+        try {
+            byte[] bytes = new byte[dataBuffer.readableByteCount()];
+            dataBuffer.read(bytes);
+            return ByteBuffer.wrap(bytes);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
 
+
+    /**
+     * Streams the object body as it arrives from S3. The SDK publisher only pulls from the
+     * connection when the response writer asks for more, so memory per download stays bounded.
+     * A {@code Range} header turns into ranged GETs, so only the requested bytes leave S3.
+     * Every download except a packed or local one holds a {@link TransferAdmission} permit until
+     * its body is written. Encrypted objects are decrypted on the way, see {@link #getEncryptedObject}.
+     */
     @Override
-    public Mono<ResponseEntity<Resource>> downloadFileFromStorage(String fileName) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorage(String fileName, HttpHeaders requestHeaders) {
         String key = keyPrefix + "/" + fileName;
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, ERR_INVALID_RANGE, e));
+        }
+
+        Mono<ResponseEntity<Flux<DataBuffer>>> download;
+        if (S3PackStore.isPacked(fileName)) {
+            download = packStore.read(fileName)
+                    .flatMap(packedObject -> servePackedObject(packedObject, ranges, requestHeaders.getFirst(HttpHeaders.IF_RANGE)));
+        } else if (WriteBehindStore.isLocal(fileName)) {
+            download = writeBehindStore.getMetadata(fileName)
+                    .switchIfEmpty(Mono.error(() -> NoSuchKeyException.builder()
+                            .message(ERR_LOCAL_FILE_NOT_FOUND + fileName)
+                            .build()))
+                    .flatMap(metadata -> serveLocalFile(writeBehindStore.path(fileName), metadata, ranges,
+                            requestHeaders.getFirst(HttpHeaders.IF_RANGE)));
+        } else if (ObjectEncryption.isEncrypted(fileName)) {
+            download = transferAdmission.admitDownload(getEncryptedObject(key, ranges, requestHeaders.getFirst(HttpHeaders.IF_RANGE)));
+        } else if (ranges.isEmpty()) {
+            download = transferAdmission.admitDownload(parallelDownloader.isEnabled()
+                    ? Math.max(transferAdmission.streamed(-1), parallelDownloader.getBufferedBytes())
+                    : -1, getObject(key));
+        } else if (ranges.size() == 1) {
+            download = transferAdmission.admitDownload(Mono.defer(() ->
+                    getObjectRange(key, ranges.get(0), requestHeaders.getFirst(HttpHeaders.IF_RANGE))));
+        } else {
+            download = transferAdmission.admitDownload(getObjectRanges(key, ranges, requestHeaders.getFirst(HttpHeaders.IF_RANGE)));
+        }
+
+        return download
+                .doOnSuccess(aVoid -> log.info(INFO_FILE_DOWNLOADED_SUCCESSFULLY_FROM_S_3 + fileName))
+                .doOnError(error -> log.error(ERR_FILE_DOWNLOADED_FROM_S_3_FAILED + fileName, error));
+    }
+
+    /**
+     * Small objects held in memory are served without a HEAD. Otherwise, with any cache or
+     * parallel downloads enabled, a HEAD comes first: its ETag selects the cached copy and
+     * its size decides whether the object is kept in memory, cached on disk, fetched as
+     * concurrent ranges, or streamed as a single GET.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> getObject(String key) {
+        if (memoryObjectCache.isEnabled()) {
+            return Mono.defer(() -> memoryObjectCache.get(key)
+                    .map(cachedBytes -> memoryObjectCache.revalidate(bucketName, key, cachedBytes)
+                            .map(this::serveCachedBytes))
+                    .orElseGet(() -> headAndGetObject(key)));
+        }
+        if (!diskObjectCache.isEnabled() && !parallelDownloader.isEnabled()) {
+            return streamObject(key);
+        }
+        return headAndGetObject(key);
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> headAndGetObject(String key) {
+        return headObject(key)
+                .flatMap(head -> {
+                    if (memoryObjectCache.accepts(head.contentLength())) {
+                        return memoryObjectCache.load(bucketName, key, head)
+                                .map(this::serveCachedBytes);
+                    }
+                    Optional<CachedObject> cachedObject = diskObjectCache.get(key, head.eTag());
+                    if (cachedObject.isPresent()) {
+                        return Mono.just(serveCachedObject(cachedObject.get(), null));
+                    }
+                    if (diskObjectCache.accepts(head.contentLength())) {
+                        return diskObjectCache.populate(bucketName, key, head)
+                                .map(populated -> serveCachedObject(populated, null))
+                                .switchIfEmpty(Mono.defer(() -> streamObject(key)))
+                                .onErrorResume(error -> {
+                                    log.warn(WARN_DISK_CACHE_POPULATE_FAILED, key, error.getMessage());
+                                    return streamObject(key);
+                                });
+                    }
+                    if (parallelDownloader.appliesTo(head.contentLength())) {
+                        return Mono.just(ResponseEntity.ok()
+                                .headers(toHttpHeaders(head))
+                                .body(parallelDownloader.download(bucketName, key, head.eTag(), head.contentLength())));
+                    }
+                    return streamObject(key);
+                });
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> serveCachedBytes(CachedBytes cachedBytes) {
+        return ResponseEntity.ok()
+                .headers(toHttpHeaders(cachedBytes.contentType(), cachedBytes.size(),
+                        cachedBytes.eTag(), cachedBytes.lastModified()))
+                .body(cachedBytes.body());
+    }
+
+    /**
+     * A packed file is small and already in memory, so a single range is cut from it directly;
+     * other range requests get the whole file.
+     */
+    private static Mono<ResponseEntity<Flux<DataBuffer>>> servePackedObject(S3PackStore.PackedObject packedObject,
+                                                                           List<HttpRange> ranges, String ifRange) {
+        byte[] content = packedObject.content();
+        HttpHeaders headers = toHttpHeaders(null, (long) content.length, packedObject.eTag(), packedObject.lastModified());
+        if (ranges.size() != 1 || (ifRange != null && !ifRange.equals(packedObject.eTag()))) {
+            return Mono.just(ResponseEntity.ok()
+                    .headers(headers)
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content))));
+        }
+        long[] region = toRegion(ranges.get(0), content.length);
+        if (region == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                    ERR_INVALID_RANGE + "bytes */" + content.length));
+        }
+        int count = (int) (region[1] - region[0] + 1);
+        headers.setContentLength(count);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + region[0] + "-" + region[1] + "/" + content.length);
+        return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(content, (int) region[0], count)))));
+    }
+
+    /**
+     * A file of the write-behind store is sent from local disk like a cached one; a single
+     * range is cut from it, other range requests get the whole file.
+     */
+    private static Mono<ResponseEntity<Flux<DataBuffer>>> serveLocalFile(Path path, FileMetadataDTO metadata,
+                                                                        List<HttpRange> ranges, String ifRange) {
+        long length = metadata.getSize();
+        HttpHeaders headers = toHttpHeaders(null, length, metadata.getEtag(), metadata.getLastModified());
+        if (ranges.size() != 1
+                || (ifRange != null && !matchesIfRange(ifRange, metadata.getEtag(), metadata.getLastModified()))) {
+            return Mono.just(ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new LocalFileContent(path, 0, length, () -> { })));
+        }
+        long[] region = toRegion(ranges.get(0), length);
+        if (region == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                    ERR_INVALID_RANGE + "bytes */" + length));
+        }
+        long count = region[1] - region[0] + 1;
+        headers.setContentLength(count);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + region[0] + "-" + region[1] + "/" + length);
+        return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new LocalFileContent(path, region[0], count, () -> { })));
+    }
+
+    /**
+     * The HEAD gives the wrapped data key and the stored length. A single range becomes a ranged
+     * GET of just the segments it touches, which are opened one at a time and trimmed to the
+     * range; other range requests get the whole file. Every GET is pinned to the ETag of the
+     * HEAD. The caches and parallel downloads only serve plain objects.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> getEncryptedObject(String key, List<HttpRange> ranges, String ifRange) {
+        return headObject(key)
+                .flatMap(head -> {
+                    ObjectEncryption.Envelope envelope = objectEncryption.open(head.metadata());
+                    long length = envelope.plaintextLength(head.contentLength());
+                    HttpHeaders headers = toHttpHeaders(head.contentType(), length, head.eTag(), head.lastModified());
+                    if (ranges.size() != 1 || (ifRange != null && !matchesIfRange(ifRange, head.eTag(), head.lastModified()))) {
+                        return Mono.just(ResponseEntity.ok()
+                                .headers(headers)
+                                .body(getDecryptedRegion(key, head, envelope, 0, length - 1)));
+                    }
+                    long[] region = toRegion(ranges.get(0), length);
+                    if (region == null) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                                ERR_INVALID_RANGE + "bytes */" + length));
+                    }
+                    headers.setContentLength(region[1] - region[0] + 1);
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + region[0] + "-" + region[1] + "/" + length);
+                    return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .headers(headers)
+                            .body(getDecryptedRegion(key, head, envelope, region[0], region[1])));
+                });
+    }
+
+    private Flux<DataBuffer> getDecryptedRegion(String key, HeadObjectResponse head, ObjectEncryption.Envelope envelope,
+                                                long start, long end) {
+        long[] stored = envelope.ciphertextRegion(start, end, head.contentLength());
+        return envelope.decrypt(getRegion(key, stored, head.eTag()), start, end, head.contentLength());
+    }
+
+    /**
+     * Serves the whole cached file, or the inclusive {@code region} of it with 206. The body is a
+     * {@link LocalFileContent}, which the download endpoint sends with zero-copy {@code sendfile}.
+     */
+    private ResponseEntity<Flux<DataBuffer>> serveCachedObject(CachedObject cachedObject, long[] region) {
+        if (region == null) {
+            return ResponseEntity.ok()
+                    .headers(toHttpHeaders(cachedObject.contentType(), cachedObject.size(),
+                            cachedObject.eTag(), cachedObject.lastModified()))
+                    .body(new LocalFileContent(cachedObject.path(), 0, cachedObject.size(), cachedObject::release));
+        }
+        long count = region[1] - region[0] + 1;
+        HttpHeaders headers = toHttpHeaders(cachedObject.contentType(), count,
+                cachedObject.eTag(), cachedObject.lastModified());
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + region[0] + "-" + region[1] + "/" + cachedObject.size());
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new LocalFileContent(cachedObject.path(), region[0], count, cachedObject::release));
+    }
+
+    /**
+     * Concurrent downloads of the same key share one HEAD.
+     */
+    private Mono<HeadObjectResponse> headObject(String key) {
+        return headRequests.execute(key, () -> Mono.fromFuture(() ->
+                s3Client.headObject(HeadObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .build())));
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> streamObject(String key) {
         return Mono.fromFuture(() ->
                         s3Client.getObject(
                                 GetObjectRequest.builder()
                                         .bucket(bucketName)
                                         .key(key)
                                         .build(),
-                                AsyncResponseTransformer.toBytes()))
-                .map(responseBytes ->
+                                AsyncResponseTransformer.toPublisher()))
+                .map(responsePublisher ->
                         ResponseEntity.ok()
-                                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                                .body((Resource) new ByteArrayResource(responseBytes.asByteArray()))
-                )
-                .doOnSuccess(aVoid -> log.info(INFO_FILE_DOWNLOADED_SUCCESSFULLY_FROM_S_3 + fileName))
-                .doOnError(error -> log.error(ERR_FILE_DOWNLOADED_FROM_S_3_FAILED + fileName, error));
+                                .headers(toHttpHeaders(responsePublisher.response()))
+                                .body(toDataBuffers(responsePublisher)));
+    }
+
+    /**
+     * A cached object answers the range from local disk; otherwise it becomes a ranged GET.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> getObjectRange(String key, HttpRange range, String ifRange) {
+        if (!diskObjectCache.isEnabled()) {
+            return streamObjectRange(key, range, ifRange);
+        }
+        return headObject(key)
+                .flatMap(head -> {
+                    Optional<CachedObject> cachedObject = diskObjectCache.get(key, head.eTag());
+                    if (cachedObject.isEmpty()) {
+                        return streamObjectRange(key, range, ifRange);
+                    }
+                    if (ifRange != null && !matchesIfRange(ifRange, head.eTag(), head.lastModified())) {
+                        return Mono.just(serveCachedObject(cachedObject.get(), null));
+                    }
+                    long[] region = toRegion(range, cachedObject.get().size());
+                    if (region == null) {
+                        cachedObject.get().release();
+                        return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                                ERR_INVALID_RANGE + "bytes */" + cachedObject.get().size()));
+                    }
+                    return Mono.just(serveCachedObject(cachedObject.get(), region));
+                });
+    }
+
+    /**
+     * A single range is passed to S3 as is. {@code If-Range} becomes an S3 precondition,
+     * and when S3 rejects it the object has changed, so the full representation is sent instead.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> streamObjectRange(String key, HttpRange range, String ifRange) {
+        if (ifRange != null && ifRange.startsWith("W/")) {
+            return getObject(key);
+        }
+
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(HttpRange.toString(List.of(range)));
+        if (ifRange != null) {
+            if (ifRange.startsWith("\"")) {
+                request.ifMatch(ifRange);
+            } else {
+                request.ifUnmodifiedSince(parseHttpDate(ifRange));
+            }
+        }
+
+        return Mono.fromFuture(() -> s3Client.getObject(request.build(), AsyncResponseTransformer.toPublisher()))
+                .map(responsePublisher -> {
+                    GetObjectResponse response = responsePublisher.response();
+                    HttpHeaders headers = toHttpHeaders(response);
+                    if (response.contentRange() == null) {
+                        return ResponseEntity.ok()
+                                .headers(headers)
+                                .body(toDataBuffers(responsePublisher));
+                    }
+                    headers.set(HttpHeaders.CONTENT_RANGE, response.contentRange());
+                    return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .headers(headers)
+                            .body(toDataBuffers(responsePublisher));
+                })
+                .onErrorResume(error -> S3Errors.hasStatus(error, HttpStatus.PRECONDITION_FAILED), error -> getObject(key))
+                .onErrorMap(error -> S3Errors.hasStatus(error, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE),
+                        error -> new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, ERR_INVALID_RANGE, error));
+    }
+
+    /**
+     * S3 serves one range per request, so a multi-range request is answered as
+     * {@code multipart/byteranges} with one ranged GET per part, fetched one after another.
+     * Every GET is pinned to the ETag seen in the HEAD, so all parts come from the same version.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> getObjectRanges(String key, List<HttpRange> ranges, String ifRange) {
+        return headObject(key)
+                .flatMap(head -> {
+                    if (ifRange != null && !matchesIfRange(ifRange, head.eTag(), head.lastModified())) {
+                        return getObject(key);
+                    }
+
+                    long length = head.contentLength();
+                    List<long[]> regions = ranges.stream()
+                            .map(range -> toRegion(range, length))
+                            .filter(Objects::nonNull)
+                            .toList();
+                    if (regions.isEmpty()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                                ERR_INVALID_RANGE + "bytes */" + length));
+                    }
+
+                    String contentType = head.contentType() != null ? head.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+                    String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+                    byte[] closing = ("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII);
+
+                    long contentLength = closing.length;
+                    for (long[] region : regions) {
+                        contentLength += partHeader(boundary, contentType, region, length).length + region[1] - region[0] + 1;
+                    }
+
+                    Flux<DataBuffer> body = Flux.fromIterable(regions)
+                            .concatMap(region -> Flux.concat(
+                                    Mono.fromSupplier(() -> DefaultDataBufferFactory.sharedInstance
+                                            .wrap(partHeader(boundary, contentType, region, length))),
+                                    getRegion(key, region, head.eTag())))
+                            .concatWith(Mono.fromSupplier(() -> DefaultDataBufferFactory.sharedInstance.wrap(closing)));
+
+                    return Mono.just(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                            .eTag(head.eTag())
+                            .lastModified(head.lastModified())
+                            .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                            .contentLength(contentLength)
+                            .body(body));
+                });
+    }
+
+    private Flux<DataBuffer> getRegion(String key, long[] region, String eTag) {
+        return Mono.fromFuture(() ->
+                        s3Client.getObject(
+                                GetObjectRequest.builder()
+                                        .bucket(bucketName)
+                                        .key(key)
+                                        .range("bytes=" + region[0] + "-" + region[1])
+                                        .ifMatch(eTag)
+                                        .build(),
+                                AsyncResponseTransformer.toPublisher()))
+                .flatMapMany(FileStorageRepositoryS3Impl::toDataBuffers);
+    }
+
+    /**
+     * Returns the inclusive {@code [start, end]} of the range, or {@code null} if it is not satisfiable.
+     */
+    static long[] toRegion(HttpRange range, long length) {
+        try {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            return start < length && start <= end ? new long[]{start, end} : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] partHeader(String boundary, String contentType, long[] region, long length) {
+        return ("\r\n--" + boundary + "\r\n"
+                + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                + HttpHeaders.CONTENT_RANGE + ": bytes " + region[0] + "-" + region[1] + "/" + length + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean matchesIfRange(String ifRange, String eTag, Instant lastModified) {
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        return lastModified != null && parseHttpDate(ifRange).getEpochSecond() == lastModified.getEpochSecond();
+    }
+
+    private static Instant parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_INVALID_IF_RANGE + value, e);
+        }
+    }
+
+    private static Flux<DataBuffer> toDataBuffers(ResponsePublisher<GetObjectResponse> responsePublisher) {
+        return Flux.from(responsePublisher).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private static FileMetadataDTO toFileMetadata(String objectName, HeadObjectResponse head) {
+        return FileMetadataDTO.builder()
+                .storageKey(objectName)
+                .etag(head.eTag())
+                .size(head.contentLength())
+                .lastModified(head.lastModified())
+                .contentEncoding(head.contentEncoding())
+                .build();
+    }
+
+    private static HttpHeaders toHttpHeaders(GetObjectResponse response) {
+        return toHttpHeaders(response.contentType(), response.contentLength(), response.eTag(), response.lastModified());
+    }
+
+    private static HttpHeaders toHttpHeaders(HeadObjectResponse response) {
+        return toHttpHeaders(response.contentType(), response.contentLength(), response.eTag(), response.lastModified());
+    }
+
+    static HttpHeaders toHttpHeaders(String contentType, Long contentLength, String eTag, Instant lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(contentType != null
+                ? MediaType.parseMediaType(contentType)
+                : MediaType.APPLICATION_OCTET_STREAM);
+        if (contentLength != null) {
+            headers.setContentLength(contentLength);
+        }
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        return headers;
     }
 }
@@ -0,0 +1,227 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_INVALID_GZIP_CONTENT;
+
+/**
+ * Streaming gzip (RFC 1952) over {@link DataBuffer} fluxes. Each buffer is deflated or
+ * inflated as it arrives and released right after, so neither direction holds more than
+ * one buffer and the zlib window in memory.
+ */
+public final class GzipCodec {
+
+    public static final String ENCODING = "gzip";
+    public static final String FILE_EXTENSION = ".gz";
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int FLAG_HCRC = 0x02;
+    private static final int FLAG_EXTRA = 0x04;
+    private static final int FLAG_NAME = 0x08;
+    private static final int FLAG_COMMENT = 0x10;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private GzipCodec() {
+    }
+
+    public static Flux<DataBuffer> compress(Flux<DataBuffer> content, int level) {
+        return Flux.defer(() -> {
+            Encoder encoder = new Encoder(level);
+            return Flux.just(wrap(HEADER.clone()))
+                    .concatWith(content.concatMapIterable(encoder::append))
+                    .concatWith(Mono.fromSupplier(encoder::finish))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> encoder.deflater.end());
+        });
+    }
+
+    /**
+     * Fails with {@link IllegalStateException} on content that is not gzip, is truncated,
+     * or does not match its CRC.
+     */
+    public static Flux<DataBuffer> decompress(Flux<DataBuffer> content) {
+        return Flux.defer(() -> {
+            Decoder decoder = new Decoder();
+            return content.concatMapIterable(decoder::append)
+                    .concatWith(Mono.<DataBuffer>fromRunnable(decoder::finish))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> decoder.inflater.end());
+        });
+    }
+
+    private static final class Encoder {
+
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private Encoder(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        private List<DataBuffer> append(DataBuffer dataBuffer) {
+            try {
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+                try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+                    while (iterator.hasNext()) {
+                        ByteBuffer input = iterator.next();
+                        crc.update(input.duplicate());
+                        deflater.setInput(input);
+                        while (!deflater.needsInput()) {
+                            deflated.write(buffer, 0, deflater.deflate(buffer));
+                        }
+                    }
+                }
+                return deflated.size() > 0 ? List.of(wrap(deflated.toByteArray())) : List.of();
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        private DataBuffer finish() {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflated.write(buffer, 0, deflater.deflate(buffer));
+            }
+            writeIntLE(deflated, crc.getValue());
+            writeIntLE(deflated, deflater.getBytesRead());
+            return wrap(deflated.toByteArray());
+        }
+    }
+
+    private static final class Decoder {
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private ByteArrayOutputStream header = new ByteArrayOutputStream();
+        private final byte[] trailer = new byte[TRAILER_LENGTH];
+        private int trailerLength;
+
+        private List<DataBuffer> append(DataBuffer dataBuffer) {
+            byte[] input;
+            try {
+                input = new byte[dataBuffer.readableByteCount()];
+                dataBuffer.read(input);
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+            int offset = 0;
+            if (header != null) {
+                header.writeBytes(input);
+                input = header.toByteArray();
+                offset = headerLength(input);
+                if (offset < 0) {
+                    return List.of();
+                }
+                header = null;
+            }
+            return inflate(input, offset);
+        }
+
+        private List<DataBuffer> inflate(byte[] input, int offset) {
+            if (inflater.finished()) {
+                collectTrailer(input, offset);
+                return List.of();
+            }
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+            inflater.setInput(input, offset, input.length - offset);
+            try {
+                while (!inflater.finished() && !inflater.needsInput()) {
+                    int length = inflater.inflate(buffer);
+                    if (length == 0 && inflater.needsDictionary()) {
+                        throw new IllegalStateException(ERR_INVALID_GZIP_CONTENT + "preset dictionary");
+                    }
+                    crc.update(buffer, 0, length);
+                    inflated.write(buffer, 0, length);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException(ERR_INVALID_GZIP_CONTENT + e.getMessage(), e);
+            }
+            if (inflater.finished()) {
+                collectTrailer(input, input.length - inflater.getRemaining());
+            }
+            return inflated.size() > 0 ? List.of(wrap(inflated.toByteArray())) : List.of();
+        }
+
+        private void collectTrailer(byte[] input, int offset) {
+            int length = Math.min(input.length - offset, TRAILER_LENGTH - trailerLength);
+            System.arraycopy(input, offset, trailer, trailerLength, length);
+            trailerLength += length;
+        }
+
+        private void finish() {
+            if (!inflater.finished() || trailerLength < TRAILER_LENGTH) {
+                throw new IllegalStateException(ERR_INVALID_GZIP_CONTENT + "truncated");
+            }
+            if (readIntLE(trailer, 0) != crc.getValue()
+                    || readIntLE(trailer, 4) != (inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new IllegalStateException(ERR_INVALID_GZIP_CONTENT + "checksum mismatch");
+            }
+        }
+
+        /**
+         * Length of the member header at the start of {@code bytes}, or -1 if more bytes are needed.
+         */
+        private static int headerLength(byte[] bytes) {
+            if (bytes.length < HEADER.length) {
+                return -1;
+            }
+            if (bytes[0] != HEADER[0] || bytes[1] != HEADER[1] || bytes[2] != Deflater.DEFLATED) {
+                throw new IllegalStateException(ERR_INVALID_GZIP_CONTENT + "bad header");
+            }
+            int flags = bytes[3];
+            int position = HEADER.length;
+            if ((flags & FLAG_EXTRA) != 0) {
+                if (bytes.length < position + 2) {
+                    return -1;
+                }
+                position += 2 + ((bytes[position] & 0xff) | (bytes[position + 1] & 0xff) << 8);
+            }
+            for (int flag : new int[]{FLAG_NAME, FLAG_COMMENT}) {
+                if ((flags & flag) != 0) {
+                    while (position < bytes.length && bytes[position] != 0) {
+                        position++;
+                    }
+                    position++;
+                }
+            }
+            if ((flags & FLAG_HCRC) != 0) {
+                position += 2;
+            }
+            return position <= bytes.length ? position : -1;
+        }
+    }
+
+    private static DataBuffer wrap(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    private static long readIntLE(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (long) (bytes[offset + i] & 0xff) << (8 * i);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+
+/**
+ * Envelope encryption of stored objects with segmented AES-GCM. Every object gets its own
+ * random 256-bit data key, stored in the object metadata wrapped (RFC 3394) with the master key.
+ * The plaintext is sealed in segments of {@code segment-size} bytes, each with a nonce made of
+ * its index and a flag marking the last one, so reordered, dropped or truncated segments fail
+ * authentication. Both directions hold one segment at a time, and a range only needs the
+ * segments it touches.
+ * <p>
+ * Encrypted objects carry {@link #FILE_EXTENSION} in their key, so reads know them without a HEAD.
+ */
+@Component
+public class ObjectEncryption {
+
+    public static final String FILE_EXTENSION = ".enc";
+
+    private static final String SCHEME = "aes256-gcm-segmented";
+    private static final String METADATA_SCHEME = "enc-scheme";
+    private static final String METADATA_KEY_ID = "enc-key-id";
+    private static final String METADATA_DATA_KEY = "enc-data-key";
+    private static final String METADATA_SEGMENT_SIZE = "enc-segment-size";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final String KEY_WRAP = "AESWrap";
+    private static final String ADDRESS_MAC = "HmacSHA256";
+    private static final String ADDRESS_KEY_LABEL = "content-address";
+    private static final int KEY_LENGTH = 32;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+    private static final long MIN_SEGMENT_SIZE = DataSize.ofKilobytes(1).toBytes();
+    private static final long MAX_SEGMENT_SIZE = DataSize.ofMegabytes(16).toBytes();
+
+    @Value("${app.s3.encryption.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.encryption.master-key:}")
+    private String masterKeyValue = "";
+
+    @Value("${app.s3.encryption.master-key-id:1}")
+    private String masterKeyId = "1";
+
+    @Value("${app.s3.encryption.segment-size:64KB}")
+    private DataSize segmentSize = DataSize.ofKilobytes(64);
+
+    @Value("${app.s3.packing.enabled:false}")
+    private boolean packingEnabled;
+
+    @Value("${app.s3.chunking.enabled:false}")
+    private boolean chunkingEnabled;
+
+    private final SecureRandom random = new SecureRandom();
+    private SecretKey masterKey;
+    private SecretKey addressKey;
+
+    /**
+     * The master key is loaded whenever it is configured, so objects encrypted earlier stay
+     * readable after encryption is switched off for new uploads. Packs and chunks are written
+     * in plain text, so encryption refuses to start next to either of them.
+     */
+    @PostConstruct
+    public void init() {
+        if (segmentSize.toBytes() < MIN_SEGMENT_SIZE || segmentSize.toBytes() > MAX_SEGMENT_SIZE) {
+            throw new IllegalStateException(ERR_INVALID_ENCRYPTION_SEGMENT_SIZE + segmentSize);
+        }
+        if (enabled && packingEnabled) {
+            throw new IllegalStateException(ERR_ENCRYPTION_UNSUPPORTED + "app.s3.packing.enabled");
+        }
+        if (enabled && chunkingEnabled) {
+            throw new IllegalStateException(ERR_ENCRYPTION_UNSUPPORTED + "app.s3.chunking.enabled");
+        }
+        if (masterKeyValue.isEmpty()) {
+            if (enabled) {
+                throw new IllegalStateException(ERR_INVALID_MASTER_KEY + "not configured");
+            }
+            return;
+        }
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(masterKeyValue);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + e.getMessage(), e);
+        }
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + key.length + " bytes");
+        }
+        masterKey = new SecretKeySpec(key, "AES");
+        addressKey = new SecretKeySpec(mac(new SecretKeySpec(key, ADDRESS_MAC), ADDRESS_KEY_LABEL), ADDRESS_MAC);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isEncrypted(String objectName) {
+        return objectName.endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * An upper bound on the stored length for any allowed segment size.
+     */
+    public static long maxCiphertextLength(long plaintextLength) {
+        return plaintextLength + (plaintextLength / MIN_SEGMENT_SIZE + 1) * TAG_LENGTH;
+    }
+
+    /**
+     * The content address of an encrypted object: an HMAC of its plaintext hash under a key
+     * derived from the master key, so equal content still lands on one key while the object
+     * name no longer tells which known content it holds.
+     */
+    public String contentAddress(String contentHash) {
+        if (addressKey == null) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + "not configured");
+        }
+        return HexFormat.of().formatHex(mac(addressKey, contentHash));
+    }
+
+    private static byte[] mac(SecretKey key, String value) {
+        try {
+            Mac mac = Mac.getInstance(ADDRESS_MAC);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A fresh data key for one object; its {@link Envelope#metadata()} must be stored with it.
+     */
+    public Envelope newEnvelope() {
+        byte[] dataKey = new byte[KEY_LENGTH];
+        random.nextBytes(dataKey);
+        SecretKey key = new SecretKeySpec(dataKey, "AES");
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_WRAP);
+            cipher.init(Cipher.WRAP_MODE, masterKey);
+            Map<String, String> metadata = Map.of(
+                    METADATA_SCHEME, SCHEME,
+                    METADATA_KEY_ID, masterKeyId,
+                    METADATA_DATA_KEY, Base64.getEncoder().encodeToString(cipher.wrap(key)),
+                    METADATA_SEGMENT_SIZE, String.valueOf(segmentSize.toBytes()));
+            return new Envelope(key, (int) segmentSize.toBytes(), metadata);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Unwraps the data key from the metadata of a stored object.
+     */
+    public Envelope open(Map<String, String> metadata) {
+        if (!SCHEME.equals(metadata.get(METADATA_SCHEME))) {
+            throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "unknown scheme " + metadata.get(METADATA_SCHEME));
+        }
+        if (masterKey == null || !masterKeyId.equals(metadata.get(METADATA_KEY_ID))) {
+            throw new IllegalStateException(ERR_INVALID_MASTER_KEY + "object needs key " + metadata.get(METADATA_KEY_ID));
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_WRAP);
+            cipher.init(Cipher.UNWRAP_MODE, masterKey);
+            Key key = cipher.unwrap(Base64.getDecoder().decode(metadata.get(METADATA_DATA_KEY)), "AES", Cipher.SECRET_KEY);
+            return new Envelope((SecretKey) key, Integer.parseInt(metadata.get(METADATA_SEGMENT_SIZE)), metadata);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The data key of one object with the layout of its segments. A plaintext of {@code n}
+     * bytes is stored as {@code max(1, ceil(n / segmentSize))} segments, each followed by its
+     * tag; only the last segment may be shorter, and empty content is one empty segment.
+     */
+    public static final class Envelope {
+
+        private final SecretKey dataKey;
+        private final int segmentSize;
+        private final Map<String, String> metadata;
+
+        private Envelope(SecretKey dataKey, int segmentSize, Map<String, String> metadata) {
+            this.dataKey = dataKey;
+            this.segmentSize = segmentSize;
+            this.metadata = metadata;
+        }
+
+        public Map<String, String> metadata() {
+            return metadata;
+        }
+
+        public long ciphertextLength(long plaintextLength) {
+            long segments = Math.max(1, (plaintextLength + segmentSize - 1) / segmentSize);
+            return plaintextLength + segments * TAG_LENGTH;
+        }
+
+        public long plaintextLength(long ciphertextLength) {
+            long segments = (ciphertextLength + sealedSegmentSize() - 1) / sealedSegmentSize();
+            if (segments == 0 || ciphertextLength - (segments - 1) * sealedSegmentSize() < TAG_LENGTH) {
+                throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "length " + ciphertextLength);
+            }
+            return ciphertextLength - segments * TAG_LENGTH;
+        }
+
+        /**
+         * The inclusive stored byte range holding the plaintext bytes {@code [start, end]}.
+         */
+        public long[] ciphertextRegion(long start, long end, long ciphertextLength) {
+            long first = start / segmentSize;
+            long last = Math.max(first, end / segmentSize);
+            return new long[]{first * sealedSegmentSize(),
+                    Math.min((last + 1) * sealedSegmentSize(), ciphertextLength) - 1};
+        }
+
+        public Flux<DataBuffer> encrypt(Flux<DataBuffer> content) {
+            return Flux.defer(() -> {
+                Encryptor encryptor = new Encryptor();
+                return content.concatMapIterable(encryptor::append)
+                        .concatWith(Mono.fromSupplier(encryptor::finish))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            });
+        }
+
+        /**
+         * Opens the segments read from {@link #ciphertextRegion} and emits the plaintext bytes
+         * {@code [start, end]}; {@code end < start} reads nothing but still authenticates the
+         * segment. A segment is only emitted once its tag has been verified. Fails with
+         * {@link IllegalStateException} on tampered or truncated content.
+         */
+        public Flux<DataBuffer> decrypt(Flux<DataBuffer> ciphertext, long start, long end, long ciphertextLength) {
+            return Flux.defer(() -> {
+                long lastSegment = (ciphertextLength - 1) / sealedSegmentSize();
+                Decryptor decryptor = new Decryptor(start / segmentSize, Math.max(start / segmentSize, end / segmentSize),
+                        lastSegment, start % segmentSize, Math.max(0, end - start + 1));
+                return ciphertext.concatMapIterable(decryptor::append)
+                        .concatWith(Mono.fromSupplier(decryptor::finish))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            });
+        }
+
+        private int sealedSegmentSize() {
+            return segmentSize + TAG_LENGTH;
+        }
+
+        private static Cipher newCipher() {
+            try {
+                return Cipher.getInstance(CIPHER);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * The data key is never reused across objects, so the nonce only has to be unique
+         * within one: the segment index followed by the last-segment flag.
+         */
+        private byte[] seal(Cipher cipher, int mode, long index, boolean last, byte[] input, int length) {
+            byte[] nonce = ByteBuffer.allocate(NONCE_LENGTH)
+                    .putLong(3, index)
+                    .put(NONCE_LENGTH - 1, (byte) (last ? 1 : 0))
+                    .array();
+            try {
+                cipher.init(mode, dataKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+                return cipher.doFinal(input, 0, length);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "segment " + index, e);
+            }
+        }
+
+        /**
+         * A full segment is only sealed once more bytes arrive, since until then it may be the last.
+         */
+        private final class Encryptor {
+
+            private final Cipher cipher = newCipher();
+            private final byte[] segment = new byte[segmentSize];
+            private int position;
+            private long index;
+
+            private List<DataBuffer> append(DataBuffer dataBuffer) {
+                try {
+                    List<DataBuffer> sealed = new ArrayList<>(1);
+                    while (dataBuffer.readableByteCount() > 0) {
+                        if (position == segment.length) {
+                            sealed.add(sealSegment(false));
+                        }
+                        int length = Math.min(dataBuffer.readableByteCount(), segment.length - position);
+                        dataBuffer.read(segment, position, length);
+                        position += length;
+                    }
+                    return sealed;
+                } finally {
+                    DataBufferUtils.release(dataBuffer);
+                }
+            }
+
+            private DataBuffer finish() {
+                return sealSegment(true);
+            }
+
+            private DataBuffer sealSegment(boolean last) {
+                byte[] sealed = seal(cipher, Cipher.ENCRYPT_MODE, index++, last, segment, position);
+                position = 0;
+                return DefaultDataBufferFactory.sharedInstance.wrap(sealed);
+            }
+        }
+
+        private final class Decryptor {
+
+            private final Cipher cipher = newCipher();
+            private final byte[] segment = new byte[sealedSegmentSize()];
+            private final long endSegment;
+            private final long lastSegment;
+            private int position;
+            private long index;
+            private long skip;
+            private long remaining;
+
+            private Decryptor(long firstSegment, long endSegment, long lastSegment, long skip, long remaining) {
+                this.index = firstSegment;
+                this.endSegment = endSegment;
+                this.lastSegment = lastSegment;
+                this.skip = skip;
+                this.remaining = remaining;
+            }
+
+            private List<DataBuffer> append(DataBuffer dataBuffer) {
+                try {
+                    List<DataBuffer> opened = new ArrayList<>(1);
+                    while (dataBuffer.readableByteCount() > 0) {
+                        if (index > endSegment) {
+                            throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "content past segment " + endSegment);
+                        }
+                        int length = Math.min(dataBuffer.readableByteCount(), segment.length - position);
+                        dataBuffer.read(segment, position, length);
+                        position += length;
+                        if (position == segment.length) {
+                            openSegment(opened);
+                        }
+                    }
+                    return opened;
+                } finally {
+                    DataBufferUtils.release(dataBuffer);
+                }
+            }
+
+            private DataBuffer finish() {
+                List<DataBuffer> opened = new ArrayList<>(1);
+                if (position > 0) {
+                    openSegment(opened);
+                }
+                if (index <= endSegment) {
+                    throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "missing segment " + index);
+                }
+                return opened.isEmpty() ? null : opened.get(0);
+            }
+
+            private void openSegment(List<DataBuffer> opened) {
+                if (position < TAG_LENGTH) {
+                    throw new IllegalStateException(ERR_INVALID_ENCRYPTED_CONTENT + "truncated segment " + index);
+                }
+                byte[] plaintext = seal(cipher, Cipher.DECRYPT_MODE, index, index == lastSegment, segment, position);
+                index++;
+                position = 0;
+                int from = (int) Math.min(skip, plaintext.length);
+                int length = (int) Math.min(plaintext.length - from, remaining);
+                skip -= from;
+                remaining -= length;
+                if (length > 0) {
+                    opened.add(DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(plaintext, from, length)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import org.springframework.http.HttpStatus;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+final class S3Errors {
+
+    private S3Errors() {
+    }
+
+    static boolean hasStatus(Throwable error, HttpStatus status) {
+        return error instanceof S3Exception s3Exception && s3Exception.statusCode() == status.value();
+    }
+
+    /**
+     * Server errors, throttling and client-side I/O failures are worth another attempt;
+     * other 4xx responses will fail the same way again.
+     */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof S3Exception s3Exception) {
+            return s3Exception.statusCode() >= 500 || s3Exception.statusCode() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return error instanceof SdkClientException;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.*;
+
+/**
+ * Uploads a stream of unknown length as an S3 multipart upload: the content is cut into
+ * fixed-size parts, up to {@code concurrency} parts are in flight at once and each part is
+ * retried on its own. The upload is either completed with all parts or aborted.
+ * <p>
+ * Every part is sent with the CRC32C of the bytes in hand, so S3 rejects a part that
+ * arrives damaged and keeps the checksums with the object.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class S3MultipartUploader {
+
+    static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
+    private final S3AsyncClient s3Client;
+
+    @Value("${app.s3.multipart.part-size:8MB}")
+    private DataSize partSize = DataSize.ofMegabytes(8);
+
+    @Value("${app.s3.multipart.concurrency:4}")
+    private int concurrency = 4;
+
+    @Value("${app.s3.multipart.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${app.s3.multipart.retry-backoff:200ms}")
+    private Duration retryBackoff = Duration.ofMillis(200);
+
+    @PostConstruct
+    public void init() {
+        if (partSize.toBytes() < MIN_PART_SIZE || partSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException(ERR_INVALID_MULTIPART_PART_SIZE + partSize);
+        }
+    }
+
+    public long getPartSize() {
+        return partSize.toBytes();
+    }
+
+    /**
+     * The most an upload of {@code contentLength} bytes, or of unknown length when negative,
+     * keeps in memory: a part for every request in flight and the one being cut.
+     */
+    public long bufferedBytes(long contentLength) {
+        long parts = partSize.toBytes() * (concurrency + 1);
+        return contentLength >= 0 ? Math.min(contentLength, parts) : parts;
+    }
+
+    /**
+     * Returns the ETag of the stored object. Content that fits into a single part is sent
+     * with a plain PutObject, since a multipart upload would only add two round trips.
+     */
+    public Mono<String> upload(String bucket, String key, Flux<DataBuffer> content) {
+        return upload(bucket, key, content, null, null, null);
+    }
+
+    /**
+     * Same as {@link #upload(String, String, Flux)}, storing the given {@code Content-Type},
+     * {@code Content-Encoding} and user metadata with the object; any of them may be null.
+     */
+    public Mono<String> upload(String bucket, String key, Flux<DataBuffer> content,
+                               String contentType, String contentEncoding, Map<String, String> metadata) {
+        int size = (int) partSize.toBytes();
+        return split(content, size)
+                .switchOnFirst((first, parts) -> {
+                    if (first.hasValue() && first.get().length < size) {
+                        return parts.then(putSingle(bucket, key, first.get(), contentType, contentEncoding, metadata));
+                    }
+                    return uploadParts(bucket, key, parts, contentType, contentEncoding, metadata);
+                })
+                .next();
+    }
+
+    private Mono<String> putSingle(String bucket, String key, byte[] bytes, String contentType, String contentEncoding,
+                                   Map<String, String> metadata) {
+        return Mono.fromFuture(() ->
+                        s3Client.putObject(PutObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .contentLength((long) bytes.length)
+                                        .contentType(contentType)
+                                        .contentEncoding(contentEncoding)
+                                        .metadata(metadata)
+                                        .checksumCRC32C(ContentChecksum.of(bytes))
+                                        .build(),
+                                AsyncRequestBody.fromBytesUnsafe(bytes)))
+                .map(PutObjectResponse::eTag);
+    }
+
+    private Mono<String> uploadParts(String bucket, String key, Flux<byte[]> parts,
+                                     String contentType, String contentEncoding, Map<String, String> metadata) {
+        return Mono.fromFuture(() ->
+                        s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .contentEncoding(contentEncoding)
+                                .metadata(metadata)
+                                .checksumAlgorithm(ChecksumAlgorithm.CRC32C)
+                                .build()))
+                .map(CreateMultipartUploadResponse::uploadId)
+                .flatMap(uploadId -> parts.index()
+                        .flatMap(part -> uploadPart(bucket, key, uploadId,
+                                part.getT1().intValue() + 1, part.getT2()), concurrency)
+                        .collectSortedList(Comparator.comparing(CompletedPart::partNumber))
+                        .flatMap(completedParts -> complete(bucket, key, uploadId, completedParts))
+                        .onErrorResume(error -> abort(bucket, key, uploadId).then(Mono.error(error)))
+                        .doOnCancel(() -> abort(bucket, key, uploadId).subscribe()));
+    }
+
+    Mono<CompletedPart> uploadPart(String bucket, String key, String uploadId, int partNumber, byte[] bytes) {
+        String checksum = ContentChecksum.of(bytes);
+        return Mono.fromFuture(() ->
+                        s3Client.uploadPart(UploadPartRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .partNumber(partNumber)
+                                        .contentLength((long) bytes.length)
+                                        .checksumCRC32C(checksum)
+                                        .build(),
+                                AsyncRequestBody.fromBytesUnsafe(bytes)))
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .filter(S3Errors::isRetryable)
+                        .doBeforeRetry(signal -> log.warn(WARN_RETRYING_MULTIPART_PART,
+                                partNumber, key, signal.failure().getMessage())))
+                .map(response -> CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .checksumCRC32C(checksum)
+                        .build());
+    }
+
+    private Mono<String> complete(String bucket, String key, String uploadId, List<CompletedPart> completedParts) {
+        return Mono.fromFuture(() ->
+                        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .multipartUpload(CompletedMultipartUpload.builder()
+                                        .parts(completedParts)
+                                        .build())
+                                .build()))
+                .doOnSuccess(response -> log.info(INFO_MULTIPART_UPLOAD_COMPLETED, key, completedParts.size()))
+                .map(CompleteMultipartUploadResponse::eTag);
+    }
+
+    private Mono<Void> abort(String bucket, String key, String uploadId) {
+        return Mono.fromFuture(() ->
+                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .build()))
+                .doOnSuccess(response -> log.info(INFO_MULTIPART_UPLOAD_ABORTED, key))
+                .doOnError(error -> log.error(ERR_MULTIPART_UPLOAD_ABORT_FAILED, key, error.getMessage()))
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Cuts the content into arrays of exactly {@code partSize} bytes, followed by the shorter
+     * remainder. Empty content yields a single empty array, so there is always a first part.
+     */
+    static Flux<byte[]> split(Flux<DataBuffer> content, int partSize) {
+        return Flux.defer(() -> {
+            PartBuffer partBuffer = new PartBuffer(partSize);
+            return content
+                    .concatMapIterable(partBuffer::append)
+                    .concatWith(Mono.fromSupplier(partBuffer::remainder));
+        });
+    }
+
+    private static final class PartBuffer {
+
+        private final int partSize;
+        private byte[] current;
+        private int position;
+        private boolean emitted;
+
+        private PartBuffer(int partSize) {
+            this.partSize = partSize;
+        }
+
+        private List<byte[]> append(DataBuffer dataBuffer) {
+            try {
+                List<byte[]> completed = new ArrayList<>(1);
+                while (dataBuffer.readableByteCount() > 0) {
+                    if (current == null) {
+                        current = new byte[partSize];
+                        position = 0;
+                    }
+                    int length = Math.min(dataBuffer.readableByteCount(), partSize - position);
+                    dataBuffer.read(current, position, length);
+                    position += length;
+                    if (position == partSize) {
+                        completed.add(current);
+                        current = null;
+                        emitted = true;
+                    }
+                }
+                return completed;
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        private byte[] remainder() {
+            if (current != null) {
+                return Arrays.copyOf(current, position);
+            }
+            return emitted ? null : new byte[0];
+        }
+    }
+}
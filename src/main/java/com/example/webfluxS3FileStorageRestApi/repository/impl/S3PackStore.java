@@ -0,0 +1,376 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.model.Pack;
+import com.example.webfluxS3FileStorageRestApi.model.PackEntry;
+import com.example.webfluxS3FileStorageRestApi.repository.PackEntryRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.PackRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.*;
+
+/**
+ * Packs small uploads into large S3 objects, so storing one costs a local append instead of
+ * an S3 request. Uploads are appended to an open pack file on local disk and synced before
+ * they are acknowledged; the pack is uploaded as {@code packs/<id>} once it is full or older
+ * than {@code max-pack-age}. Where each file sits is recorded in {@code pack_entry}, and a
+ * packed file is read with one ranged GET, or from local disk while its pack is still there.
+ * <p>
+ * Pack files are local to the node that wrote them, so packing assumes a single instance or
+ * a shared {@code directory}. Packs left on disk by a crash are uploaded on the next seal.
+ * Compaction copies the live entries of sparse packs into the open pack and deletes the rest.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class S3PackStore {
+
+    private static final String PACKED_DIRECTORY = "packed/";
+    private static final String PACK_DIRECTORY = "packs/";
+    private static final String PACK_FILE_SUFFIX = ".pack";
+
+    private final S3AsyncClient s3Client;
+    private final PackRepository packRepository;
+    private final PackEntryRepository packEntryRepository;
+
+    @Value("${app.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${app.s3.key-prefix}")
+    private String keyPrefix;
+
+    @Value("${app.s3.packing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.packing.directory:/tmp/myapp/packs}")
+    private String directory = "/tmp/myapp/packs";
+
+    @Value("${app.s3.packing.max-file-size:128KB}")
+    private DataSize maxFileSize = DataSize.ofKilobytes(128);
+
+    @Value("${app.s3.packing.pack-size:64MB}")
+    private DataSize packSize = DataSize.ofMegabytes(64);
+
+    @Value("${app.s3.packing.max-pack-age:60s}")
+    private Duration maxPackAge = Duration.ofSeconds(60);
+
+    /**
+     * All writes to pack files happen on this thread, so appends never interleave.
+     */
+    private final Scheduler writer = Schedulers.newSingle("pack-writer");
+
+    private Path packDir;
+    private OpenPack openPack;
+
+    public record PackedObject(byte[] content, String eTag, Instant lastModified) {
+    }
+
+    private record PackLocation(String packId, long offset) {
+    }
+
+    private static final class OpenPack {
+
+        private final String id;
+        private final Path path;
+        private final FileChannel channel;
+        private final long openedAt = System.nanoTime();
+        private long size;
+
+        private OpenPack(String id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        packDir = Paths.get(directory);
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(packDir);
+        } catch (IOException e) {
+            throw new IllegalStateException(ERR_PACK_DIRECTORY_INIT_FAILED + packDir, e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        writer.dispose();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean appliesTo(long contentLength) {
+        return enabled && contentLength >= 0 && contentLength <= maxFileSize.toBytes();
+    }
+
+    public static boolean isPacked(String objectName) {
+        return objectName.startsWith(PACKED_DIRECTORY);
+    }
+
+    /**
+     * Appends the content to the open pack. The returned name stays valid when compaction
+     * moves the entry, as it names the entry, not its pack.
+     */
+    public Mono<StagedObjectDTO> append(Flux<DataBuffer> content) {
+        return DataBufferUtils.join(content, (int) maxFileSize.toBytes())
+                .map(dataBuffer -> {
+                    try {
+                        byte[] bytes = new byte[dataBuffer.readableByteCount()];
+                        dataBuffer.read(bytes);
+                        return bytes;
+                    } finally {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    ContentDigest digest = new ContentDigest();
+                    digest.update(bytes, bytes.length);
+                    String contentHash = digest.toHex();
+                    return write(bytes)
+                            .flatMap(location -> packEntryRepository.save(PackEntry.builder()
+                                    .packId(location.packId())
+                                    .entryOffset(location.offset())
+                                    .length(bytes.length)
+                                    .contentHash(contentHash)
+                                    .createdAt(LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS))
+                                    .build()))
+                            .map(entry -> new StagedObjectDTO(PACKED_DIRECTORY + entry.getId(), contentHash, (long) bytes.length));
+                });
+    }
+
+    /**
+     * Drops the entry; its bytes stay in the pack until compaction rewrites it.
+     */
+    public Mono<Void> delete(String objectName) {
+        return packEntryRepository.deleteById(entryId(objectName));
+    }
+
+    public Mono<FileMetadataDTO> getMetadata(String objectName) {
+        return packEntryRepository.findById(entryId(objectName))
+                .map(entry -> FileMetadataDTO.builder()
+                        .storageKey(objectName)
+                        .etag(eTag(entry))
+                        .size((long) entry.getLength())
+                        .lastModified(entry.getCreatedAt().toInstant(ZoneOffset.UTC))
+                        .build());
+    }
+
+    /**
+     * A read that races with compaction may find the old pack gone; the entry has been moved
+     * by then, so it is looked up and read once more.
+     */
+    public Mono<PackedObject> read(String objectName) {
+        Long entryId = entryId(objectName);
+        return packEntryRepository.findById(entryId)
+                .switchIfEmpty(Mono.error(() -> NoSuchKeyException.builder()
+                        .message(ERR_PACK_ENTRY_NOT_FOUND + objectName)
+                        .build()))
+                .flatMap(entry -> readEntry(entry)
+                        .onErrorResume(NoSuchKeyException.class, error -> packEntryRepository.findById(entryId)
+                                .flatMap(this::readEntry))
+                        .map(content -> new PackedObject(content, eTag(entry), entry.getCreatedAt().toInstant(ZoneOffset.UTC))));
+    }
+
+    /**
+     * Uploads every pack that is closed, after closing the open one if it has reached
+     * {@code max-pack-age}. A pack is registered before its local file is deleted, so
+     * readers always find it in one place or the other.
+     */
+    public Mono<Void> sealPacks() {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> {
+                    if (openPack != null && System.nanoTime() - openPack.openedAt >= maxPackAge.toNanos()) {
+                        close(openPack);
+                        openPack = null;
+                    }
+                    String openPath = openPack != null ? openPack.path.toString() : null;
+                    try (Stream<Path> files = Files.list(packDir)) {
+                        return files
+                                .filter(path -> path.toString().endsWith(PACK_FILE_SUFFIX))
+                                .filter(path -> !path.toString().equals(openPath))
+                                .toList();
+                    }
+                })
+                .subscribeOn(writer)
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(this::uploadPack)
+                .then();
+    }
+
+    /**
+     * Rewrites every pack whose live entries fill no more than {@code 1 - minGarbageRatio}
+     * of it: the live entries are appended to the open pack and pointed at their new place,
+     * then the old pack is deleted.
+     */
+    public Mono<Void> compact(double minGarbageRatio, Duration gracePeriod) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return packRepository.findAllCompactable(1 - minGarbageRatio, gracePeriod.toSeconds())
+                .concatMap(pack -> compactPack(pack, gracePeriod))
+                .then();
+    }
+
+    private Mono<Void> compactPack(Pack pack, Duration gracePeriod) {
+        return packEntryRepository.findAllLiveByPackId(pack.getId(), gracePeriod.toSeconds())
+                .concatMap(entry -> readEntry(entry)
+                        .flatMap(this::write)
+                        .flatMap(location -> packEntryRepository.relocate(entry.getId(), location.packId(), location.offset())))
+                .count()
+                .flatMap(moved -> packEntryRepository.deleteAllByPackId(pack.getId())
+                        .then(Mono.fromFuture(() -> s3Client.deleteObject(DeleteObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(packKey(pack.getId()))
+                                .build())))
+                        .then(packRepository.deleteById(pack.getId()))
+                        .doOnSuccess(unused -> log.info(INFO_PACK_COMPACTED, pack.getId(), moved)));
+    }
+
+    private Mono<PackLocation> write(byte[] bytes) {
+        return Mono.fromCallable(() -> {
+            if (openPack == null) {
+                String id = UUID.randomUUID().toString();
+                Path path = packDir.resolve(id + PACK_FILE_SUFFIX);
+                openPack = new OpenPack(id, path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+            }
+            OpenPack pack = openPack;
+            long offset = pack.size;
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                pack.channel.write(buffer, offset + buffer.position());
+            }
+            pack.channel.force(false);
+            pack.size += bytes.length;
+            if (pack.size >= packSize.toBytes()) {
+                close(pack);
+                openPack = null;
+            }
+            return new PackLocation(pack.id, offset);
+        }).subscribeOn(writer);
+    }
+
+    private Mono<Void> uploadPack(Path path) {
+        String packId = path.getFileName().toString().replace(PACK_FILE_SUFFIX, "");
+        return Mono.fromCallable(() -> Files.size(path))
+                .flatMap(size -> Mono.fromFuture(() ->
+                                s3Client.putObject(PutObjectRequest.builder()
+                                                .bucket(bucketName)
+                                                .key(packKey(packId))
+                                                .contentLength(size)
+                                                .build(),
+                                        AsyncRequestBody.fromFile(path)))
+                        .then(packRepository.insertIgnore(packId, size,
+                                LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS)))
+                        .then(Mono.fromCallable(() -> Files.deleteIfExists(path)).subscribeOn(Schedulers.boundedElastic()))
+                        .doOnSuccess(unused -> log.info(INFO_PACK_SEALED, packId, size)))
+                .then();
+    }
+
+    /**
+     * Reads from the local pack while it exists, otherwise a ranged GET on the uploaded one.
+     */
+    private Mono<byte[]> readEntry(PackEntry entry) {
+        if (entry.getLength() == 0) {
+            return Mono.just(new byte[0]);
+        }
+        Path local = packDir.resolve(entry.getPackId() + PACK_FILE_SUFFIX);
+        return Mono.fromCallable(() -> readLocal(local, entry))
+                .subscribeOn(Schedulers.boundedElastic())
+                .switchIfEmpty(Mono.defer(() -> Mono.fromFuture(() ->
+                                s3Client.getObject(GetObjectRequest.builder()
+                                                .bucket(bucketName)
+                                                .key(packKey(entry.getPackId()))
+                                                .range("bytes=" + entry.getEntryOffset() + "-"
+                                                        + (entry.getEntryOffset() + entry.getLength() - 1))
+                                                .build(),
+                                        AsyncResponseTransformer.toBytes()))
+                        .map(ResponseBytes::asByteArrayUnsafe)));
+    }
+
+    /**
+     * Returns {@code null} when the pack is not on local disk.
+     */
+    private static byte[] readLocal(Path path, PackEntry entry) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(entry.getLength());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.getEntryOffset() + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            return buffer.array();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void close(OpenPack pack) {
+        try {
+            pack.channel.close();
+        } catch (IOException e) {
+            log.error(ERR_PACK_CLOSE_FAILED + pack.path, e);
+        }
+    }
+
+    private String packKey(String packId) {
+        return keyPrefix + "/" + PACK_DIRECTORY + packId;
+    }
+
+    private static Long entryId(String objectName) {
+        return Long.valueOf(objectName.substring(PACKED_DIRECTORY.length()));
+    }
+
+    private static String eTag(PackEntry entry) {
+        return "\"" + entry.getContentHash() + "\"";
+    }
+}
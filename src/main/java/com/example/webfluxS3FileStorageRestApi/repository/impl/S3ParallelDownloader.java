@@ -0,0 +1,102 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.time.Duration;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.WARN_RETRYING_RANGED_GET;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_PARALLEL_DOWNLOAD_STARTED;
+
+/**
+ * Fetches a large object as concurrent ranged GETs and emits the ranges in order.
+ * At most {@code parallelism} ranges are in flight or waiting to be written, which bounds
+ * the reorder buffer to {@code parallelism * partSize} bytes per download.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class S3ParallelDownloader {
+
+    private final S3AsyncClient s3Client;
+
+    @Value("${app.s3.parallel-download.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.parallel-download.threshold:64MB}")
+    private DataSize threshold = DataSize.ofMegabytes(64);
+
+    @Value("${app.s3.parallel-download.part-size:8MB}")
+    private DataSize partSize = DataSize.ofMegabytes(8);
+
+    @Value("${app.s3.parallel-download.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${app.s3.parallel-download.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${app.s3.parallel-download.retry-backoff:200ms}")
+    private Duration retryBackoff = Duration.ofMillis(200);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean appliesTo(long contentLength) {
+        return enabled && contentLength >= threshold.toBytes();
+    }
+
+    /**
+     * The most a download keeps in memory: a part for every range request in flight.
+     */
+    public long getBufferedBytes() {
+        return partSize.toBytes() * parallelism;
+    }
+
+    /**
+     * Every range is pinned to {@code eTag}, so an object replaced mid-download fails the
+     * download instead of mixing bytes of two versions.
+     */
+    public Flux<DataBuffer> download(String bucket, String key, String eTag, long contentLength) {
+        long size = partSize.toBytes();
+        int parts = (int) ((contentLength + size - 1) / size);
+        log.info(INFO_PARALLEL_DOWNLOAD_STARTED, key, parts, parallelism);
+
+        return Flux.range(0, parts)
+                .flatMapSequential(index -> {
+                    long start = index * size;
+                    long end = Math.min(contentLength, start + size) - 1;
+                    return getRange(bucket, key, eTag, start, end);
+                }, parallelism, 1)
+                .map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private Mono<byte[]> getRange(String bucket, String key, String eTag, long start, long end) {
+        return Mono.fromFuture(() ->
+                        s3Client.getObject(
+                                GetObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .range("bytes=" + start + "-" + end)
+                                        .ifMatch(eTag)
+                                        .build(),
+                                AsyncResponseTransformer.toBytes()))
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .filter(S3Errors::isRetryable)
+                        .doBeforeRetry(signal -> log.warn(WARN_RETRYING_RANGED_GET,
+                                start, end, key, signal.failure().getMessage())))
+                .map(ResponseBytes::asByteArrayUnsafe);
+    }
+}
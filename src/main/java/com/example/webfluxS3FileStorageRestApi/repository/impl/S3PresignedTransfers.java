@@ -0,0 +1,171 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.CompletedPartDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedPartUrlDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.*;
+
+/**
+ * Presigned URLs that let clients move file bytes to and from S3 directly, so the app
+ * only handles control traffic. Uploads up to one multipart part size get a single PUT
+ * URL; larger ones are started as a multipart upload with one URL per part and are
+ * completed by the client's completion callback.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class S3PresignedTransfers {
+
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3AsyncClient s3Client;
+    private final S3Presigner presigner;
+    private final S3MultipartUploader multipartUploader;
+
+    @Value("${app.s3.presigned.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.presigned.url-ttl:15m}")
+    private Duration urlTtl = Duration.ofMinutes(15);
+
+    public Mono<PresignedUploadResponseDTO> createUpload(String bucket, String key, String fileName,
+                                                         Long contentLength, String contentType) {
+        if (!enabled) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_PRESIGNED_TRANSFERS_DISABLED));
+        }
+        if (contentLength == null || contentLength < 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_INVALID_CONTENT_LENGTH + contentLength));
+        }
+        long partSize = multipartUploader.getPartSize();
+        if (contentLength <= partSize) {
+            return Mono.fromCallable(() -> presigner.presignPutObject(PutObjectPresignRequest.builder()
+                            .signatureDuration(urlTtl)
+                            .putObjectRequest(PutObjectRequest.builder()
+                                    .bucket(bucket)
+                                    .key(key)
+                                    .contentType(contentType)
+                                    .build())
+                            .build()))
+                    .map(presigned -> PresignedUploadResponseDTO.builder()
+                            .fileName(fileName)
+                            .partSize(contentLength)
+                            .parts(List.of(new PresignedPartUrlDTO(1, presigned.url().toString())))
+                            .expiresAt(presigned.expiration())
+                            .build());
+        }
+
+        long partCount = (contentLength + partSize - 1) / partSize;
+        if (partCount > MAX_PARTS) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_PRESIGNED_UPLOAD_TOO_LARGE + contentLength));
+        }
+        return Mono.fromFuture(() -> s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .build()))
+                .map(created -> {
+                    Instant expiresAt = Instant.now().plus(urlTtl);
+                    List<PresignedPartUrlDTO> parts = IntStream.rangeClosed(1, (int) partCount)
+                            .mapToObj(partNumber -> new PresignedPartUrlDTO(partNumber,
+                                    presignPart(bucket, key, created.uploadId(), partNumber).url().toString()))
+                            .toList();
+                    log.info(INFO_PRESIGNED_MULTIPART_UPLOAD_CREATED, key, partCount);
+                    return PresignedUploadResponseDTO.builder()
+                            .fileName(fileName)
+                            .uploadId(created.uploadId())
+                            .partSize(partSize)
+                            .parts(parts)
+                            .expiresAt(expiresAt)
+                            .build();
+                });
+    }
+
+    /**
+     * Completes a multipart upload from the part ETags the client collected. A single PUT
+     * needs no completion, so without an upload ID this only checks that the object exists.
+     */
+    public Mono<HeadObjectResponse> completeUpload(String bucket, String key, String uploadId, List<CompletedPartDTO> parts) {
+        if (!enabled) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_PRESIGNED_TRANSFERS_DISABLED));
+        }
+        Mono<?> completion = Mono.empty();
+        if (uploadId != null) {
+            if (parts == null || parts.isEmpty()) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_PRESIGNED_UPLOAD_PARTS_MISSING + uploadId));
+            }
+            completion = Mono.fromFuture(() -> s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder()
+                            .parts(parts.stream()
+                                    .sorted(Comparator.comparing(CompletedPartDTO::getPartNumber))
+                                    .map(part -> CompletedPart.builder()
+                                            .partNumber(part.getPartNumber())
+                                            .eTag(part.getEtag())
+                                            .build())
+                                    .toList())
+                            .build())
+                    .build()));
+        }
+        return completion
+                .then(Mono.fromFuture(() -> s3Client.headObject(HeadObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .build())))
+                .onErrorMap(error -> S3Errors.hasStatus(error, HttpStatus.NOT_FOUND)
+                                || S3Errors.hasStatus(error, HttpStatus.BAD_REQUEST),
+                        error -> new ResponseStatusException(HttpStatus.CONFLICT, ERR_PRESIGNED_UPLOAD_INCOMPLETE + key, error));
+    }
+
+    public Mono<URI> presignDownload(String bucket, String key, String fileName) {
+        if (!enabled) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_PRESIGNED_TRANSFERS_DISABLED));
+        }
+        return Mono.fromCallable(() -> presigner.presignGetObject(GetObjectPresignRequest.builder()
+                                .signatureDuration(urlTtl)
+                                .getObjectRequest(GetObjectRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .responseContentDisposition("attachment; filename=\"" + fileName + "\"")
+                                        .build())
+                                .build())
+                        .url()
+                        .toURI());
+    }
+
+    private PresignedUploadPartRequest presignPart(String bucket, String key, String uploadId, int partNumber) {
+        return presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(urlTtl)
+                .uploadPartRequest(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .build())
+                .build());
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_MULTIPART_UPLOAD_COMPLETED;
+
+/**
+ * S3 side of resumable uploads: one multipart upload per session that is fed across many
+ * requests. Part {@code n} always holds the bytes from {@code (n - 1) * partSize}, so the parts
+ * a request stores follow from its offset, and a part sent again simply replaces the earlier copy.
+ * Which parts exist is asked from S3 at completion, so the database only has to keep the offset.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class S3ResumableUploads {
+
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3AsyncClient s3Client;
+    private final S3MultipartUploader multipartUploader;
+    private final TransferAdmission transferAdmission;
+
+    /**
+     * Returns the upload ID of a new multipart upload for {@code uploadLength} bytes.
+     */
+    public Mono<String> create(String bucket, String key, String contentType, long uploadLength, long partSize) {
+        if ((uploadLength + partSize - 1) / partSize > MAX_PARTS) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_UPLOAD_SESSION_TOO_LARGE + uploadLength));
+        }
+        return Mono.fromFuture(() ->
+                        s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .checksumAlgorithm(ChecksumAlgorithm.CRC32C)
+                                .build()))
+                .map(CreateMultipartUploadResponse::uploadId);
+    }
+
+    /**
+     * Stores {@code content}, which starts at {@code offset}, as whole parts of {@code partSize}
+     * bytes and emits the offset after every part S3 has acknowledged. A shorter last piece is
+     * only stored when it ends the upload; otherwise it is dropped and sent again by the client
+     * from the last emitted offset. Parts go out one at a time, so acknowledgements stay in order.
+     */
+    public Flux<Long> append(String bucket, String key, String uploadId, long offset, long partSize,
+                             long uploadLength, Flux<DataBuffer> content) {
+        return Flux.defer(() -> {
+            long[] position = {offset};
+            return S3MultipartUploader.split(content, (int) partSize)
+                    .concatMap(bytes -> {
+                        long end = position[0] + bytes.length;
+                        if (end > uploadLength) {
+                            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                    ERR_UPLOAD_SESSION_LENGTH_EXCEEDED + uploadLength));
+                        }
+                        if (bytes.length == 0 || (bytes.length < partSize && end != uploadLength)) {
+                            return Mono.empty();
+                        }
+                        int partNumber = (int) (position[0] / partSize) + 1;
+                        position[0] = end;
+                        return transferAdmission.admit(bytes.length,
+                                        multipartUploader.uploadPart(bucket, key, uploadId, partNumber, bytes))
+                                .thenReturn(end);
+                    }, 1);
+        });
+    }
+
+    /**
+     * Completes the upload from the parts S3 holds, which have to cover exactly
+     * {@code uploadLength} bytes, and returns the CRC32C of the whole object combined from
+     * the part checksums; empty when a part has none.
+     */
+    public Mono<String> complete(String bucket, String key, String uploadId, long uploadLength) {
+        return listParts(bucket, key, uploadId, null)
+                .expand(response -> Boolean.TRUE.equals(response.isTruncated())
+                        ? listParts(bucket, key, uploadId, response.nextPartNumberMarker())
+                        : Mono.empty())
+                .flatMapIterable(ListPartsResponse::parts)
+                .collectList()
+                .flatMap(parts -> {
+                    List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+                    long size = 0;
+                    String checksum = null;
+                    boolean checksummed = true;
+                    for (Part part : parts) {
+                        if (part.partNumber() != completedParts.size() + 1) {
+                            break;
+                        }
+                        size += part.size();
+                        checksummed &= part.checksumCRC32C() != null;
+                        if (checksummed) {
+                            checksum = checksum == null
+                                    ? part.checksumCRC32C()
+                                    : ContentChecksum.combine(checksum, part.checksumCRC32C(), part.size());
+                        }
+                        completedParts.add(CompletedPart.builder()
+                                .partNumber(part.partNumber())
+                                .eTag(part.eTag())
+                                .checksumCRC32C(part.checksumCRC32C())
+                                .build());
+                    }
+                    if (completedParts.size() != parts.size() || size != uploadLength) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT, ERR_UPLOAD_SESSION_INCOMPLETE + key));
+                    }
+                    String combined = checksummed ? checksum : null;
+                    return Mono.fromFuture(() ->
+                                    s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                                            .bucket(bucket)
+                                            .key(key)
+                                            .uploadId(uploadId)
+                                            .multipartUpload(CompletedMultipartUpload.builder()
+                                                    .parts(completedParts)
+                                                    .build())
+                                            .build()))
+                            .doOnSuccess(response -> log.info(INFO_MULTIPART_UPLOAD_COMPLETED, key, completedParts.size()))
+                            .then(Mono.justOrEmpty(combined));
+                });
+    }
+
+    /**
+     * Drops the stored parts. An upload that S3 no longer knows counts as aborted.
+     */
+    public Mono<Void> abort(String bucket, String key, String uploadId) {
+        return Mono.fromFuture(() ->
+                        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .build()))
+                .onErrorResume(error -> S3Errors.hasStatus(error, HttpStatus.NOT_FOUND), error -> Mono.empty())
+                .then();
+    }
+
+    private Mono<ListPartsResponse> listParts(String bucket, String key, String uploadId, Integer partNumberMarker) {
+        return Mono.fromFuture(() ->
+                s3Client.listParts(ListPartsRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumberMarker(partNumberMarker)
+                        .build()));
+    }
+}
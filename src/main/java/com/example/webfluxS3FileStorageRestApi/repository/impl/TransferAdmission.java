@@ -0,0 +1,316 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.config.TransferPermitWebFilter;
+import com.example.webfluxS3FileStorageRestApi.exception.TransferRejectedException;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.LocalFileContent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_TRANSFER_QUEUE_FULL;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_TRANSFER_QUEUE_TIMEOUT;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.WARN_TRANSFER_REJECTED;
+
+/**
+ * Admission control for transfers to and from S3: every upload and download holds a permit
+ * for the bytes it keeps in memory while its bytes are moving, and the permits in flight never
+ * add up to more than {@code max-in-flight}. A transfer that does not fit waits in a FIFO
+ * queue; it is rejected with 429 and {@code Retry-After} once the queue is
+ * {@code max-queue-length} long or it has waited for {@code max-wait}.
+ * <p>
+ * What a transfer keeps in memory does not grow with its length: a streamed one holds at most
+ * {@code stream-window}, whether its length is known or not, and a multipart upload or
+ * parallel download one part per request in flight. A permit is never charged more than the
+ * whole budget, so a transfer that needs more still gets in once everything else has drained.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferAdmission {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.s3.admission.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.s3.admission.max-in-flight:512MB}")
+    private DataSize maxInFlight = DataSize.ofMegabytes(512);
+
+    @Value("${app.s3.admission.max-queue-length:64}")
+    private int maxQueueLength = 64;
+
+    @Value("${app.s3.admission.max-wait:10s}")
+    private Duration maxWait = Duration.ofSeconds(10);
+
+    @Value("${app.s3.admission.retry-after:5s}")
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    @Value("${app.s3.admission.stream-window:8MB}")
+    private DataSize streamWindow = DataSize.ofMegabytes(8);
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private long inFlightBytes;
+    private Timer waitTimer;
+    private Counter rejections;
+
+    private static final class Waiter {
+
+        private final long bytes;
+        private final MonoSink<Permit> sink;
+        private final long queuedAt = System.nanoTime();
+        private boolean granted;
+
+        private Waiter(long bytes, MonoSink<Permit> sink) {
+            this.bytes = bytes;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Bytes of one admitted transfer; releasing it more than once has no effect.
+     */
+    public final class Permit {
+
+        private final AtomicLong bytes;
+
+        private Permit(long bytes) {
+            this.bytes = new AtomicLong(bytes);
+        }
+
+        /**
+         * Gives back what the transfer turns out not to need, once its real size is known.
+         * A permit never grows, since that would bypass the queue.
+         */
+        public void shrink(long size) {
+            if (size < 0) {
+                return;
+            }
+            long previous = bytes.getAndUpdate(current -> current < 0 ? current : Math.min(current, size));
+            if (previous > size) {
+                adjust(size - previous);
+            }
+        }
+
+        public void release() {
+            long previous = bytes.getAndSet(-1);
+            if (previous >= 0) {
+                adjust(-previous);
+            }
+        }
+    }
+
+    /**
+     * Download permits taken within one exchange. A permit normally goes back once the body
+     * has been written, but an exchange torn down after the response was emitted and before
+     * the body was subscribed never writes it; {@link TransferPermitWebFilter} closes the scope
+     * when the exchange ends, which gives back whatever is still held.
+     */
+    public static final class PermitScope {
+
+        private final List<Permit> permits = new ArrayList<>();
+        private boolean closed;
+
+        private void add(Permit permit) {
+            synchronized (this) {
+                if (!closed) {
+                    permits.add(permit);
+                    return;
+                }
+            }
+            permit.release();
+        }
+
+        public void close() {
+            List<Permit> held;
+            synchronized (this) {
+                closed = true;
+                held = new ArrayList<>(permits);
+                permits.clear();
+            }
+            held.forEach(Permit::release);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("s3.transfer.in-flight", this, TransferAdmission::getInFlightBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("s3.transfer.queue.depth", this, TransferAdmission::getQueueDepth)
+                .register(meterRegistry);
+        waitTimer = Timer.builder("s3.transfer.queue.wait")
+                .register(meterRegistry);
+        rejections = Counter.builder("s3.transfer.rejected")
+                .register(meterRegistry);
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * What a streamed transfer of {@code length} bytes keeps in memory: all of it when it is
+     * shorter than {@code stream-window}, otherwise, or when the length is unknown, the window.
+     */
+    public long streamed(long length) {
+        return length >= 0 ? Math.min(length, streamWindow.toBytes()) : streamWindow.toBytes();
+    }
+
+    /**
+     * Runs {@code transfer} under a permit for the {@code bytes} it keeps in memory, or for
+     * {@code stream-window} when {@code bytes} is negative.
+     */
+    public <T> Mono<T> admit(long bytes, Mono<T> transfer) {
+        if (!enabled) {
+            return transfer;
+        }
+        return acquire(bytes)
+                .flatMap(permit -> transfer.doFinally(signal -> permit.release()));
+    }
+
+    /**
+     * Runs a streamed download under a permit for {@code stream-window}.
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> admitDownload(Mono<ResponseEntity<Flux<DataBuffer>>> download) {
+        return admitDownload(-1, download);
+    }
+
+    /**
+     * Runs a download under a permit for the {@code bytes} it may keep in memory, which is
+     * given back down to the length of the body once the headers reveal it. The permit is
+     * held until the body has been written, or until the exchange's {@link PermitScope} closes
+     * if that comes first. Bodies sent from local disk by zero-copy do not touch S3 or the
+     * buffer pool, so they release it at once.
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> admitDownload(long bytes, Mono<ResponseEntity<Flux<DataBuffer>>> download) {
+        if (!enabled) {
+            return download;
+        }
+        return Mono.deferContextual(context -> acquire(bytes)
+                .doOnNext(permit -> context.<PermitScope>getOrEmpty(PermitScope.class)
+                        .ifPresent(scope -> scope.add(permit))))
+                .flatMap(permit -> download
+                        .doOnCancel(permit::release)
+                        .doOnError(error -> permit.release())
+                        .doOnSuccess(responseEntity -> {
+                            if (responseEntity == null) {
+                                permit.release();
+                            }
+                        })
+                        .map(responseEntity -> {
+                            Flux<DataBuffer> body = responseEntity.getBody();
+                            if (body == null || body instanceof LocalFileContent) {
+                                permit.release();
+                                return responseEntity;
+                            }
+                            permit.shrink(responseEntity.getHeaders().getContentLength());
+                            return ResponseEntity.status(responseEntity.getStatusCode())
+                                    .headers(responseEntity.getHeaders())
+                                    .body(body.doFinally(signal -> permit.release()));
+                        }));
+    }
+
+    /**
+     * A waiter leaves the queue exactly once, under the lock: granted by {@link #adjust},
+     * timed out, or cancelled. A grant that races a cancellation gives its bytes back.
+     * Sinks are only completed outside the lock, since completing one starts a transfer.
+     */
+    public Mono<Permit> acquire(long bytes) {
+        long weight = Math.min(bytes >= 0 ? bytes : streamWindow.toBytes(), maxInFlight.toBytes());
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(weight, sink);
+            boolean admitted = false;
+            boolean rejected = false;
+            synchronized (this) {
+                if (queue.isEmpty() && fits(weight)) {
+                    inFlightBytes += weight;
+                    admitted = true;
+                } else if (queue.size() >= maxQueueLength) {
+                    rejected = true;
+                } else {
+                    queue.addLast(waiter);
+                }
+            }
+            if (admitted) {
+                waitTimer.record(Duration.ZERO);
+                sink.success(new Permit(weight));
+                return;
+            }
+            if (rejected) {
+                reject(sink, ERR_TRANSFER_QUEUE_FULL);
+                return;
+            }
+            sink.onCancel(() -> {
+                boolean grantedBeforeCancel;
+                synchronized (this) {
+                    queue.remove(waiter);
+                    grantedBeforeCancel = waiter.granted;
+                }
+                if (grantedBeforeCancel) {
+                    adjust(-weight);
+                }
+            });
+            sink.onDispose(Schedulers.parallel().schedule(() -> {
+                boolean queued;
+                synchronized (this) {
+                    queued = queue.remove(waiter);
+                }
+                if (queued) {
+                    reject(sink, ERR_TRANSFER_QUEUE_TIMEOUT);
+                }
+            }, maxWait.toMillis(), TimeUnit.MILLISECONDS));
+        });
+    }
+
+    private boolean fits(long bytes) {
+        return inFlightBytes + bytes <= maxInFlight.toBytes();
+    }
+
+    private void adjust(long delta) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlightBytes += delta;
+            while (!queue.isEmpty() && fits(queue.peekFirst().bytes)) {
+                Waiter waiter = queue.pollFirst();
+                waiter.granted = true;
+                inFlightBytes += waiter.bytes;
+                granted.add(waiter);
+            }
+        }
+        for (Waiter waiter : granted) {
+            waitTimer.record(System.nanoTime() - waiter.queuedAt, TimeUnit.NANOSECONDS);
+            waiter.sink.success(new Permit(waiter.bytes));
+        }
+    }
+
+    private void reject(MonoSink<Permit> sink, String reason) {
+        rejections.increment();
+        log.warn(WARN_TRANSFER_REJECTED, reason, maxInFlight);
+        sink.error(new TransferRejectedException(reason, retryAfter));
+    }
+}
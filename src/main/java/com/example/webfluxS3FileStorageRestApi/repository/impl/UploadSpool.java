@@ -0,0 +1,287 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_CREATE_TEMP_DIRECTORY_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_DELETE_TEMP_FILE_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_SPOOL_QUOTA_EXCEEDED;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_FILE_SPILLED_TO_DISK;
+
+/**
+ * Holds an upload until its length is known, for transfers that need it up front. Content
+ * up to {@code memory-threshold} stays in a pooled direct buffer; anything larger spills to
+ * a uniquely named file in the spool directory, so concurrent uploads of the same name never
+ * share a file. Parts that declare a larger length go to disk from the first byte, and with
+ * {@code preallocate} their file is extended to that length before it is written.
+ * <p>
+ * Bytes on disk count against {@code max-disk-usage}; an upload that would exceed it fails
+ * with 507. The spool only ever holds uploads in progress, so the directory is emptied on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadSpool {
+
+    private static final String SPOOL_FILE_PREFIX = "spool-";
+    private static final String SPOOL_FILE_SUFFIX = ".tmp";
+    private static final int INITIAL_MEMORY_CAPACITY = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.s3.spool.directory:/tmp/myapp/spool}")
+    private String directory = "/tmp/myapp/spool";
+
+    @Value("${app.s3.spool.memory-threshold:1MB}")
+    private DataSize memoryThreshold = DataSize.ofMegabytes(1);
+
+    @Value("${app.s3.spool.max-disk-usage:10GB}")
+    private DataSize maxDiskUsage = DataSize.ofGigabytes(10);
+
+    @Value("${app.s3.spool.preallocate:false}")
+    private boolean preallocate;
+
+    private final AtomicLong diskUsage = new AtomicLong();
+    private Path spoolDir;
+
+    /**
+     * Spooled upload; {@link #release()} frees its memory or deletes its file.
+     */
+    public final class SpooledContent {
+
+        private final ByteBuf memory;
+        private final Path file;
+        private final long size;
+        private final long reserved;
+
+        private SpooledContent(ByteBuf memory, Path file, long size, long reserved) {
+            this.memory = memory;
+            this.file = file;
+            this.size = size;
+            this.reserved = reserved;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public boolean isInMemory() {
+            return memory != null;
+        }
+
+        /**
+         * The spooled bytes as buffers, read anew for every subscriber.
+         */
+        public Flux<DataBuffer> content() {
+            if (memory != null) {
+                return Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(memory.nioBuffer())));
+            }
+            return DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+        }
+
+        public AsyncRequestBody requestBody() {
+            return memory != null
+                    ? AsyncRequestBody.fromByteBufferUnsafe(memory.nioBuffer())
+                    : AsyncRequestBody.fromFile(file);
+        }
+
+        public Mono<Void> release() {
+            if (memory != null) {
+                return Mono.fromRunnable(memory::release);
+            }
+            return Mono.<Void>fromRunnable(() -> deleteQuietly(file, reserved))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        spoolDir = Paths.get(directory);
+        try {
+            Files.createDirectories(spoolDir);
+            try (Stream<Path> orphans = Files.list(spoolDir)) {
+                orphans.filter(path -> path.getFileName().toString().startsWith(SPOOL_FILE_PREFIX))
+                        .forEach(path -> deleteQuietly(path, 0));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(ERR_CREATE_TEMP_DIRECTORY_FAILED + spoolDir, e);
+        }
+    }
+
+    public long getDiskUsage() {
+        return diskUsage.get();
+    }
+
+    /**
+     * Consumes {@code content} and emits it spooled; {@code contentLength} is -1 if unknown.
+     * Every buffer is released once copied, and a failed or cancelled spool leaves nothing behind.
+     */
+    public Mono<SpooledContent> spool(Flux<DataBuffer> content, long contentLength) {
+        return Mono.defer(() -> {
+            Spooler spooler = new Spooler(contentLength);
+            return content
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(spooler::append)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(spooler::finish))
+                    .doOnError(error -> spooler.discard())
+                    .doOnCancel(spooler::discard);
+        });
+    }
+
+    private final class Spooler {
+
+        private final long contentLength;
+        private ByteBuf memory;
+        private Path file;
+        private FileChannel channel;
+        private long size;
+        private long reserved;
+        private boolean done;
+
+        private Spooler(long contentLength) {
+            this.contentLength = contentLength;
+        }
+
+        synchronized void append(DataBuffer dataBuffer) {
+            try {
+                if (done) {
+                    return;
+                }
+                int length = dataBuffer.readableByteCount();
+                if (channel == null && contentLength <= memoryThreshold.toBytes()
+                        && size + length <= memoryThreshold.toBytes()) {
+                    if (memory == null) {
+                        memory = PooledByteBufAllocator.DEFAULT.directBuffer(
+                                (int) Math.min(contentLength >= 0 ? contentLength : INITIAL_MEMORY_CAPACITY,
+                                        memoryThreshold.toBytes()),
+                                (int) memoryThreshold.toBytes());
+                    }
+                    try (DataBuffer.ByteBufferIterator buffers = dataBuffer.readableByteBuffers()) {
+                        buffers.forEachRemaining(memory::writeBytes);
+                    }
+                } else {
+                    if (channel == null) {
+                        spill();
+                    }
+                    reserve(size + length);
+                    try (DataBuffer.ByteBufferIterator buffers = dataBuffer.readableByteBuffers()) {
+                        long position = size;
+                        while (buffers.hasNext()) {
+                            ByteBuffer buffer = buffers.next();
+                            while (buffer.hasRemaining()) {
+                                position += channel.write(buffer, position);
+                            }
+                        }
+                    }
+                }
+                size += length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                DataBufferUtils.release(dataBuffer);
+            }
+        }
+
+        private void spill() throws IOException {
+            file = Files.createTempFile(spoolDir, SPOOL_FILE_PREFIX, SPOOL_FILE_SUFFIX);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            log.info(INFO_FILE_SPILLED_TO_DISK, file, contentLength);
+            if (preallocate && contentLength > 0) {
+                reserve(contentLength);
+                channel.write(ByteBuffer.allocate(1), contentLength - 1);
+            }
+            if (memory != null) {
+                ByteBuffer buffered = memory.nioBuffer();
+                long position = 0;
+                while (buffered.hasRemaining()) {
+                    position += channel.write(buffered, position);
+                }
+                memory.release();
+                memory = null;
+            }
+        }
+
+        private void reserve(long total) {
+            long needed = total - reserved;
+            if (needed <= 0) {
+                return;
+            }
+            if (diskUsage.addAndGet(needed) > maxDiskUsage.toBytes()) {
+                diskUsage.addAndGet(-needed);
+                throw new ResponseStatusException(HttpStatus.INSUFFICIENT_STORAGE, ERR_SPOOL_QUOTA_EXCEEDED + maxDiskUsage);
+            }
+            reserved = total;
+        }
+
+        synchronized SpooledContent finish() throws IOException {
+            if (channel == null) {
+                ByteBuf content = memory != null ? memory : PooledByteBufAllocator.DEFAULT.directBuffer(0);
+                memory = null;
+                done = true;
+                return new SpooledContent(content, null, size, 0);
+            }
+            if (channel.size() > size) {
+                channel.truncate(size);
+            }
+            channel.close();
+            diskUsage.addAndGet(size - reserved);
+            reserved = size;
+            done = true;
+            return new SpooledContent(null, file, size, size);
+        }
+
+        synchronized void discard() {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (memory != null) {
+                memory.release();
+                memory = null;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.error(ERR_DELETE_TEMP_FILE_FAILED + file, e);
+                }
+                deleteQuietly(file, reserved);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path path, long reserved) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error(ERR_DELETE_TEMP_FILE_FAILED + path, e);
+        }
+        diskUsage.addAndGet(-reserved);
+    }
+}
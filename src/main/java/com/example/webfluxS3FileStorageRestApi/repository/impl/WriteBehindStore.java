@@ -0,0 +1,200 @@
+package com.example.webfluxS3FileStorageRestApi.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_WRITE_BEHIND_DIRECTORY_INIT_FAILED;
+
+/**
+ * Local staging area of the write-behind upload mode. An upload is written to a temporary
+ * file, synced, and renamed to {@code <id>}, so a file under its final name has been made
+ * durable in full before the upload is acknowledged. The file is known as {@code local/<id>}
+ * until a background flush has moved it to S3, and is served from local disk meanwhile.
+ * <p>
+ * Staged files are local to the node that wrote them, so write-behind assumes a single
+ * instance or a shared {@code directory}. Files are never changed after the rename; once
+ * no file refers to them any more they are deleted after a grace period, which covers
+ * readers that looked up the local name just before the flush.
+ */
+@Component
+public class WriteBehindStore {
+
+    private static final String LOCAL_DIRECTORY = "local/";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.s3.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.s3.write-behind.directory:/tmp/myapp/write-behind}")
+    private String directory = "/tmp/myapp/write-behind";
+
+    private Path stagingDir;
+
+    @PostConstruct
+    public void init() {
+        stagingDir = Paths.get(directory);
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(stagingDir);
+        } catch (IOException e) {
+            throw new IllegalStateException(ERR_WRITE_BEHIND_DIRECTORY_INIT_FAILED + stagingDir, e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isLocal(String objectName) {
+        return objectName != null && objectName.startsWith(LOCAL_DIRECTORY);
+    }
+
+    /**
+     * Pattern matching every local object name, for SQL {@code LIKE}.
+     */
+    public static String localNamePattern() {
+        return LOCAL_DIRECTORY + "%";
+    }
+
+    /**
+     * Writes and syncs the content. A failed write leaves no file behind.
+     */
+    public Mono<StagedObjectDTO> write(Flux<DataBuffer> content) {
+        String id = UUID.randomUUID().toString();
+        Path temporary = stagingDir.resolve(id + TEMPORARY_FILE_SUFFIX);
+        return Mono.defer(() -> {
+            ContentDigest digest = new ContentDigest();
+            return DataBufferUtils.write(content.doOnNext(digest::update), temporary,
+                            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)
+                    .then(Mono.fromCallable(() -> {
+                        sync(temporary);
+                        Files.move(temporary, stagingDir.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+                        syncDirectory();
+                        return new StagedObjectDTO(LOCAL_DIRECTORY + id, digest.toHex(), digest.size());
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .onErrorResume(error -> Mono.fromCallable(() -> Files.deleteIfExists(temporary))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .onErrorResume(IOException.class, deleteError -> Mono.empty())
+                            .then(Mono.error(error)));
+        });
+    }
+
+    public Path path(String objectName) {
+        return stagingDir.resolve(objectName.substring(LOCAL_DIRECTORY.length()));
+    }
+
+    public Flux<DataBuffer> read(String objectName) {
+        return DataBufferUtils.read(path(objectName), DefaultDataBufferFactory.sharedInstance, READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Empty when the file is gone. The ETag is derived from the id, which names one
+     * immutable file.
+     */
+    public Mono<FileMetadataDTO> getMetadata(String objectName) {
+        return Mono.fromCallable(() -> {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path(objectName), BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        return null;
+                    }
+                    return new FileMetadataDTO(objectName,
+                            "\"" + objectName.substring(LOCAL_DIRECTORY.length()) + "\"",
+                            attributes.size(),
+                            attributes.creationTime().toInstant());
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> delete(String objectName) {
+        return Mono.fromCallable(() -> Files.deleteIfExists(path(objectName)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    /**
+     * Restarts the grace period of the file, e.g. when the files referring to it have just
+     * been pointed elsewhere.
+     */
+    public Mono<Void> touch(String objectName) {
+        return Mono.fromCallable(() -> Files.setLastModifiedTime(path(objectName), FileTime.from(Instant.now())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(NoSuchFileException.class, error -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * Names of the staged files last touched more than {@code olderThan} ago, including
+     * temporary files of writes that never finished.
+     */
+    public Flux<String> findIdle(Duration olderThan) {
+        if (!enabled) {
+            return Flux.empty();
+        }
+        return Mono.fromCallable(() -> {
+                    Instant cutoff = Instant.now().minus(olderThan);
+                    try (Stream<Path> files = Files.list(stagingDir)) {
+                        return files
+                                .filter(path -> isOlderThan(path, cutoff))
+                                .map(path -> LOCAL_DIRECTORY + path.getFileName())
+                                .toList();
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    private static boolean isOlderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void sync(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Makes the rename durable. Not every platform can open a directory for syncing; where
+     * it cannot, the rename is left to the file system.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(stagingDir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // the file itself is synced already
+        }
+    }
+}
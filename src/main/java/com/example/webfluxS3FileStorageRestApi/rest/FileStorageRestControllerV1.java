@@ -1,20 +1,36 @@
 package com.example.webfluxS3FileStorageRestApi.rest;
 
+import com.example.webfluxS3FileStorageRestApi.dto.BatchUploadResultDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadCompleteRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadJobDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionRequestDTO;
 import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.LocalFileContent;
 import com.example.webfluxS3FileStorageRestApi.service.FileStorageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.net.URI;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
@@ -22,27 +38,210 @@ import reactor.core.publisher.Mono;
 @Tag(name = "File-Storage", description = "Operations related to file-storage")
 public class FileStorageRestControllerV1 {
 
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String OFFSET_OCTET_STREAM_VALUE = "application/offset+octet-stream";
+
     private final FileStorageService fileStorageService;
 
     @PostMapping(value = "/upload-flux", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
             summary = "Upload a file to AWS S3 by user ID",
-            description = "Uploads a file to AWS S3 with the specified user ID"
+            description = "Uploads a file to AWS S3 with the specified user ID. A retry carrying the same "
+                    + "Idempotency-Key header returns the first upload's result instead of storing the file again"
     )
     @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
-    public Mono<UploadedFileResponseDTO> uploadFile(@RequestPart("file") Mono<FilePart> filePartMono, Mono<Authentication> authMono) {
+    public Mono<UploadedFileResponseDTO> uploadFile(@RequestPart("file") Mono<FilePart> filePartMono,
+                                                    @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                    Mono<Authentication> authMono) {
         return filePartMono.flatMap(filePart ->
-                fileStorageService.uploadUserFileToStorage(filePart, authMono)
+                fileStorageService.uploadUserFileToStorage(filePart, idempotencyKey, authMono)
         );
     }
 
+    @PostMapping(value = "/upload-batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Upload many files to AWS S3 in one request",
+            description = "Uploads every 'files' part of the request with bounded parallelism "
+                    + "and streams one result per file as it completes"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Flux<BatchUploadResultDTO> uploadFiles(@RequestPart("files") Flux<FilePart> filePartFlux, Mono<Authentication> authMono) {
+        return fileStorageService.uploadUserFilesToStorage(filePartFlux, authMono);
+    }
+
+    @PostMapping(value = "/upload-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Upload a file to AWS S3 in the background",
+            description = "Answers 202 with an upload job once the file is received; "
+                    + "the transfer to AWS S3 runs afterwards"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<ResponseEntity<UploadJobDTO>> submitUploadJob(@RequestPart("file") Mono<FilePart> filePartMono,
+                                                              Mono<Authentication> authMono) {
+        return filePartMono
+                .flatMap(filePart -> fileStorageService.submitUploadJob(filePart, authMono))
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/v1/file-storage/upload-jobs/" + job.getJobId()))
+                        .body(job));
+    }
+
+    @GetMapping("/upload-jobs/{jobId}")
+    @Operation(
+            summary = "Get the state of an upload job",
+            description = "Returns the state and byte-level progress of an upload job"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<UploadJobDTO> getUploadJob(@PathVariable String jobId, Mono<Authentication> authMono) {
+        return fileStorageService.getUploadJob(jobId, authMono);
+    }
+
+    @GetMapping(value = "/upload-jobs/{jobId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Follow the progress of an upload job",
+            description = "Streams the state of an upload job as Server-Sent Events until it completes or fails"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Flux<ServerSentEvent<UploadJobDTO>> streamUploadJobProgress(@PathVariable String jobId,
+                                                                       Mono<Authentication> authMono) {
+        return fileStorageService.streamUploadJobProgress(jobId, authMono)
+                .map(job -> ServerSentEvent.builder(job)
+                        .event(job.getState().name())
+                        .build());
+    }
+
+    @PostMapping(value = "/upload-sessions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Start a resumable upload",
+            description = "Opens an upload session for a file of upload_length bytes; its bytes are then sent "
+                    + "with PATCH requests and the upload can be resumed from the last acknowledged offset"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<ResponseEntity<UploadSessionDTO>> createUploadSession(@RequestBody UploadSessionRequestDTO request,
+                                                                      Mono<Authentication> authMono) {
+        return fileStorageService.createUploadSession(request, authMono)
+                .map(session -> ResponseEntity.created(URI.create("/api/v1/file-storage/upload-sessions/" + session.getUploadId()))
+                        .headers(uploadSessionHeaders(session))
+                        .body(session));
+    }
+
+    @RequestMapping(value = "/upload-sessions/{uploadId}", method = RequestMethod.HEAD)
+    @Operation(
+            summary = "Get the offset of a resumable upload",
+            description = "Answers with the Upload-Offset the next PATCH has to start at and the Upload-Length"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<ResponseEntity<Void>> getUploadSessionOffset(@PathVariable String uploadId, Mono<Authentication> authMono) {
+        return fileStorageService.getUploadSession(uploadId, authMono)
+                .map(session -> ResponseEntity.ok()
+                        .headers(uploadSessionHeaders(session))
+                        .cacheControl(CacheControl.noStore())
+                        .build());
+    }
+
+    @PatchMapping(value = "/upload-sessions/{uploadId}", consumes = OFFSET_OCTET_STREAM_VALUE)
+    @Operation(
+            summary = "Send bytes of a resumable upload",
+            description = "Appends the body at Upload-Offset. Bytes are acknowledged in whole parts of part_size, "
+                    + "except for the part that ends the upload; the Upload-Offset of the response is where to "
+                    + "continue. The request that reaches Upload-Length completes the upload"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<ResponseEntity<Void>> appendToUploadSession(@PathVariable String uploadId,
+                                                            @RequestHeader(UPLOAD_OFFSET) long uploadOffset,
+                                                            @RequestBody Flux<DataBuffer> content,
+                                                            Mono<Authentication> authMono) {
+        return fileStorageService.appendToUploadSession(uploadId, uploadOffset, content, authMono)
+                .map(session -> ResponseEntity.noContent()
+                        .headers(uploadSessionHeaders(session))
+                        .build());
+    }
+
     @GetMapping("/download-flux/{fileName}")
     @Operation(
             summary = "Download a file from AWS S3 by filename",
-            description = "Downloads a file from AWS S3 with the specified filename"
+            description = "Downloads a file from AWS S3 with the specified filename. "
+                    + "Supports Range, multi-range and If-Range requests"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<Void> downloadFileByName(@PathVariable String fileName,
+                                         @RequestHeader HttpHeaders headers,
+                                         Mono<Authentication> authMono,
+                                         ServerHttpResponse response) {
+        return fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, headers, authMono)
+                .flatMap(responseEntity -> writeDownload(responseEntity, response));
+    }
+
+    @PostMapping(value = "/presigned-uploads", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Start a direct-to-S3 upload",
+            description = "Registers a pending file and returns presigned PUT URLs: one for small files, "
+                    + "one per part for multipart uploads"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<PresignedUploadResponseDTO> createPresignedUpload(@RequestBody PresignedUploadRequestDTO request,
+                                                                  Mono<Authentication> authMono) {
+        return fileStorageService.createPresignedUpload(request, authMono);
+    }
+
+    @PostMapping(value = "/presigned-uploads/{fileId}/complete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Complete a direct-to-S3 upload",
+            description = "Completes the multipart upload if there is one and activates the file"
     )
     @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
-    public Mono<ResponseEntity<Resource>> downloadFileByName(@PathVariable String fileName, Mono<Authentication> authMono) {
-        return fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, authMono);
+    public Mono<UploadedFileResponseDTO> completePresignedUpload(@PathVariable Long fileId,
+                                                                 @RequestBody PresignedUploadCompleteRequestDTO request,
+                                                                 Mono<Authentication> authMono) {
+        return fileStorageService.completePresignedUpload(fileId, request, authMono);
+    }
+
+    @GetMapping("/download-redirect/{fileName}")
+    @Operation(
+            summary = "Download a file directly from AWS S3 by filename",
+            description = "Redirects to a presigned S3 GET URL after the usual access checks"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<ResponseEntity<Void>> redirectToFileByName(@PathVariable String fileName, Mono<Authentication> authMono) {
+        return fileStorageService.redirectToPresignedDownload(fileName, authMono);
+    }
+
+    @GetMapping("/upload-status/{fileName}")
+    @Operation(
+            summary = "Get the storage status of an uploaded file",
+            description = "Tells whether a write-behind upload is still staged on the server or stored in AWS S3"
+    )
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR', 'USER')")
+    public Mono<UploadedFileResponseDTO> getUploadStatus(@PathVariable String fileName, Mono<Authentication> authMono) {
+        return fileStorageService.getUploadStatus(fileName, authMono);
+    }
+
+    private static HttpHeaders uploadSessionHeaders(UploadSessionDTO session) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()));
+        headers.set(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()));
+        return headers;
+    }
+
+    /**
+     * Bodies backed by a local file are handed to Netty as a file region, so cached downloads
+     * go from page cache to socket without being copied through the heap.
+     */
+    private Mono<Void> writeDownload(ResponseEntity<Flux<DataBuffer>> responseEntity, ServerHttpResponse response) {
+        response.setStatusCode(responseEntity.getStatusCode());
+        response.getHeaders().putAll(responseEntity.getHeaders());
+
+        Flux<DataBuffer> body = responseEntity.getBody();
+        if (body == null) {
+            return response.setComplete();
+        }
+        if (body instanceof LocalFileContent localFileContent
+                && response instanceof ZeroCopyHttpOutputMessage zeroCopyResponse) {
+            return zeroCopyResponse.writeWith(localFileContent.getPath(),
+                            localFileContent.getPosition(), localFileContent.getCount())
+                    .doFinally(signal -> localFileContent.release());
+        }
+        return response.writeWith(body);
     }
 }
@@ -1,15 +1,48 @@
 package com.example.webfluxS3FileStorageRestApi.service;
 
+import com.example.webfluxS3FileStorageRestApi.dto.BatchUploadResultDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadCompleteRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadJobDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionRequestDTO;
 import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface FileStorageService {
 
     Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart, Mono<Authentication> authMono);
 
-    Mono<ResponseEntity<Resource>> downloadFileFromStorageByFileNameAndAuth(String fileName, Mono<Authentication> authMono);
+    Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart, String idempotencyKey, Mono<Authentication> authMono);
+
+    Flux<BatchUploadResultDTO> uploadUserFilesToStorage(Flux<FilePart> fileParts, Mono<Authentication> authMono);
+
+    Mono<UploadJobDTO> submitUploadJob(FilePart filePart, Mono<Authentication> authMono);
+
+    Mono<UploadJobDTO> getUploadJob(String jobId, Mono<Authentication> authMono);
+
+    Flux<UploadJobDTO> streamUploadJobProgress(String jobId, Mono<Authentication> authMono);
+
+    Mono<UploadSessionDTO> createUploadSession(UploadSessionRequestDTO request, Mono<Authentication> authMono);
+
+    Mono<UploadSessionDTO> getUploadSession(String uploadId, Mono<Authentication> authMono);
+
+    Mono<UploadSessionDTO> appendToUploadSession(String uploadId, long uploadOffset, Flux<DataBuffer> content, Mono<Authentication> authMono);
+
+    Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorageByFileNameAndAuth(String fileName, HttpHeaders requestHeaders, Mono<Authentication> authMono);
+
+    Mono<PresignedUploadResponseDTO> createPresignedUpload(PresignedUploadRequestDTO request, Mono<Authentication> authMono);
+
+    Mono<UploadedFileResponseDTO> completePresignedUpload(Long fileId, PresignedUploadCompleteRequestDTO request, Mono<Authentication> authMono);
+
+    Mono<ResponseEntity<Void>> redirectToPresignedDownload(String fileName, Mono<Authentication> authMono);
+
+    Mono<UploadedFileResponseDTO> getUploadStatus(String fileName, Mono<Authentication> authMono);
 }
@@ -1,35 +1,61 @@
 package com.example.webfluxS3FileStorageRestApi.service.impl;
 
+import com.example.webfluxS3FileStorageRestApi.dto.BatchUploadResultDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadCompleteRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.ResumableUploadDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadJobDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadSessionRequestDTO;
 import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
 import com.example.webfluxS3FileStorageRestApi.model.Event;
 import com.example.webfluxS3FileStorageRestApi.model.File;
+import com.example.webfluxS3FileStorageRestApi.model.Status;
+import com.example.webfluxS3FileStorageRestApi.model.UploadSession;
 import com.example.webfluxS3FileStorageRestApi.model.UserRole;
 import com.example.webfluxS3FileStorageRestApi.repository.EventRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileBatchRepository;
 import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
 import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.UploadSessionRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.LocalFileContent;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ContentChecksum;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.GzipCodec;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ObjectEncryption;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.UploadSpool;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.WriteBehindStore;
 import com.example.webfluxS3FileStorageRestApi.security.CustomPrincipal;
-import com.example.webfluxS3FileStorageRestApi.service.EventService;
 import com.example.webfluxS3FileStorageRestApi.service.FileStorageService;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.ERR_ACCESS_DENIED;
 import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.ERR_INVALID_AUTHENTICATION;
@@ -44,6 +70,18 @@ public class FileStorageServiceImpl implements FileStorageService {
     @Value("${app.s3.bucket-name}")
     private String s3BucketName;
 
+    @Value("${app.s3.download.cache-control:private, no-cache}")
+    private String cacheControl = "private, no-cache";
+
+    @Value("${app.s3.batch-upload.concurrency:4}")
+    private int batchConcurrency = 4;
+
+    @Value("${app.s3.batch-upload.max-files:1000}")
+    private int batchMaxFiles = 1000;
+
+    @Value("${app.s3.upload-sessions.expire-after:24h}")
+    private Duration uploadSessionExpireAfter = Duration.ofHours(24);
+
     private String S3_FILE_LOCATION;
 
     @PostConstruct
@@ -52,42 +90,343 @@ public class FileStorageServiceImpl implements FileStorageService {
     }
 
     private final FileStorageRepository fileStorageRepository;
-    private final EventService eventService;
     private final FileRepository fileRepository;
     private final EventRepository eventRepository;
+    private final FileBatchRepository fileBatchRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final UploadSpool uploadSpool;
+    private final UploadJobExecutor uploadJobExecutor;
+    private final UploadIdempotencyGuard uploadIdempotencyGuard;
+    private final UploadSessionRepository uploadSessionRepository;
 
+    /**
+     * A PENDING row is committed before the transfer and activated after it, so no connection
+     * is held while the bytes move; rows left behind by a crash go to {@link PendingUploadReconciler}.
+     */
     @Override
-    @Transactional
     public Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart, Mono<Authentication> authMono) {
         log.info("IN FileStorageServiceImpl uploadUserFileToStorage:");
         return authMono
-                .flatMap(auth ->
-                        extractUserId(auth)
-                                .map(userId -> new UserContext(userId, auth.getAuthorities())))
-                .flatMap(userContext -> {
-                    long userId = userContext.userId();
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> uploadUserFile(filePart, userId));
+    }
+
+    @Override
+    public Mono<UploadedFileResponseDTO> uploadUserFileToStorage(FilePart filePart, String idempotencyKey, Mono<Authentication> authMono) {
+        if (idempotencyKey == null) {
+            return uploadUserFileToStorage(filePart, authMono);
+        }
+        log.info("IN FileStorageServiceImpl uploadUserFileToStorage with idempotency key:");
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> uploadIdempotencyGuard.execute(userId, idempotencyKey, filePart.filename(),
+                        uploadUserFile(filePart, userId)));
+    }
+
+    private Mono<UploadedFileResponseDTO> uploadUserFile(FilePart filePart, Long userId) {
+        String filename = filePart.filename();
+        String stagingKey = fileStorageRepository.newStagingKey();
+        return registerPendingFile(filename, userId, stagingKey)
+                .flatMap(savedFile -> transferPendingFile(filePart, savedFile.getId(), stagingKey))
+                .map(metadata -> new UploadedFileResponseDTO(filename, LocalDateTime.now(),
+                        storageStatusOf(metadata.getStorageKey())))
+                .doOnSuccess(unused -> log.info(INFO_FILE_UPLOADED_SUCCESSFULLY_WITH_FILENAME_AND_USER_ID, filename, userId))
+                .doOnError(error -> log.error(ERR_UPLOADING_FILE_WITH_FILENAME_AND_USER_ID, filename, userId, error.getMessage()));
+    }
+
+    @Override
+    public Flux<BatchUploadResultDTO> uploadUserFilesToStorage(Flux<FilePart> fileParts, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl uploadUserFilesToStorage:");
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMapMany(userId -> fileParts.collectList()
+                        .flatMapMany(parts -> {
+                            if (parts.size() > batchMaxFiles) {
+                                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                        ERR_BATCH_UPLOAD_TOO_LARGE + parts.size()));
+                            }
+                            List<String> stagingKeys = parts.stream()
+                                    .map(part -> fileStorageRepository.newStagingKey())
+                                    .toList();
+                            return registerPendingFiles(parts, stagingKeys, userId)
+                                    .flatMapMany(fileIds -> Flux.range(0, parts.size())
+                                            .flatMap(index -> uploadBatchEntry(parts.get(index), fileIds.get(index),
+                                                            stagingKeys.get(index), userId),
+                                                    batchConcurrency));
+                        }));
+    }
+
+    @Override
+    public Mono<UploadJobDTO> submitUploadJob(FilePart filePart, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl submitUploadJob:");
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> {
                     String filename = filePart.filename();
-                    String location = S3_FILE_LOCATION + filename;
+                    String stagingKey = fileStorageRepository.newStagingKey();
+                    UploadJobExecutor.UploadJob job = uploadJobExecutor.create(filename, userId);
+                    return uploadSpool.spool(filePart.content(), filePart.headers().getContentLength())
+                            .flatMap(spooled -> registerPendingFile(filename, userId, stagingKey)
+                                    .map(savedFile -> {
+                                        uploadJobExecutor.start(job, spooled.size(), Mono.usingWhen(Mono.just(spooled),
+                                                spooledContent -> transferPendingFile(
+                                                        new SpooledFilePart(filePart, spooledContent, job.track(spooledContent.content())),
+                                                        savedFile.getId(), stagingKey)
+                                                        .map(metadata -> new UploadedFileResponseDTO(filename, LocalDateTime.now(),
+                                                                storageStatusOf(metadata.getStorageKey()))),
+                                                UploadSpool.SpooledContent::release));
+                                        log.info(INFO_UPLOAD_JOB_ACCEPTED, job.getId(), filename, spooled.size());
+                                        return job.snapshot();
+                                    })
+                                    .onErrorResume(error -> spooled.release().then(Mono.error(error))))
+                            .doOnError(error -> uploadJobExecutor.abandon(job))
+                            .doOnCancel(() -> uploadJobExecutor.abandon(job));
+                });
+    }
 
-                    File file = File.builder()
-                            .location(location)
-                            .build();
+    @Override
+    public Mono<UploadJobDTO> getUploadJob(String jobId, Mono<Authentication> authMono) {
+        return findUploadJob(jobId, authMono)
+                .map(UploadJobExecutor.UploadJob::snapshot);
+    }
 
-                    return fileRepository.save(file)
-                            .flatMap(savedFile -> {
-                                Event event = Event.builder()
-                                        .userId(userId)
-                                        .fileId(savedFile.getId())
-                                        .build();
-
-                                return eventRepository.save(event);
-                            })
-                            .then(fileStorageRepository.uploadUserFileToStorage(filePart))
-                            .doOnSuccess(unused -> log.info(INFO_FILE_UPLOADED_SUCCESSFULLY_WITH_FILENAME_AND_USER_ID, filename, userId))
-                            .doOnError(error -> log.error(ERR_UPLOADING_FILE_WITH_FILENAME_AND_USER_ID, filename, userId, error.getMessage()));
+    @Override
+    public Flux<UploadJobDTO> streamUploadJobProgress(String jobId, Mono<Authentication> authMono) {
+        return findUploadJob(jobId, authMono)
+                .flatMapMany(uploadJobExecutor::progress);
+    }
+
+    private Mono<UploadJobExecutor.UploadJob> findUploadJob(String jobId, Mono<Authentication> authMono) {
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> Mono.justOrEmpty(uploadJobExecutor.find(jobId, userId)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_UPLOAD_JOB_NOT_FOUND + jobId)));
+    }
+
+    @Override
+    public Mono<UploadSessionDTO> createUploadSession(UploadSessionRequestDTO request, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl createUploadSession: {}", request.getFileName());
+        Long uploadLength = request.getUploadLength();
+        if (uploadLength == null || uploadLength <= 0) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_INVALID_CONTENT_LENGTH + uploadLength));
+        }
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> fileStorageRepository.createResumableUpload(request.getContentType(), uploadLength)
+                        .flatMap(upload -> {
+                            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+                            UploadSession session = UploadSession.builder()
+                                    .id(UUID.randomUUID().toString())
+                                    .userId(userId)
+                                    .fileName(request.getFileName())
+                                    .contentType(request.getContentType())
+                                    .uploadLength(uploadLength)
+                                    .uploadOffset(0L)
+                                    .partSize(upload.getPartSize())
+                                    .objectName(upload.getObjectName())
+                                    .multipartUploadId(upload.getUploadId())
+                                    .status(UploadSession.State.OPEN)
+                                    .createdAt(now)
+                                    .expiresAt(now.plus(uploadSessionExpireAfter))
+                                    .build();
+                            return uploadSessionRepository.insert(session.getId(), userId, session.getFileName(),
+                                            session.getContentType(), uploadLength, upload.getPartSize(), upload.getObjectName(),
+                                            upload.getUploadId(), session.getCreatedAt(), session.getExpiresAt())
+                                    .thenReturn(session)
+                                    .onErrorResume(error -> fileStorageRepository.abortResumableUpload(upload)
+                                            .then(Mono.error(error)));
+                        }))
+                .doOnNext(session -> log.info(INFO_UPLOAD_SESSION_CREATED, session.getId(), session.getFileName(), uploadLength))
+                .map(FileStorageServiceImpl::toUploadSessionDTO);
+    }
+
+    @Override
+    public Mono<UploadSessionDTO> getUploadSession(String uploadId, Mono<Authentication> authMono) {
+        return findUploadSession(uploadId, authMono)
+                .map(FileStorageServiceImpl::toUploadSessionDTO);
+    }
+
+    /**
+     * The offset is committed after every acknowledged part, so a broken request only loses
+     * the part it was sending; repeating the final request, even empty, retries its completion.
+     */
+    @Override
+    public Mono<UploadSessionDTO> appendToUploadSession(String uploadId, long uploadOffset, Flux<DataBuffer> content,
+                                                        Mono<Authentication> authMono) {
+        return findUploadSession(uploadId, authMono)
+                .flatMap(session -> {
+                    if (uploadOffset != session.getUploadOffset()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                ERR_UPLOAD_OFFSET_MISMATCH + session.getUploadOffset()));
+                    }
+                    if (session.getStatus() == UploadSession.State.COMPLETED) {
+                        return Mono.just(session);
+                    }
+                    return fileStorageRepository.appendResumableUpload(toResumableUpload(session), uploadOffset,
+                                    session.getUploadLength(), content)
+                            .concatMap(offset -> acknowledgeUploadSession(session, offset))
+                            .then(Mono.defer(() -> session.getUploadOffset().equals(session.getUploadLength())
+                                    ? completeUploadSession(session)
+                                    : Mono.just(session)));
+                })
+                .map(FileStorageServiceImpl::toUploadSessionDTO);
+    }
+
+    private Mono<UploadSession> findUploadSession(String uploadId, Mono<Authentication> authMono) {
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> uploadSessionRepository.findById(uploadId)
+                        .filter(session -> session.getUserId().equals(userId)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_UPLOAD_SESSION_NOT_FOUND + uploadId)))
+                .flatMap(session -> session.getExpiresAt().isBefore(LocalDateTime.now(ZoneOffset.UTC))
+                        ? Mono.<UploadSession>error(new ResponseStatusException(HttpStatus.GONE, ERR_UPLOAD_SESSION_EXPIRED + uploadId))
+                        : Mono.just(session));
+    }
+
+    private Mono<Void> acknowledgeUploadSession(UploadSession session, long offset) {
+        LocalDateTime expiresAt = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS).plus(uploadSessionExpireAfter);
+        return uploadSessionRepository.advanceOffset(session.getId(), session.getUploadOffset(), offset, expiresAt)
+                .flatMap(updated -> updated > 0
+                        ? Mono.<Void>fromRunnable(() -> {
+                            session.setUploadOffset(offset);
+                            session.setExpiresAt(expiresAt);
+                        })
+                        : Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                ERR_UPLOAD_OFFSET_MISMATCH + session.getUploadOffset())));
+    }
+
+    /**
+     * One transaction, so of two completions only one registers the file and no PENDING row
+     * is left for a session the sweeper may still abort.
+     */
+    private Mono<UploadSession> completeUploadSession(UploadSession session) {
+        String filename = session.getFileName();
+        return fileStorageRepository.completeResumableUpload(toResumableUpload(session), session.getUploadLength())
+                .flatMap(metadata -> uploadSessionRepository.markCompleted(session.getId())
+                        .filter(updated -> updated > 0)
+                        .flatMap(updated -> registerPendingFile(filename, session.getUserId(), metadata.getStorageKey()))
+                        .flatMap(savedFile -> activateStoredFile(savedFile.getId(),
+                                new StagedObjectDTO(metadata.getStorageKey(), null, metadata.getSize()), metadata))
+                        .as(transactionalOperator::transactional))
+                .then(Mono.fromSupplier(() -> {
+                    session.setStatus(UploadSession.State.COMPLETED);
+                    log.info(INFO_UPLOAD_SESSION_COMPLETED, session.getId(), filename);
+                    return session;
+                }));
+    }
+
+    private static ResumableUploadDTO toResumableUpload(UploadSession session) {
+        return new ResumableUploadDTO(session.getObjectName(), session.getMultipartUploadId(), session.getPartSize());
+    }
+
+    private static UploadSessionDTO toUploadSessionDTO(UploadSession session) {
+        return UploadSessionDTO.builder()
+                .uploadId(session.getId())
+                .fileName(session.getFileName())
+                .uploadOffset(session.getUploadOffset())
+                .uploadLength(session.getUploadLength())
+                .partSize(session.getPartSize())
+                .completed(session.getStatus() == UploadSession.State.COMPLETED)
+                .expiresAt(session.getExpiresAt().toInstant(ZoneOffset.UTC))
+                .build();
+    }
+
+    private Mono<List<Long>> registerPendingFiles(List<FilePart> fileParts, List<String> stagingKeys, Long userId) {
+        List<String> locations = fileParts.stream()
+                .map(filePart -> S3_FILE_LOCATION + filePart.filename())
+                .toList();
+
+        return fileBatchRepository.insertPendingFiles(locations, stagingKeys)
+                .collectList()
+                .flatMap(fileIds -> fileBatchRepository.insertEvents(userId, fileIds)
+                        .thenReturn(fileIds))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<BatchUploadResultDTO> uploadBatchEntry(FilePart filePart, Long fileId, String stagingKey, Long userId) {
+        String filename = filePart.filename();
+        return transferPendingFile(filePart, fileId, stagingKey)
+                .map(metadata -> BatchUploadResultDTO.builder()
+                        .fileName(filename)
+                        .result(BatchUploadResultDTO.Result.UPLOADED)
+                        .uploadDateTime(LocalDateTime.now())
+                        .build())
+                .doOnSuccess(unused -> log.info(INFO_FILE_UPLOADED_SUCCESSFULLY_WITH_FILENAME_AND_USER_ID, filename, userId))
+                .onErrorResume(error -> {
+                    log.error(ERR_UPLOADING_FILE_WITH_FILENAME_AND_USER_ID, filename, userId, error.getMessage());
+                    return Mono.just(BatchUploadResultDTO.builder()
+                            .fileName(filename)
+                            .result(BatchUploadResultDTO.Result.FAILED)
+                            .error(error instanceof ResponseStatusException statusException
+                                    ? statusException.getReason()
+                                    : error.getMessage())
+                            .build());
                 });
     }
 
+    private Mono<FileMetadataDTO> transferPendingFile(FilePart filePart, Long fileId, String stagingKey) {
+        String filename = filePart.filename();
+        return fileStorageRepository.uploadUserFileToStorage(filePart, stagingKey)
+                .flatMap(stagedObject -> storeContent(stagedObject, filename)
+                        .flatMap(metadata -> activateStoredFile(fileId, stagedObject, metadata)
+                                .thenReturn(metadata)))
+                .onErrorResume(error -> discardPendingFile(fileId)
+                        .then(Mono.error(error)));
+    }
+
+    private Mono<File> registerPendingFile(String filename, Long userId, String storageKey) {
+        File file = File.builder()
+                .location(S3_FILE_LOCATION + filename)
+                .storageKey(storageKey)
+                .status(Status.PENDING)
+                .build();
+
+        return fileRepository.save(file)
+                .flatMap(savedFile -> {
+                    Event event = Event.builder()
+                            .userId(userId)
+                            .fileId(savedFile.getId())
+                            .build();
+
+                    return eventRepository.save(event)
+                            .thenReturn(savedFile);
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<FileMetadataDTO> storeContent(StagedObjectDTO stagedObject, String fileName) {
+        return fileRepository.findLatestActiveByContentHash(stagedObject.getContentHash())
+                .flatMap(existing -> fileStorageRepository.deleteStagedObject(stagedObject)
+                        .doOnSuccess(unused -> log.info(INFO_FILE_DEDUPLICATED, fileName, existing.getStorageKey()))
+                        .thenReturn(FileMetadataDTO.builder()
+                                .storageKey(existing.getStorageKey())
+                                .etag(existing.getEtag())
+                                .size(existing.getSize())
+                                .lastModified(existing.getLastModified() != null
+                                        ? existing.getLastModified().toInstant(ZoneOffset.UTC)
+                                        : null)
+                                .contentEncoding(existing.getContentEncoding())
+                                .checksumCrc32c(existing.getChecksumCrc32c())
+                                .build()))
+                .switchIfEmpty(Mono.defer(() -> fileStorageRepository.promoteStagedObject(stagedObject)));
+    }
+
+    private Mono<Integer> activateStoredFile(Long fileId, StagedObjectDTO stagedObject, FileMetadataDTO metadata) {
+        return fileRepository.activateStored(fileId, metadata.getStorageKey(), stagedObject.getContentHash(),
+                        metadata.getContentEncoding(), metadata.getChecksumCrc32c(), metadata.getEtag(), metadata.getSize(),
+                        metadata.getLastModified() != null
+                                ? LocalDateTime.ofInstant(metadata.getLastModified(), ZoneOffset.UTC)
+                                : null)
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Void> discardPendingFile(Long fileId) {
+        return fileRepository.deletePendingById(fileId)
+                .then(eventRepository.deleteAllActiveByFileId(fileId))
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+
     private Mono<Long> extractUserId(Authentication authentication) {
         if (authentication.getPrincipal() instanceof CustomPrincipal customPrincipal) {
             return Mono.just(customPrincipal.getId());
@@ -101,41 +440,235 @@ public class FileStorageServiceImpl implements FileStorageService {
     }
 
     @Override
-    public Mono<ResponseEntity<Resource>> downloadFileFromStorageByFileNameAndAuth(String fileName, Mono<Authentication> authMono) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileFromStorageByFileNameAndAuth(String fileName, HttpHeaders requestHeaders, Mono<Authentication> authMono) {
         log.info("IN FileStorageServiceImpl downloadFileFromStorageByFileName: {}", fileName);
-        return authMono
-                .flatMap(auth -> extractUserId(auth).map(userId -> new UserContext(userId, auth.getAuthorities())))
-                .defaultIfEmpty(new UserContext(null, Collections.emptyList()))
-                .flatMap(userContext -> checkUserAccessToFile(fileName, userContext.userId, userContext.authorities))
-                .flatMap(hasAccess -> {
-                    if (!hasAccess) {
-                        return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, ERR_ACCESS_DENIED));
-                    }
-                    return downloadFile(fileName);
-                })
+        return resolveDownloadFile(fileName, authMono)
+                .flatMap(file -> downloadFile(file, fileName, requestHeaders))
                 .onErrorMap(this::handleDownloadError)
                 .doOnSuccess(unused -> log.info(INFO_FILE_DOWNLOADED_SUCCESSFULLY_WITH_FILENAME, fileName))
                 .doOnError(error -> log.error(ERR_DOWNLOADING_FILE_WITH_FILENAME, fileName, error.getMessage()));
     }
 
-    private Mono<Boolean> checkUserAccessToFile(String fileName, Long userId, Collection<? extends GrantedAuthority> authorities) {
-        if (authorities.stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_" + UserRole.USER.name()))) {
-            return eventService.getEventByFileNameAndUserId(fileName, userId)
-                    .map(e -> true)
-                    .defaultIfEmpty(false);
-        }
-        return Mono.just(true);
+    @Override
+    public Mono<PresignedUploadResponseDTO> createPresignedUpload(PresignedUploadRequestDTO request, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl createPresignedUpload: {}", request.getFileName());
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> {
+                    String filename = request.getFileName();
+                    String uploadKey = fileStorageRepository.newUploadKey();
+                    return registerPendingFile(filename, userId, uploadKey)
+                            .flatMap(savedFile -> fileStorageRepository.createPresignedUpload(
+                                            uploadKey, filename, request.getContentLength(), request.getContentType())
+                                    .map(response -> response.toBuilder()
+                                            .fileId(savedFile.getId())
+                                            .build())
+                                    .onErrorResume(error -> discardPendingFile(savedFile.getId())
+                                            .then(Mono.error(error))));
+                });
+    }
+
+    @Override
+    public Mono<UploadedFileResponseDTO> completePresignedUpload(Long fileId, PresignedUploadCompleteRequestDTO request, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl completePresignedUpload: {}", fileId);
+        return authMono
+                .flatMap(this::extractUserId)
+                .flatMap(userId -> eventRepository.findActiveByFileIdAndUserId(fileId, userId))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, ERR_ACCESS_DENIED)))
+                .flatMap(event -> fileRepository.findPendingById(fileId))
+                .filter(file -> file.getStorageKey() != null)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_PENDING_UPLOAD_NOT_FOUND + fileId)))
+                .flatMap(file -> {
+                    String filename = file.getLocation().substring(file.getLocation().lastIndexOf('/') + 1);
+                    return fileStorageRepository.completePresignedUpload(file.getStorageKey(), request.getUploadId(), request.getParts())
+                            .flatMap(metadata -> fileRepository.activateStored(fileId, metadata.getStorageKey(), null,
+                                            metadata.getContentEncoding(), null, metadata.getEtag(), metadata.getSize(),
+                                            LocalDateTime.ofInstant(metadata.getLastModified(), ZoneOffset.UTC))
+                                    .as(transactionalOperator::transactional))
+                            .thenReturn(new UploadedFileResponseDTO(filename, LocalDateTime.now()));
+                })
+                .doOnSuccess(unused -> log.info(INFO_PRESIGNED_UPLOAD_COMPLETED, fileId));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Void>> redirectToPresignedDownload(String fileName, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl redirectToPresignedDownload: {}", fileName);
+        return resolveDownloadFile(fileName, authMono)
+                .flatMap(file -> fileStorageRepository.presignDownload(objectNameOf(file, fileName), fileName))
+                .map(url -> ResponseEntity.status(HttpStatus.FOUND)
+                        .location(url)
+                        .<Void>build());
+    }
+
+    @Override
+    public Mono<UploadedFileResponseDTO> getUploadStatus(String fileName, Mono<Authentication> authMono) {
+        log.info("IN FileStorageServiceImpl getUploadStatus: {}", fileName);
+        return resolveDownloadFile(fileName, authMono)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ERR_UPLOADED_FILE_NOT_FOUND + fileName)))
+                .map(file -> UploadedFileResponseDTO.builder()
+                        .fileName(fileName)
+                        .uploadDateTime(file.getLastModified())
+                        .storageStatus(storageStatusOf(file.getStorageKey()))
+                        .build());
+    }
+
+    private static UploadedFileResponseDTO.StorageStatus storageStatusOf(String storageKey) {
+        return WriteBehindStore.isLocal(storageKey)
+                ? UploadedFileResponseDTO.StorageStatus.STAGED
+                : UploadedFileResponseDTO.StorageStatus.STORED;
     }
 
-    private Mono<ResponseEntity<Resource>> downloadFile(String fileName) {
-        return fileStorageRepository.downloadFileFromStorage(fileName)
-                .map(responseEntity -> ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+    /**
+     * File names are only unique per user, so a user only ever finds their own file; admins
+     * and moderators get the latest file of that name, if any.
+     */
+    private Mono<Optional<File>> resolveDownloadFile(String fileName, Mono<Authentication> authMono) {
+        return authMono
+                .flatMap(auth -> extractUserId(auth).map(userId -> new UserContext(userId, auth.getAuthorities())))
+                .defaultIfEmpty(new UserContext(null, Collections.emptyList()))
+                .flatMap(userContext -> isUser(userContext.authorities)
+                        ? fileRepository.findLatestActiveByFileNameAndUserId(fileName, userContext.userId)
+                        .map(Optional::of)
+                        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                ERR_UPLOADED_FILE_NOT_FOUND + fileName)))
+                        : fileRepository.findLatestActiveByFileName(fileName)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty()));
+    }
+
+    private static boolean isUser(Collection<? extends GrantedAuthority> authorities) {
+        return authorities.stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_" + UserRole.USER.name()));
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> downloadFile(Optional<File> file, String fileName, HttpHeaders requestHeaders) {
+        if (file.isPresent() && file.get().getEtag() != null && isNotModified(file.get(), requestHeaders)) {
+            log.info(INFO_FILE_NOT_MODIFIED_WITH_FILENAME, fileName);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(file.get().getEtag());
+            if (file.get().getLastModified() != null) {
+                headers.setLastModified(file.get().getLastModified().toInstant(ZoneOffset.UTC));
+            }
+            headers.setCacheControl(cacheControl);
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .headers(headers)
+                    .<Flux<DataBuffer>>build());
+        }
+        String contentEncoding = file.map(File::getContentEncoding).orElse(null);
+        String objectName = objectNameOf(file, fileName);
+        String checksum = file.map(File::getChecksumCrc32c).orElse(null);
+        boolean decode = contentEncoding != null && !acceptsEncoding(requestHeaders, contentEncoding);
+        HttpHeaders storageRequestHeaders = requestHeaders;
+        if (decode) {
+            storageRequestHeaders = new HttpHeaders();
+            storageRequestHeaders.putAll(requestHeaders);
+            storageRequestHeaders.remove(HttpHeaders.RANGE);
+            storageRequestHeaders.remove(HttpHeaders.IF_RANGE);
+        }
+        return fileStorageRepository.downloadFileFromStorage(objectName, storageRequestHeaders)
+                .map(responseEntity -> checksum != null
+                        ? withChecksumVerification(responseEntity, objectName, checksum)
+                        : responseEntity)
+                .map(responseEntity -> contentEncoding != null
+                        ? withContentEncoding(responseEntity, contentEncoding, decode)
+                        : responseEntity)
+                .map(responseEntity -> ResponseEntity.status(responseEntity.getStatusCode())
+                        .headers(responseEntity.getHeaders())
                         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
                         .body(responseEntity.getBody()));
     }
 
+    private static ResponseEntity<Flux<DataBuffer>> withChecksumVerification(ResponseEntity<Flux<DataBuffer>> responseEntity,
+                                                                             String objectName, String checksum) {
+        Flux<DataBuffer> body = responseEntity.getBody();
+        if (responseEntity.getStatusCode() != HttpStatus.OK || body == null || body instanceof LocalFileContent
+                || ObjectEncryption.isEncrypted(objectName)) {
+            return responseEntity;
+        }
+        return ResponseEntity.status(responseEntity.getStatusCode())
+                .headers(responseEntity.getHeaders())
+                .body(ContentChecksum.verify(body, checksum)
+                        .doOnError(error -> log.error(ERR_DOWNLOADING_FILE_WITH_FILENAME, objectName, error.getMessage())));
+    }
+
+    private static ResponseEntity<Flux<DataBuffer>> withContentEncoding(ResponseEntity<Flux<DataBuffer>> responseEntity,
+                                                                        String contentEncoding, boolean decode) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(responseEntity.getHeaders());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        Flux<DataBuffer> body = responseEntity.getBody();
+        if (!decode) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+        } else {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.ACCEPT_RANGES, "none");
+            String eTag = headers.getETag();
+            if (eTag != null && !eTag.startsWith("W/")) {
+                headers.setETag("W/" + eTag);
+            }
+            body = body != null ? GzipCodec.decompress(body) : null;
+        }
+        return ResponseEntity.status(responseEntity.getStatusCode())
+                .headers(headers)
+                .body(body);
+    }
+
+    private static boolean acceptsEncoding(HttpHeaders requestHeaders, String contentEncoding) {
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String element : value.split(",")) {
+                String[] parameters = element.split(";");
+                String coding = parameters[0].trim();
+                if (coding.equalsIgnoreCase(contentEncoding) || coding.equals("*")) {
+                    return parameters.length < 2 || !isZeroQuality(parameters[1]);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameter) {
+        String[] nameAndValue = parameter.trim().split("=", 2);
+        if (nameAndValue.length < 2 || !nameAndValue[0].trim().equalsIgnoreCase("q")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(nameAndValue[1].trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String objectNameOf(Optional<File> file, String fileName) {
+        return file.map(File::getStorageKey).orElse(fileName);
+    }
+
+    private static boolean isNotModified(File file, HttpHeaders requestHeaders) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String eTag = stripWeakPrefix(file.getEtag());
+            return ifNoneMatch.stream()
+                    .anyMatch(tag -> tag.equals("*") || stripWeakPrefix(tag).equals(eTag));
+        }
+        if (file.getLastModified() == null) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = requestHeaders.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        long lastModified = file.getLastModified().toInstant(ZoneOffset.UTC).getEpochSecond() * 1000;
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
     private Throwable handleDownloadError(Throwable error) {
         if (error instanceof NoSuchKeyException) {
             log.error(ERR_FILE_NOT_FOUND_IN_S_3, error.getMessage(), error);
@@ -0,0 +1,97 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.model.File;
+import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_SCRUBBING_FILES_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_SCRUB_CHECKSUM_MISMATCH;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_SCRUB_COMPLETED;
+
+/**
+ * Checks a sample of stored files every {@code interval}: the CRC32C that S3 keeps for each
+ * object has to match the one recorded at upload. Only object attributes are read, so a round
+ * costs {@code sample-size} requests and no data transfer. Each round starts at a random file
+ * ID, so over time the whole table is covered. Mismatches and missing objects are logged and
+ * counted in {@code s3.scrub.mismatches}.
+ */
+@Slf4j
+@Component
+public class IntegrityScrubber {
+
+    private final FileRepository fileRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final Counter verified;
+    private final Counter mismatches;
+
+    @Value("${app.s3.scrubbing.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.s3.scrubbing.sample-size:100}")
+    private int sampleSize = 100;
+
+    @Value("${app.s3.scrubbing.concurrency:4}")
+    private int concurrency = 4;
+
+    public IntegrityScrubber(FileRepository fileRepository, FileStorageRepository fileStorageRepository,
+                             MeterRegistry meterRegistry) {
+        this.fileRepository = fileRepository;
+        this.fileStorageRepository = fileStorageRepository;
+        this.verified = Counter.builder("s3.scrub.verified").register(meterRegistry);
+        this.mismatches = Counter.builder("s3.scrub.mismatches").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.s3.scrubbing.interval:PT1H}",
+            fixedDelayString = "${app.s3.scrubbing.interval:PT1H}")
+    public Mono<Void> scrub() {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return fileRepository.findMaxId()
+                .flatMapMany(maxId -> {
+                    long fromId = ThreadLocalRandom.current().nextLong(maxId + 1);
+                    return Flux.concat(fileRepository.findActiveWithChecksumFromId(fromId, sampleSize),
+                                    Flux.defer(() -> fileRepository.findActiveWithChecksumFromId(0, sampleSize)))
+                            .distinct(File::getId)
+                            .take(sampleSize);
+                })
+                .flatMap(this::verify, concurrency)
+                .reduce(0, Integer::sum)
+                .doOnNext(count -> log.info(INFO_SCRUB_COMPLETED, count))
+                .then()
+                .onErrorResume(error -> {
+                    log.error(ERR_SCRUBBING_FILES_FAILED, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Integer> verify(File file) {
+        return fileStorageRepository.getStoredChecksum(file.getStorageKey())
+                .map(stored -> {
+                    if (stored.equals(file.getChecksumCrc32c())) {
+                        verified.increment();
+                    } else {
+                        mismatches.increment();
+                        log.error(ERR_SCRUB_CHECKSUM_MISMATCH, file.getStorageKey(), file.getId(), stored, file.getChecksumCrc32c());
+                    }
+                    return 1;
+                })
+                .onErrorResume(error -> {
+                    mismatches.increment();
+                    log.error(ERR_SCRUB_CHECKSUM_MISMATCH, file.getStorageKey(), file.getId(), error.getMessage(),
+                            file.getChecksumCrc32c());
+                    return Mono.just(1);
+                })
+                .defaultIfEmpty(0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3PackStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_COMPACTING_PACKS_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_SEALING_PACKS_FAILED;
+
+/**
+ * Background upkeep of small-file packs: closed packs are uploaded every {@code seal-interval},
+ * and packs in which at least {@code min-garbage-ratio} of the bytes belong to deleted files
+ * are rewritten every {@code compaction.interval}. Entries younger than {@code grace-period}
+ * count as live, so an upload that is not activated yet is never compacted away.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PackCompactor {
+
+    private final S3PackStore packStore;
+
+    @Value("${app.s3.packing.compaction.min-garbage-ratio:0.5}")
+    private double minGarbageRatio = 0.5;
+
+    @Value("${app.s3.packing.compaction.grace-period:1h}")
+    private Duration gracePeriod = Duration.ofHours(1);
+
+    @Scheduled(initialDelayString = "${app.s3.packing.seal-interval:PT10S}",
+            fixedDelayString = "${app.s3.packing.seal-interval:PT10S}")
+    public Mono<Void> sealPacks() {
+        return packStore.sealPacks()
+                .onErrorResume(error -> {
+                    log.error(ERR_SEALING_PACKS_FAILED, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Scheduled(initialDelayString = "${app.s3.packing.compaction.interval:PT1H}",
+            fixedDelayString = "${app.s3.packing.compaction.interval:PT1H}")
+    public Mono<Void> compactPacks() {
+        return packStore.compact(minGarbageRatio, gracePeriod)
+                .onErrorResume(error -> {
+                    log.error(ERR_COMPACTING_PACKS_FAILED, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
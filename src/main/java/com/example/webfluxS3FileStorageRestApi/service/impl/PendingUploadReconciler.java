@@ -0,0 +1,76 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.model.File;
+import com.example.webfluxS3FileStorageRestApi.repository.EventRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_RECONCILING_PENDING_UPLOAD;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_PENDING_UPLOAD_ACTIVATED;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_PENDING_UPLOAD_DISCARDED;
+
+/**
+ * Settles uploads that stayed PENDING past {@code stale-after}, e.g. because the node died
+ * between the transfer and the commit. A pending file records the key its transfer stores
+ * the object under: if that object made it to storage, the file is activated on it in place,
+ * otherwise the file and its event are marked deleted. Files without a key are never matched
+ * against an object of the same name, which may belong to someone else, and are deleted too.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingUploadReconciler {
+
+    private final FileRepository fileRepository;
+    private final EventRepository eventRepository;
+    private final FileStorageRepository fileStorageRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${app.s3.pending-uploads.stale-after:1h}")
+    private Duration staleAfter = Duration.ofHours(1);
+
+    @Scheduled(initialDelayString = "${app.s3.pending-uploads.reconcile-interval:PT5M}",
+            fixedDelayString = "${app.s3.pending-uploads.reconcile-interval:PT5M}")
+    public Mono<Void> reconcilePendingUploads() {
+        return fileRepository.findAllPendingOlderThan(staleAfter.toSeconds())
+                .concatMap(this::reconcile)
+                .then();
+    }
+
+    private Mono<Void> reconcile(File file) {
+        String storageKey = file.getStorageKey();
+        Mono<FileMetadataDTO> storedObject = storageKey != null
+                ? fileStorageRepository.getFileMetadata(storageKey)
+                : Mono.empty();
+        return storedObject
+                .flatMap(metadata -> fileStorageRepository.getStoredChecksum(storageKey)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(checksum -> fileRepository.activateStored(file.getId(), storageKey, null,
+                                metadata.getContentEncoding(), checksum.orElse(null), metadata.getEtag(), metadata.getSize(),
+                                LocalDateTime.ofInstant(metadata.getLastModified(), ZoneOffset.UTC)))
+                        .doOnSuccess(updated -> log.info(INFO_PENDING_UPLOAD_ACTIVATED, file.getId())))
+                .switchIfEmpty(Mono.defer(() -> fileRepository.deletePendingById(file.getId())
+                        .then(eventRepository.deleteAllActiveByFileId(file.getId()))
+                        .as(transactionalOperator::transactional)
+                        .doOnSuccess(updated -> log.info(INFO_PENDING_UPLOAD_DISCARDED, file.getId()))))
+                .then()
+                .onErrorResume(error -> {
+                    log.error(ERR_RECONCILING_PENDING_UPLOAD, file.getId(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
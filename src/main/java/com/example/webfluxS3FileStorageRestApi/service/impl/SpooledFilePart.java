@@ -0,0 +1,57 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.UploadSpool;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.codec.multipart.FilePart;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+
+/**
+ * A received file part whose content has been spooled, so it can be stored after the request
+ * that carried it is gone. The headers are those of the original part, with the now known length.
+ */
+final class SpooledFilePart implements FilePart {
+
+    private final String name;
+    private final String filename;
+    private final HttpHeaders headers;
+    private final Flux<DataBuffer> content;
+
+    SpooledFilePart(FilePart filePart, UploadSpool.SpooledContent spooled, Flux<DataBuffer> content) {
+        this.name = filePart.name();
+        this.filename = filePart.filename();
+        this.headers = new HttpHeaders();
+        this.headers.putAll(filePart.headers());
+        this.headers.setContentLength(spooled.size());
+        this.content = content;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String filename() {
+        return filename;
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    @Override
+    public Flux<DataBuffer> content() {
+        return content;
+    }
+
+    @Override
+    public Mono<Void> transferTo(File dest) {
+        return DataBufferUtils.write(content, dest.toPath());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.model.UploadIdempotency;
+import com.example.webfluxS3FileStorageRestApi.repository.UploadIdempotencyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_IDEMPOTENT_UPLOAD_ATTACHED;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_IDEMPOTENT_UPLOAD_REPLAYED;
+
+/**
+ * Makes uploads that carry an {@code Idempotency-Key} run at most once per user and key.
+ * The first request claims the key in {@code upload_idempotency} and runs the upload; a retry
+ * on the same node attaches to the upload still in flight, and once it has completed any
+ * retry gets the stored result without its bytes being stored again. If the upload it
+ * attached to fails, typically because that client gave up mid-body, the retry claims the
+ * key again with its own body. A key that is still
+ * in progress on another node answers 409, and a key reused for a different file 422.
+ * <p>
+ * A failed upload releases its key, so it can be retried. Keys are kept for {@code ttl};
+ * keys left in progress by a crash are dropped after {@code in-progress-timeout}. The most
+ * recent {@code max-cached-results} results are also held in memory.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadIdempotencyGuard {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final UploadIdempotencyRepository uploadIdempotencyRepository;
+
+    @Value("${app.s3.idempotency.ttl:24h}")
+    private Duration ttl = Duration.ofHours(24);
+
+    @Value("${app.s3.idempotency.in-progress-timeout:1h}")
+    private Duration inProgressTimeout = Duration.ofHours(1);
+
+    @Value("${app.s3.idempotency.max-cached-results:10000}")
+    private int maxCachedResults = 10000;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, UploadIdempotency> results = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, UploadIdempotency> eldest) {
+                    return size() > maxCachedResults;
+                }
+            });
+
+    private static final class InFlight {
+
+        private final String fileName;
+        private Mono<UploadedFileResponseDTO> result;
+
+        private InFlight(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    public Mono<UploadedFileResponseDTO> execute(Long userId, String idempotencyKey, String fileName,
+                                                 Mono<UploadedFileResponseDTO> upload) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, ERR_INVALID_IDEMPOTENCY_KEY + idempotencyKey));
+        }
+        return Mono.defer(() -> {
+            String cacheKey = userId + ":" + idempotencyKey;
+            UploadIdempotency cached = results.get(cacheKey);
+            if (cached != null && !isExpired(cached)) {
+                return replay(cached, fileName);
+            }
+            InFlight claim = new InFlight(fileName);
+            claim.result = claim(cacheKey, claim, userId, idempotencyKey, fileName, upload);
+            InFlight running = inFlight.putIfAbsent(cacheKey, claim);
+            if (running == null) {
+                return claim.result;
+            }
+            if (!running.fileName.equals(fileName)) {
+                return Mono.error(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, ERR_IDEMPOTENCY_KEY_REUSED + idempotencyKey));
+            }
+            log.info(INFO_IDEMPOTENT_UPLOAD_ATTACHED, idempotencyKey, fileName);
+            return running.result
+                    .onErrorResume(error -> {
+                        inFlight.remove(cacheKey, running);
+                        return execute(userId, idempotencyKey, fileName, upload);
+                    });
+        });
+    }
+
+    @Scheduled(initialDelayString = "${app.s3.idempotency.sweep-interval:PT10M}",
+            fixedDelayString = "${app.s3.idempotency.sweep-interval:PT10M}")
+    public Mono<Void> deleteExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return uploadIdempotencyRepository.deleteExpired(now.minus(ttl), now.minus(inProgressTimeout))
+                .then()
+                .onErrorResume(error -> {
+                    log.error(ERR_SWEEPING_IDEMPOTENCY_KEYS_FAILED, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Shared by every request that attaches to it, so the upload runs once however many
+     * retries arrive while it is in flight. It only removes its own entry, since a retry may
+     * already have claimed the key again by the time it ends.
+     */
+    private Mono<UploadedFileResponseDTO> claim(String cacheKey, InFlight self, Long userId, String idempotencyKey, String fileName,
+                                                Mono<UploadedFileResponseDTO> upload) {
+        LocalDateTime createdAt = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        return uploadIdempotencyRepository.insertIgnore(userId, idempotencyKey, fileName, createdAt)
+                .flatMap(inserted -> inserted > 0
+                        ? upload.flatMap(response -> complete(cacheKey, userId, idempotencyKey, fileName, createdAt, response))
+                        .onErrorResume(error -> uploadIdempotencyRepository.deleteInProgress(userId, idempotencyKey)
+                                .then(Mono.error(error)))
+                        : uploadIdempotencyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                                ERR_IDEMPOTENT_UPLOAD_IN_PROGRESS + idempotencyKey)))
+                        .flatMap(existing -> {
+                            if (existing.getStatus() != UploadIdempotency.State.COMPLETED) {
+                                return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                        ERR_IDEMPOTENT_UPLOAD_IN_PROGRESS + idempotencyKey));
+                            }
+                            results.put(cacheKey, existing);
+                            return replay(existing, fileName);
+                        }))
+                .doFinally(signal -> inFlight.remove(cacheKey, self))
+                .cache();
+    }
+
+    private Mono<UploadedFileResponseDTO> complete(String cacheKey, Long userId, String idempotencyKey, String fileName,
+                                                   LocalDateTime createdAt, UploadedFileResponseDTO response) {
+        String storageStatus = response.getStorageStatus() != null ? response.getStorageStatus().name() : null;
+        return uploadIdempotencyRepository.complete(userId, idempotencyKey, storageStatus, response.getUploadDateTime())
+                .doOnSuccess(updated -> results.put(cacheKey, UploadIdempotency.builder()
+                        .userId(userId)
+                        .idempotencyKey(idempotencyKey)
+                        .fileName(fileName)
+                        .status(UploadIdempotency.State.COMPLETED)
+                        .storageStatus(storageStatus)
+                        .uploadDateTime(response.getUploadDateTime())
+                        .createdAt(createdAt)
+                        .build()))
+                .thenReturn(response);
+    }
+
+    private Mono<UploadedFileResponseDTO> replay(UploadIdempotency record, String fileName) {
+        if (!record.getFileName().equals(fileName)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    ERR_IDEMPOTENCY_KEY_REUSED + record.getIdempotencyKey()));
+        }
+        log.info(INFO_IDEMPOTENT_UPLOAD_REPLAYED, record.getIdempotencyKey(), fileName);
+        return Mono.just(UploadedFileResponseDTO.builder()
+                .fileName(record.getFileName())
+                .uploadDateTime(record.getUploadDateTime())
+                .storageStatus(record.getStorageStatus() != null
+                        ? UploadedFileResponseDTO.StorageStatus.valueOf(record.getStorageStatus())
+                        : null)
+                .build());
+    }
+
+    private boolean isExpired(UploadIdempotency record) {
+        return record.getCreatedAt().isBefore(LocalDateTime.now(ZoneOffset.UTC).minus(ttl));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.UploadJobDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.exception.TransferRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_UPLOAD_JOB_FAILED;
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_UPLOAD_JOB_QUEUE_FULL;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_UPLOAD_JOB_COMPLETED;
+
+/**
+ * Runs the storage half of asynchronous uploads. Accepted jobs wait in a FIFO queue and at
+ * most {@code workers} of them transfer at a time. No more than {@code max-active-jobs} may be
+ * queued or running; beyond that a new job is rejected with 429 before its body is read.
+ * <p>
+ * Jobs live in memory on the node that accepted them. A finished job stays visible for
+ * {@code retention}, then it is forgotten on the next job created.
+ */
+@Slf4j
+@Component
+public class UploadJobExecutor {
+
+    @Value("${app.s3.upload-jobs.workers:4}")
+    private int workers = 4;
+
+    @Value("${app.s3.upload-jobs.max-active-jobs:100}")
+    private int maxActiveJobs = 100;
+
+    @Value("${app.s3.upload-jobs.retention:1h}")
+    private Duration retention = Duration.ofHours(1);
+
+    @Value("${app.s3.upload-jobs.retry-after:5s}")
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    @Value("${app.s3.upload-jobs.progress-interval:500ms}")
+    private Duration progressInterval = Duration.ofMillis(500);
+
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final Sinks.Many<Mono<Void>> queue = Sinks.unsafe().many().unicast().onBackpressureBuffer();
+    private Disposable worker;
+
+    /**
+     * One asynchronous upload. Its counters are updated by the worker and read by pollers.
+     */
+    public static final class UploadJob {
+
+        private final String id = UUID.randomUUID().toString();
+        private final String fileName;
+        private final Long userId;
+        private final LocalDateTime acceptedAt = LocalDateTime.now();
+        private final AtomicLong bytesTransferred = new AtomicLong();
+        private volatile long totalBytes;
+        private volatile boolean started;
+        private volatile UploadJobDTO.State state = UploadJobDTO.State.QUEUED;
+        private volatile UploadedFileResponseDTO.StorageStatus storageStatus;
+        private volatile String error;
+        private volatile Instant finishedAt;
+
+        private UploadJob(String fileName, Long userId) {
+            this.fileName = fileName;
+            this.userId = userId;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Counts the bytes of {@code content} as the transfer consumes them.
+         */
+        public Flux<DataBuffer> track(Flux<DataBuffer> content) {
+            return content.doOnNext(dataBuffer -> bytesTransferred.addAndGet(dataBuffer.readableByteCount()));
+        }
+
+        public UploadJobDTO snapshot() {
+            return UploadJobDTO.builder()
+                    .jobId(id)
+                    .fileName(fileName)
+                    .state(state)
+                    .bytesTransferred(Math.min(bytesTransferred.get(), totalBytes))
+                    .totalBytes(totalBytes)
+                    .storageStatus(storageStatus)
+                    .error(error)
+                    .acceptedDateTime(acceptedAt)
+                    .build();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        worker = queue.asFlux()
+                .flatMap(job -> job, workers)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        worker.dispose();
+    }
+
+    /**
+     * Reserves a slot for a new job, or fails with 429 when all are taken.
+     */
+    public UploadJob create(String fileName, Long userId) {
+        forgetExpiredJobs();
+        if (activeJobs.incrementAndGet() > maxActiveJobs) {
+            activeJobs.decrementAndGet();
+            throw new TransferRejectedException(ERR_UPLOAD_JOB_QUEUE_FULL, retryAfter);
+        }
+        UploadJob job = new UploadJob(fileName, userId);
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    /**
+     * Queues the transfer of {@code totalBytes}; it runs when a worker is free. The result
+     * tells where the file ended up.
+     */
+    public void start(UploadJob job, long totalBytes, Mono<UploadedFileResponseDTO> transfer) {
+        job.totalBytes = totalBytes;
+        job.started = true;
+        Mono<Void> run = Mono.defer(() -> {
+                    job.state = UploadJobDTO.State.TRANSFERRING;
+                    return transfer;
+                })
+                .doOnNext(result -> {
+                    job.storageStatus = result.getStorageStatus();
+                    job.bytesTransferred.set(totalBytes);
+                    job.state = UploadJobDTO.State.COMPLETED;
+                    log.info(INFO_UPLOAD_JOB_COMPLETED, job.id, job.fileName);
+                })
+                .onErrorResume(error -> {
+                    job.error = error instanceof ResponseStatusException statusException
+                            ? statusException.getReason()
+                            : error.getMessage();
+                    job.state = UploadJobDTO.State.FAILED;
+                    log.error(ERR_UPLOAD_JOB_FAILED, job.id, job.fileName, error.getMessage());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> finish(job))
+                .then();
+        synchronized (queue) {
+            queue.tryEmitNext(run).orThrow();
+        }
+    }
+
+    /**
+     * Gives the slot back for a job whose body could not be received. Started jobs are left alone.
+     */
+    public void abandon(UploadJob job) {
+        if (!job.started && jobs.remove(job.id) != null) {
+            activeJobs.decrementAndGet();
+        }
+    }
+
+    /**
+     * Only the user who submitted a job can see it.
+     */
+    public Optional<UploadJob> find(String jobId, Long userId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> job.userId.equals(userId));
+    }
+
+    /**
+     * The job's state every {@code progress-interval} while it changes, ending with its final state.
+     */
+    public Flux<UploadJobDTO> progress(UploadJob job) {
+        return Flux.interval(Duration.ZERO, progressInterval)
+                .map(tick -> job.snapshot())
+                .distinctUntilChanged()
+                .takeUntil(snapshot -> snapshot.getState() == UploadJobDTO.State.COMPLETED
+                        || snapshot.getState() == UploadJobDTO.State.FAILED);
+    }
+
+    private void finish(UploadJob job) {
+        if (job.state != UploadJobDTO.State.COMPLETED) {
+            job.state = UploadJobDTO.State.FAILED;
+        }
+        job.finishedAt = Instant.now();
+        activeJobs.decrementAndGet();
+    }
+
+    private void forgetExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+}
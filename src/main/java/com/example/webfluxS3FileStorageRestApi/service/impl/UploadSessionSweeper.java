@@ -0,0 +1,55 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.ResumableUploadDTO;
+import com.example.webfluxS3FileStorageRestApi.model.UploadSession;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.ERR_EXPIRING_UPLOAD_SESSION;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_UPLOAD_SESSION_EXPIRED;
+
+/**
+ * Drops upload sessions that saw no request for {@code app.s3.upload-sessions.expire-after}.
+ * An abandoned session also has its stored parts aborted; a completed one belongs to its file
+ * by then and only loses its row. The row goes first, so a request that extends the session
+ * at the last moment keeps it, and one that comes later finds no session instead of missing parts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadSessionSweeper {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileStorageRepository fileStorageRepository;
+
+    @Scheduled(initialDelayString = "${app.s3.upload-sessions.sweep-interval:PT15M}",
+            fixedDelayString = "${app.s3.upload-sessions.sweep-interval:PT15M}")
+    public Mono<Void> expireUploadSessions() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return uploadSessionRepository.findAllExpired(now)
+                .concatMap(session -> expire(session, now))
+                .then();
+    }
+
+    private Mono<Void> expire(UploadSession session, LocalDateTime now) {
+        return uploadSessionRepository.deleteExpired(session.getId(), now)
+                .filter(deleted -> deleted > 0)
+                .flatMap(deleted -> session.getStatus() == UploadSession.State.OPEN
+                        ? fileStorageRepository.abortResumableUpload(new ResumableUploadDTO(
+                        session.getObjectName(), session.getMultipartUploadId(), session.getPartSize()))
+                        .doOnSuccess(unused -> log.info(INFO_UPLOAD_SESSION_EXPIRED, session.getId(), session.getUploadOffset()))
+                        : Mono.<Void>empty())
+                .onErrorResume(error -> {
+                    log.error(ERR_EXPIRING_UPLOAD_SESSION, session.getId(), session.getMultipartUploadId(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.webfluxS3FileStorageRestApi.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.WriteBehindStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static com.example.webfluxS3FileStorageRestApi.messages.ErrorMessages.FileStorage.*;
+import static com.example.webfluxS3FileStorageRestApi.messages.InfoMessages.FileStorage.INFO_LOCAL_FILE_FLUSHED;
+
+/**
+ * Background half of the write-behind upload mode. Every {@code flush-interval} the local
+ * files that active files still point at are moved to S3, {@code workers} at a time, each
+ * retried with backoff up to {@code max-retries} times; a file that still fails is tried
+ * again in the next round. Once stored, every file row pointing at the local name is
+ * pointed at the stored object. Local files that no active file refers to are deleted
+ * once they have been idle for {@code grace-period}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WriteBehindFlusher {
+
+    private final WriteBehindStore writeBehindStore;
+    private final FileStorageRepository fileStorageRepository;
+    private final FileRepository fileRepository;
+
+    @Value("${app.s3.write-behind.workers:4}")
+    private int workers = 4;
+
+    @Value("${app.s3.write-behind.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${app.s3.write-behind.retry-backoff:1s}")
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    @Value("${app.s3.write-behind.grace-period:1h}")
+    private Duration gracePeriod = Duration.ofHours(1);
+
+    @Scheduled(initialDelayString = "${app.s3.write-behind.flush-interval:PT5S}",
+            fixedDelayString = "${app.s3.write-behind.flush-interval:PT5S}")
+    public Mono<Void> flushLocalFiles() {
+        if (!writeBehindStore.isEnabled()) {
+            return Mono.empty();
+        }
+        return fileRepository.findActiveStorageKeysLike(WriteBehindStore.localNamePattern())
+                .flatMap(this::flush, workers)
+                .then(deleteUnreferenced())
+                .onErrorResume(error -> {
+                    log.error(ERR_FLUSHING_LOCAL_FILES_FAILED, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> flush(String objectName) {
+        return fileStorageRepository.flushLocalObject(objectName)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff)
+                        .doBeforeRetry(signal -> log.warn(WARN_RETRYING_LOCAL_FILE_FLUSH, objectName,
+                                signal.failure().getMessage())))
+                .flatMap(metadata -> fileRepository.relocateStored(objectName, metadata.getStorageKey(),
+                                metadata.getContentEncoding(), metadata.getChecksumCrc32c(), metadata.getEtag(),
+                                metadata.getSize(), metadata.getLastModified() != null
+                                        ? LocalDateTime.ofInstant(metadata.getLastModified(), ZoneOffset.UTC)
+                                        : null)
+                        .doOnSuccess(updated -> log.info(INFO_LOCAL_FILE_FLUSHED, objectName, metadata.getStorageKey(), updated)))
+                .then(writeBehindStore.touch(objectName))
+                .onErrorResume(error -> {
+                    log.error(ERR_FLUSHING_LOCAL_FILE, objectName, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> deleteUnreferenced() {
+        return writeBehindStore.findIdle(gracePeriod)
+                .concatMap(objectName -> fileRepository.countActiveByStorageKey(objectName)
+                        .filter(references -> references == 0)
+                        .flatMap(references -> writeBehindStore.delete(objectName)))
+                .then();
+    }
+}
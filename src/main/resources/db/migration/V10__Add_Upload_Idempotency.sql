@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS upload_idempotency (
+    id               BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id          BIGINT       NOT NULL,
+    idempotency_key  VARCHAR(255) NOT NULL,
+    file_name        VARCHAR(255) NOT NULL,
+    status           VARCHAR(16)  NOT NULL,
+    storage_status   VARCHAR(16),
+    upload_date_time TIMESTAMP    NULL,
+    created_at       TIMESTAMP    NOT NULL,
+    UNIQUE (user_id, idempotency_key),
+    INDEX idx_upload_idempotency_created_at (created_at)
+);
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS upload_session (
+    id                  CHAR(36)      PRIMARY KEY,
+    user_id             BIGINT        NOT NULL,
+    file_name           VARCHAR(255)  NOT NULL,
+    content_type        VARCHAR(255),
+    upload_length       BIGINT        NOT NULL,
+    upload_offset       BIGINT        NOT NULL,
+    part_size           BIGINT        NOT NULL,
+    object_name         VARCHAR(512)  NOT NULL,
+    multipart_upload_id VARCHAR(1024) NOT NULL,
+    status              VARCHAR(16)   NOT NULL,
+    created_at          TIMESTAMP     NOT NULL,
+    expires_at          TIMESTAMP     NOT NULL,
+    INDEX idx_upload_session_expires_at (expires_at)
+);
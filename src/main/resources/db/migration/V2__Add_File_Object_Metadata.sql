@@ -0,0 +1,4 @@
+ALTER TABLE file
+    ADD COLUMN etag          VARCHAR(128),
+    ADD COLUMN size          BIGINT,
+    ADD COLUMN last_modified TIMESTAMP NULL;
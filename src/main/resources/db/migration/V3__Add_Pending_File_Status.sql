@@ -0,0 +1,2 @@
+ALTER TABLE file
+    MODIFY COLUMN status ENUM('ACTIVE', 'DELETED', 'PENDING') NOT NULL DEFAULT 'ACTIVE';
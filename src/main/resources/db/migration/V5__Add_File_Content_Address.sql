@@ -0,0 +1,4 @@
+ALTER TABLE file
+    ADD COLUMN storage_key  VARCHAR(512),
+    ADD COLUMN content_hash CHAR(64),
+    ADD INDEX idx_file_content_hash (content_hash);
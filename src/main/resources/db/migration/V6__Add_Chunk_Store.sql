@@ -0,0 +1,23 @@
+CREATE TABLE IF NOT EXISTS chunk (
+    hash CHAR(64) PRIMARY KEY,
+    size INT      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS chunk_manifest (
+    id           CHAR(36)  PRIMARY KEY,
+    content_hash CHAR(64)  NOT NULL,
+    size         BIGINT    NOT NULL,
+    created_at   TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS file_chunk (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    manifest_id  CHAR(36) NOT NULL,
+    seq          INT      NOT NULL,
+    chunk_hash   CHAR(64) NOT NULL,
+    chunk_offset BIGINT   NOT NULL,
+    size         INT      NOT NULL,
+    UNIQUE (manifest_id, seq),
+    FOREIGN KEY (manifest_id) REFERENCES chunk_manifest(id),
+    FOREIGN KEY (chunk_hash) REFERENCES chunk(hash)
+);
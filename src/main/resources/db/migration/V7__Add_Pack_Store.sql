@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS pack (
+    id         CHAR(36)  PRIMARY KEY,
+    size       BIGINT    NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pack_entry (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    pack_id      CHAR(36)  NOT NULL,
+    entry_offset BIGINT    NOT NULL,
+    length       INT       NOT NULL,
+    content_hash CHAR(64)  NOT NULL,
+    created_at   TIMESTAMP NOT NULL,
+    INDEX idx_pack_entry_pack_id (pack_id)
+);
+
+ALTER TABLE file
+    ADD INDEX idx_file_storage_key (storage_key);
@@ -0,0 +1,2 @@
+ALTER TABLE file
+    ADD COLUMN content_encoding VARCHAR(32);
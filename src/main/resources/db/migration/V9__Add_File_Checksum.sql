@@ -0,0 +1,2 @@
+ALTER TABLE file
+    ADD COLUMN checksum_crc32c VARCHAR(16);
@@ -1,14 +1,31 @@
 package com.example.webfluxS3FileStorageRestApi.integration.repository.impl;
 
-import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.DiskObjectCache;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.MemoryObjectCache;
 import com.example.webfluxS3FileStorageRestApi.repository.impl.FileStorageRepositoryS3Impl;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ObjectEncryption;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3MultipartUploader;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3ParallelDownloader;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3PackStore;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.TransferAdmission;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.UploadSpool;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3PresignedTransfers;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3ResumableUploads;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.WriteBehindStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
@@ -16,33 +33,37 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
 import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.containers.localstack.LocalStackContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testcontainers.containers.localstack.LocalStackContainer.Service.S3;
@@ -59,6 +80,9 @@ public class FileStorageRepositoryS3ImplIT {
 
     private static S3AsyncClient s3Client;
     private FileStorageRepositoryS3Impl repository;
+    private S3ParallelDownloader parallelDownloader;
+    private DiskObjectCache diskObjectCache;
+    private MemoryObjectCache memoryObjectCache;
 
     @Container
     static LocalStackContainer localStack = new LocalStackContainer(
@@ -103,8 +127,19 @@ public class FileStorageRepositoryS3ImplIT {
 
     @BeforeEach
     void init() {
-        repository = new FileStorageRepositoryS3Impl();
-        ReflectionTestUtils.setField(repository, "s3Client", s3Client);
+        parallelDownloader = new S3ParallelDownloader(s3Client);
+        diskObjectCache = new DiskObjectCache(s3Client, new SimpleMeterRegistry());
+        memoryObjectCache = new MemoryObjectCache(s3Client, new SimpleMeterRegistry());
+        TransferAdmission transferAdmission = new TransferAdmission(new SimpleMeterRegistry());
+        transferAdmission.init();
+        UploadSpool uploadSpool = new UploadSpool();
+        uploadSpool.init();
+        ObjectEncryption objectEncryption = new ObjectEncryption();
+        objectEncryption.init();
+        repository = new FileStorageRepositoryS3Impl(s3Client, new S3MultipartUploader(s3Client),
+                parallelDownloader, diskObjectCache, memoryObjectCache, mock(S3PresignedTransfers.class),
+                mock(S3ResumableUploads.class), mock(S3PackStore.class), transferAdmission, uploadSpool, objectEncryption,
+                mock(WriteBehindStore.class));
         ReflectionTestUtils.setField(repository, "bucketName", BUCKET_NAME);
         ReflectionTestUtils.setField(repository, "keyPrefix", "test-prefix");
 
@@ -125,48 +160,237 @@ public class FileStorageRepositoryS3ImplIT {
 
     @Test
     void testUploadFileToStorage() {
+        ReflectionTestUtils.setField(repository, "multipartUploadEnabled", false);
         FilePart filePart = mock(FilePart.class);
         when(filePart.filename()).thenReturn(TEST_FILE_NAME);
-        Path tempFilePath = Paths.get("/tmp/testfile.txt");
-        try {
-            Files.writeString(tempFilePath, "This is a test file");
-            when(filePart.transferTo(any(Path.class))).then(invocation -> {
-                Path path = invocation.getArgument(0);
-                Files.copy(tempFilePath, path, StandardCopyOption.REPLACE_EXISTING);
-                return Mono.empty();
-            });
-        } catch (IOException e) {
-            e.printStackTrace(System.out);
-        }
+        when(filePart.headers()).thenReturn(new HttpHeaders());
+        when(filePart.content()).thenReturn(Flux.just(DefaultDataBufferFactory.sharedInstance
+                .wrap("This is a test file".getBytes(StandardCharsets.UTF_8))));
 
-        Mono<UploadedFileResponseDTO> resultMono = repository.uploadUserFileToStorage(filePart);
+        Mono<StagedObjectDTO> resultMono = repository.uploadUserFileToStorage(filePart);
         StepVerifier.create(resultMono)
                 .assertNext(response -> {
                     assertNotNull(response);
-                    assertEquals(TEST_FILE_NAME, response.getFileName());
-                    // Проверки на дату и время загрузки можно добавить здесь
+                    assertEquals(sha256Hex("This is a test file"), response.getContentHash());
+                    assertEquals("This is a test file".length(), response.getSize());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testStreamFileToStorage() {
+        byte[] content = "This is a streamed test file".getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentLength(content.length);
+
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn(TEST_FILE_NAME);
+        when(filePart.headers()).thenReturn(headers);
+        when(filePart.content()).thenReturn(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content)));
+
+        StagedObjectDTO staged = repository.uploadUserFileToStorage(filePart).block();
+        assertNotNull(staged);
+        assertEquals(sha256Hex("This is a streamed test file"), staged.getContentHash());
+
+        String stored = s3Client.getObject(
+                        GetObjectRequest.builder()
+                                .bucket(BUCKET_NAME)
+                                .key("test-prefix/" + staged.getObjectName())
+                                .build(),
+                        AsyncResponseTransformer.toBytes())
+                .join()
+                .asUtf8String();
+        assertEquals("This is a streamed test file", stored);
+    }
+
+    @Test
+    void testMultipartUploadFileOfUnknownLengthToStorage() {
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn(TEST_FILE_NAME);
+        when(filePart.headers()).thenReturn(new HttpHeaders());
+        when(filePart.content()).thenReturn(Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap("Part one, ".getBytes(StandardCharsets.UTF_8)),
+                DefaultDataBufferFactory.sharedInstance.wrap("part two".getBytes(StandardCharsets.UTF_8))));
+
+        StagedObjectDTO staged = repository.uploadUserFileToStorage(filePart).block();
+        assertNotNull(staged);
+        assertEquals(sha256Hex("Part one, part two"), staged.getContentHash());
+
+        String stored = s3Client.getObject(
+                        GetObjectRequest.builder()
+                                .bucket(BUCKET_NAME)
+                                .key("test-prefix/" + staged.getObjectName())
+                                .build(),
+                        AsyncResponseTransformer.toBytes())
+                .join()
+                .asUtf8String();
+        assertEquals("Part one, part two", stored);
+    }
+
+    @Test
+    void testPromoteStagedObject() {
+        String content = "Content addressed test file";
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn(TEST_FILE_NAME);
+        when(filePart.headers()).thenReturn(new HttpHeaders());
+        when(filePart.content()).thenReturn(Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8))));
+
+        StagedObjectDTO staged = repository.uploadUserFileToStorage(filePart).block();
+        assertNotNull(staged);
+
+        StepVerifier.create(repository.promoteStagedObject(staged))
+                .assertNext(metadata -> {
+                    assertEquals("content/" + sha256Hex(content), metadata.getStorageKey());
+                    assertEquals(content.length(), metadata.getSize());
+                })
+                .verifyComplete();
+        StepVerifier.create(repository.getFileMetadata(staged.getObjectName()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testPromoteStagedObjectOntoExistingContentKeepsStoredVersion() {
+        String content = "Concurrently uploaded test file";
+        FilePart filePart = mock(FilePart.class);
+        when(filePart.filename()).thenReturn(TEST_FILE_NAME);
+        when(filePart.headers()).thenReturn(new HttpHeaders());
+        when(filePart.content()).thenAnswer(invocation -> Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8))));
+
+        StagedObjectDTO first = repository.uploadUserFileToStorage(filePart).block();
+        StagedObjectDTO second = repository.uploadUserFileToStorage(filePart).block();
+        assertNotNull(first);
+        assertNotNull(second);
+        FileMetadataDTO stored = repository.promoteStagedObject(first).block();
+        assertNotNull(stored);
+
+        StepVerifier.create(repository.promoteStagedObject(second))
+                .assertNext(metadata -> {
+                    assertEquals(stored.getStorageKey(), metadata.getStorageKey());
+                    assertEquals(stored.getEtag(), metadata.getEtag());
+                    assertEquals(stored.getLastModified(), metadata.getLastModified());
                 })
                 .verifyComplete();
+        StepVerifier.create(repository.getFileMetadata(second.getObjectName()))
+                .verifyComplete();
     }
 
     @Test
     void testDownloadFileFromStorage() {
-        Mono<ResponseEntity<Resource>> result = repository.downloadFileFromStorage(TEST_FILE_NAME);
+        Mono<ResponseEntity<Flux<DataBuffer>>> result = repository.downloadFileFromStorage(TEST_FILE_NAME);
 
-        StepVerifier.create(result)
-                .expectNextMatches(responseEntity -> {
+        StepVerifier.create(result.flatMap(responseEntity -> {
                     assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
-                    assertTrue(responseEntity.hasBody());
-                    Resource resource = responseEntity.getBody();
-                    assertNotNull(resource);
-                    try {
-                        String content = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
-                        assertEquals(TEST_FILE_CONTENT, content);
-                    } catch (IOException e) {
-                        fail("Failed to read resource content", e);
-                    }
-                    return true;
+                    assertEquals(TEST_FILE_CONTENT.length(), responseEntity.getHeaders().getContentLength());
+                    assertNotNull(responseEntity.getBody());
+                    return DataBufferUtils.join(responseEntity.getBody())
+                            .map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8));
+                }))
+                .expectNext(TEST_FILE_CONTENT)
+                .verifyComplete();
+    }
+
+    @Test
+    void testParallelDownloadFileFromStorage() {
+        ReflectionTestUtils.setField(parallelDownloader, "enabled", true);
+        ReflectionTestUtils.setField(parallelDownloader, "threshold", DataSize.ofBytes(0));
+        ReflectionTestUtils.setField(parallelDownloader, "partSize", DataSize.ofBytes(4));
+
+        StepVerifier.create(repository.downloadFileFromStorage(TEST_FILE_NAME)
+                        .flatMap(responseEntity -> {
+                            assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+                            assertEquals(TEST_FILE_CONTENT.length(), responseEntity.getHeaders().getContentLength());
+                            return DataBufferUtils.join(responseEntity.getBody())
+                                    .map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8));
+                        }))
+                .expectNext(TEST_FILE_CONTENT)
+                .verifyComplete();
+    }
+
+    @Test
+    void testDownloadFileThroughDiskCache() throws IOException {
+        ReflectionTestUtils.setField(diskObjectCache, "enabled", true);
+        ReflectionTestUtils.setField(diskObjectCache, "directory", Files.createTempDirectory("disk-cache").toString());
+        diskObjectCache.init();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(repository.downloadFileFromStorage(TEST_FILE_NAME)
+                            .flatMap(responseEntity -> DataBufferUtils.join(responseEntity.getBody())
+                                    .map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8))))
+                    .expectNext(TEST_FILE_CONTENT)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void testDownloadFileThroughMemoryCache() {
+        ReflectionTestUtils.setField(memoryObjectCache, "enabled", true);
+        ReflectionTestUtils.setField(memoryObjectCache, "admissionThreshold", 1);
+        ReflectionTestUtils.setField(memoryObjectCache, "ttl", Duration.ZERO);
+        memoryObjectCache.init();
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(repository.downloadFileFromStorage(TEST_FILE_NAME)
+                            .flatMap(responseEntity -> {
+                                assertEquals(TEST_FILE_CONTENT.length(), responseEntity.getHeaders().getContentLength());
+                                return DataBufferUtils.join(responseEntity.getBody())
+                                        .map(dataBuffer -> {
+                                            String body = dataBuffer.toString(StandardCharsets.UTF_8);
+                                            DataBufferUtils.release(dataBuffer);
+                                            return body;
+                                        });
+                            }))
+                    .expectNext(TEST_FILE_CONTENT)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void testDownloadFileRangeFromStorage() {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setRange(List.of(HttpRange.createByteRange(5, 8)));
+
+        StepVerifier.create(repository.downloadFileFromStorage(TEST_FILE_NAME, requestHeaders)
+                        .flatMap(responseEntity -> {
+                            assertEquals(HttpStatus.PARTIAL_CONTENT, responseEntity.getStatusCode());
+                            assertEquals("bytes 5-8/" + TEST_FILE_CONTENT.length(),
+                                    responseEntity.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+                            return DataBufferUtils.join(responseEntity.getBody())
+                                    .map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8));
+                        }))
+                .expectNext(TEST_FILE_CONTENT.substring(5, 9))
+                .verifyComplete();
+    }
+
+    @Test
+    void testDownloadFileMultipleRangesFromStorage() {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setRange(List.of(HttpRange.createByteRange(0, 3), HttpRange.createSuffixRange(7)));
+
+        StepVerifier.create(repository.downloadFileFromStorage(TEST_FILE_NAME, requestHeaders)
+                        .flatMap(responseEntity -> {
+                            assertEquals(HttpStatus.PARTIAL_CONTENT, responseEntity.getStatusCode());
+                            assertEquals("multipart", responseEntity.getHeaders().getContentType().getType());
+                            return DataBufferUtils.join(responseEntity.getBody())
+                                    .map(dataBuffer -> {
+                                        assertEquals(responseEntity.getHeaders().getContentLength(), dataBuffer.readableByteCount());
+                                        return dataBuffer.toString(StandardCharsets.UTF_8);
+                                    });
+                        }))
+                .assertNext(body -> {
+                    assertTrue(body.contains(TEST_FILE_CONTENT.substring(0, 4)));
+                    assertTrue(body.contains(TEST_FILE_CONTENT.substring(TEST_FILE_CONTENT.length() - 7)));
                 })
                 .verifyComplete();
     }
+
+    private static String sha256Hex(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -17,9 +17,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -30,6 +31,7 @@ import org.springframework.security.test.web.reactive.server.SecurityMockServerC
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
@@ -89,7 +91,7 @@ public class FileStorageRestControllerV1MockIT {
                 .uploadDateTime(LocalDateTime.now())
                 .build();
 
-        when(fileStorageService.uploadUserFileToStorage(any(), any())).thenReturn(Mono.just(uploadedFileResponseDTO));
+        when(fileStorageService.uploadUserFileToStorage(any(), any(), any())).thenReturn(Mono.just(uploadedFileResponseDTO));
 
         webTestClient
                 .mutateWith(SecurityMockServerConfigurers.mockAuthentication(authentication))
@@ -108,12 +110,13 @@ public class FileStorageRestControllerV1MockIT {
     @Test
     public void downloadFileByName_WhenSuccessfully_ReturnsFile() {
         String fileName = "testFile.txt";
-        Resource mockFileResource = new ByteArrayResource("File content".getBytes(StandardCharsets.UTF_8));
+        Flux<DataBuffer> mockFileContent = Flux.just(
+                DefaultDataBufferFactory.sharedInstance.wrap("File content".getBytes(StandardCharsets.UTF_8)));
 
-        when(fileStorageService.downloadFileFromStorageByFileNameAndAuth(eq(fileName), any()))
+        when(fileStorageService.downloadFileFromStorageByFileNameAndAuth(eq(fileName), any(), any()))
                 .thenReturn(Mono.just(ResponseEntity.ok()
                         .contentType(MediaType.TEXT_PLAIN)
-                        .body(mockFileResource)));
+                        .body(mockFileContent)));
 
         webTestClient
                 .mutateWith(SecurityMockServerConfigurers.mockAuthentication(authentication))
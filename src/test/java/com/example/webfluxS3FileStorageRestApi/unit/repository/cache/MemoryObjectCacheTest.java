@@ -0,0 +1,63 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.cache;
+
+import com.example.webfluxS3FileStorageRestApi.repository.cache.MemoryObjectCache;
+import com.example.webfluxS3FileStorageRestApi.repository.cache.MemoryObjectCache.CachedBytes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MemoryObjectCacheTest {
+
+    private static final String ETAG = "\"etag\"";
+
+    private final S3AsyncClient s3Client = mock(S3AsyncClient.class);
+    private MemoryObjectCache memoryObjectCache;
+
+    @BeforeEach
+    void init() {
+        memoryObjectCache = new MemoryObjectCache(s3Client, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(memoryObjectCache, "enabled", true);
+        ReflectionTestUtils.setField(memoryObjectCache, "admissionThreshold", 1);
+        memoryObjectCache.init();
+        when(s3Client.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.completedFuture(ResponseBytes.fromByteArray(
+                        GetObjectResponse.builder().eTag(ETAG).build(), new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    void body_TakesItsReferenceOnlyWhenSubscribed() {
+        CachedBytes cachedBytes = memoryObjectCache.load("bucket", "key",
+                HeadObjectResponse.builder().eTag(ETAG).contentLength(3L).build()).block();
+        ByteBuf content = (ByteBuf) ReflectionTestUtils.getField(cachedBytes, "content");
+        assertEquals(1, content.refCnt());
+
+        Flux<?> unsent = cachedBytes.body();
+        assertEquals(1, content.refCnt());
+
+        StepVerifier.create(memoryObjectCache.get("key").orElseThrow().body())
+                .assertNext(buffer -> {
+                    assertEquals(2, content.refCnt());
+                    DataBufferUtils.release(buffer);
+                })
+                .verifyComplete();
+        assertEquals(1, content.refCnt());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.cache;
+
+import com.example.webfluxS3FileStorageRestApi.repository.cache.SingleFlight;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_ConcurrentCallsForSameKey_ShareOneUpstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<String> second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("value"))
+                .assertNext(results -> {
+                    assertEquals("value", results.getT1());
+                    assertEquals("value", results.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_CallAfterFlightFinished_StartsNewUpstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(singleFlight.execute("key", () -> Mono.fromSupplier(() -> "value-" + calls.incrementAndGet())))
+                    .expectNext("value-" + (i + 1))
+                    .verifyComplete();
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_FailedFlight_IsNotRemembered() {
+        StepVerifier.create(singleFlight.execute("key", () -> Mono.error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+
+        StepVerifier.create(singleFlight.execute("key", () -> Mono.just("value")))
+                .expectNext("value")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ContentChecksum;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContentChecksumTest {
+
+    @Test
+    void of_MatchesCrc32cCheckValue() {
+        assertEquals("4waSgw==", ContentChecksum.of("123456789".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void combine_PartChecksumsAddUpToWholeContent() {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+        int[] cuts = {0, 1, 4096, 65_537, content.length};
+
+        String combined = ContentChecksum.of(Arrays.copyOfRange(content, cuts[0], cuts[1]));
+        for (int i = 1; i < cuts.length - 1; i++) {
+            byte[] part = Arrays.copyOfRange(content, cuts[i], cuts[i + 1]);
+            combined = ContentChecksum.combine(combined, ContentChecksum.of(part), part.length);
+        }
+
+        assertEquals(ContentChecksum.of(content), combined);
+    }
+
+    @Test
+    void verify_Mismatch_WithholdsLastBuffer() {
+        StepVerifier.create(ContentChecksum.verify(Flux.just("1234", "56789")
+                                .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.US_ASCII))),
+                        "AAAAAA==")
+                        .map(buffer -> buffer.toString(StandardCharsets.US_ASCII)))
+                .expectNext("1234")
+                .verifyError(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ContentDefinedChunker;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentDefinedChunkerTest {
+
+    private static final int MIN_SIZE = 64;
+    private static final int AVG_SIZE = 256;
+    private static final int MAX_SIZE = 1024;
+
+    @Test
+    void split_ChunksReassembleToContentWithinSizeBounds() {
+        byte[] content = randomBytes(100_000);
+
+        List<byte[]> chunks = split(content, 1000);
+
+        ByteArrayOutputStream reassembled = new ByteArrayOutputStream();
+        chunks.forEach(reassembled::writeBytes);
+        assertArrayEquals(content, reassembled.toByteArray());
+        for (byte[] chunk : chunks.subList(0, chunks.size() - 1)) {
+            assertTrue(chunk.length > MIN_SIZE && chunk.length <= MAX_SIZE, "chunk size " + chunk.length);
+        }
+    }
+
+    @Test
+    void split_BoundariesDoNotDependOnBufferSizes() {
+        byte[] content = randomBytes(100_000);
+
+        List<byte[]> small = split(content, 100);
+        List<byte[]> large = split(content, 7777);
+
+        assertEquals(small.size(), large.size());
+        for (int i = 0; i < small.size(); i++) {
+            assertArrayEquals(small.get(i), large.get(i));
+        }
+    }
+
+    @Test
+    void split_InsertionAtStart_KeepsLaterChunks() {
+        byte[] content = randomBytes(100_000);
+        byte[] edited = new byte[content.length + 10];
+        System.arraycopy(content, 0, edited, 10, content.length);
+
+        Set<ByteBuffer> original = split(content, 4096).stream()
+                .map(ByteBuffer::wrap)
+                .collect(Collectors.toSet());
+        List<byte[]> chunks = split(edited, 4096);
+        long shared = chunks.stream()
+                .map(ByteBuffer::wrap)
+                .filter(original::contains)
+                .count();
+
+        assertTrue(shared >= chunks.size() - 2, shared + " of " + chunks.size() + " chunks shared");
+    }
+
+    @Test
+    void split_EmptyContent_YieldsNoChunks() {
+        StepVerifier.create(ContentDefinedChunker.split(Flux.empty(), MIN_SIZE, AVG_SIZE, MAX_SIZE))
+                .verifyComplete();
+    }
+
+    private static List<byte[]> split(byte[] content, int bufferSize) {
+        Flux<DataBuffer> buffers = Flux.range(0, (content.length + bufferSize - 1) / bufferSize)
+                .map(index -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(content,
+                        index * bufferSize, Math.min(content.length, (index + 1) * bufferSize))));
+        return ContentDefinedChunker.split(buffers, MIN_SIZE, AVG_SIZE, MAX_SIZE)
+                .collectList()
+                .block();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.GzipCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipCodecTest {
+
+    private static final byte[] CONTENT = "id,name,amount\n1,alpha,10\n2,beta,20\n".repeat(2000)
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void compress_ProducesStandardGzip() throws IOException {
+        byte[] compressed = collect(GzipCodec.compress(buffers(CONTENT, 1000), 6));
+
+        assertTrue(compressed.length < CONTENT.length / 10, "compressed to " + compressed.length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(CONTENT, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void decompress_ReadsStandardGzipAcrossBufferBoundaries() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(CONTENT);
+        }
+
+        assertArrayEquals(CONTENT, collect(GzipCodec.decompress(buffers(compressed.toByteArray(), 3))));
+    }
+
+    @Test
+    void decompress_CorruptedContent_Fails() {
+        byte[] compressed = collect(GzipCodec.compress(buffers(CONTENT, 4096), 6));
+        compressed[compressed.length - 6] ^= 1;
+
+        StepVerifier.create(GzipCodec.decompress(buffers(compressed, 4096)))
+                .thenConsumeWhile(buffer -> true)
+                .verifyError(IllegalStateException.class);
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] content, int bufferSize) {
+        return Flux.range(0, (content.length + bufferSize - 1) / bufferSize)
+                .map(index -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(content,
+                        index * bufferSize, Math.min(content.length, (index + 1) * bufferSize))));
+    }
+
+    private static byte[] collect(Flux<DataBuffer> buffers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffers.doOnNext(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    out.writeBytes(bytes);
+                })
+                .blockLast();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ObjectEncryption;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectEncryptionTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    private ObjectEncryption objectEncryption;
+
+    @BeforeEach
+    void init() {
+        byte[] masterKey = new byte[32];
+        new Random(7).nextBytes(masterKey);
+        objectEncryption = new ObjectEncryption();
+        ReflectionTestUtils.setField(objectEncryption, "enabled", true);
+        ReflectionTestUtils.setField(objectEncryption, "masterKeyValue", Base64.getEncoder().encodeToString(masterKey));
+        ReflectionTestUtils.setField(objectEncryption, "segmentSize", DataSize.ofBytes(SEGMENT_SIZE));
+        objectEncryption.init();
+    }
+
+    @Test
+    void init_WithPackingOrChunking_RefusesToStart() {
+        ReflectionTestUtils.setField(objectEncryption, "packingEnabled", true);
+        assertThrows(IllegalStateException.class, objectEncryption::init);
+
+        ReflectionTestUtils.setField(objectEncryption, "packingEnabled", false);
+        ReflectionTestUtils.setField(objectEncryption, "chunkingEnabled", true);
+        assertThrows(IllegalStateException.class, objectEncryption::init);
+    }
+
+    @Test
+    void contentAddress_IsStableAndHidesTheContentHash() {
+        String hash = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+        String address = objectEncryption.contentAddress(hash);
+
+        assertEquals(address, objectEncryption.contentAddress(hash));
+        assertEquals(64, address.length());
+        assertNotEquals(hash, address);
+        assertNotEquals(address, objectEncryption.contentAddress(hash.replace('9', '8')));
+    }
+
+    @Test
+    void encrypt_RoundTripsThroughStoredMetadata() {
+        byte[] content = randomBytes(5000);
+        ObjectEncryption.Envelope envelope = objectEncryption.newEnvelope();
+
+        byte[] ciphertext = collect(envelope.encrypt(buffers(content, 700)));
+
+        assertEquals(envelope.ciphertextLength(content.length), ciphertext.length);
+        ObjectEncryption.Envelope opened = objectEncryption.open(envelope.metadata());
+        assertEquals(content.length, opened.plaintextLength(ciphertext.length));
+        assertArrayEquals(content, collect(opened.decrypt(buffers(ciphertext, 333), 0, content.length - 1, ciphertext.length)));
+    }
+
+    @Test
+    void decrypt_RangeReadsOnlyTouchedSegments() {
+        byte[] content = randomBytes(10 * SEGMENT_SIZE + 100);
+        ObjectEncryption.Envelope envelope = objectEncryption.newEnvelope();
+        byte[] ciphertext = collect(envelope.encrypt(buffers(content, 4096)));
+
+        long[] region = envelope.ciphertextRegion(3000, 4200, ciphertext.length);
+        byte[] stored = Arrays.copyOfRange(ciphertext, (int) region[0], (int) region[1] + 1);
+
+        assertEquals(3 * (SEGMENT_SIZE + 16), stored.length);
+        assertArrayEquals(Arrays.copyOfRange(content, 3000, 4201),
+                collect(envelope.decrypt(buffers(stored, 500), 3000, 4200, ciphertext.length)));
+    }
+
+    @Test
+    void decrypt_EmptyContent_IsOneAuthenticatedSegment() {
+        ObjectEncryption.Envelope envelope = objectEncryption.newEnvelope();
+        byte[] ciphertext = collect(envelope.encrypt(Flux.empty()));
+
+        assertEquals(16, ciphertext.length);
+        assertEquals(0, envelope.plaintextLength(ciphertext.length));
+        assertArrayEquals(new byte[0], collect(envelope.decrypt(buffers(ciphertext, 16), 0, -1, ciphertext.length)));
+    }
+
+    @Test
+    void decrypt_TamperedOrTruncatedContent_Fails() {
+        byte[] content = randomBytes(3 * SEGMENT_SIZE + 10);
+        ObjectEncryption.Envelope envelope = objectEncryption.newEnvelope();
+        byte[] ciphertext = collect(envelope.encrypt(buffers(content, 4096)));
+
+        byte[] tampered = ciphertext.clone();
+        tampered[SEGMENT_SIZE + 40] ^= 1;
+        StepVerifier.create(envelope.decrypt(buffers(tampered, 4096), 0, content.length - 1, tampered.length))
+                .thenConsumeWhile(buffer -> true)
+                .verifyError(IllegalStateException.class);
+
+        byte[] truncated = Arrays.copyOf(ciphertext, 2 * (SEGMENT_SIZE + 16));
+        StepVerifier.create(envelope.decrypt(buffers(truncated, 4096), 0,
+                        envelope.plaintextLength(truncated.length) - 1, truncated.length))
+                .thenConsumeWhile(buffer -> true)
+                .verifyError(IllegalStateException.class);
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] content, int bufferSize) {
+        return Flux.range(0, (content.length + bufferSize - 1) / bufferSize)
+                .map(index -> DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(content,
+                        index * bufferSize, Math.min(content.length, (index + 1) * bufferSize))));
+    }
+
+    private static byte[] collect(Flux<DataBuffer> buffers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffers.doOnNext(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    out.writeBytes(bytes);
+                })
+                .blockLast();
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3MultipartUploader;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class S3MultipartUploaderTest {
+
+    @Test
+    void split_CutsContentIntoFullPartsAndRemainder() throws Exception {
+        Flux<DataBuffer> content = Flux.just(buffer(1, 2, 3), buffer(4, 5), buffer(6, 7, 8, 9, 10));
+
+        StepVerifier.create(split(content, 4))
+                .assertNext(part -> assertArrayEquals(new byte[]{1, 2, 3, 4}, part))
+                .assertNext(part -> assertArrayEquals(new byte[]{5, 6, 7, 8}, part))
+                .assertNext(part -> assertArrayEquals(new byte[]{9, 10}, part))
+                .verifyComplete();
+    }
+
+    @Test
+    void split_ContentOfExactPartSize_HasNoRemainder() throws Exception {
+        StepVerifier.create(split(Flux.just(buffer(1, 2), buffer(3, 4)), 4))
+                .assertNext(part -> assertArrayEquals(new byte[]{1, 2, 3, 4}, part))
+                .verifyComplete();
+    }
+
+    @Test
+    void split_EmptyContent_YieldsSingleEmptyPart() throws Exception {
+        StepVerifier.create(split(Flux.empty(), 4))
+                .assertNext(part -> assertEquals(0, part.length))
+                .verifyComplete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Flux<byte[]> split(Flux<DataBuffer> content, int partSize) throws Exception {
+        Method split = S3MultipartUploader.class.getDeclaredMethod("split", Flux.class, int.class);
+        split.setAccessible(true);
+        return (Flux<byte[]>) split.invoke(null, content, partSize);
+    }
+
+    private static DataBuffer buffer(int... bytes) {
+        byte[] array = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            array[i] = (byte) bytes[i];
+        }
+        return DefaultDataBufferFactory.sharedInstance.wrap(array);
+    }
+}
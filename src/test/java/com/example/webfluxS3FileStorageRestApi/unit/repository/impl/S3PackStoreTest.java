@@ -0,0 +1,100 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.model.PackEntry;
+import com.example.webfluxS3FileStorageRestApi.repository.PackEntryRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.PackRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3PackStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class S3PackStoreTest {
+
+    @TempDir
+    Path packDir;
+
+    private final S3AsyncClient s3Client = mock(S3AsyncClient.class);
+    private final PackEntryRepository packEntryRepository = mock(PackEntryRepository.class);
+    private final Map<Long, PackEntry> entries = new HashMap<>();
+    private S3PackStore packStore;
+
+    @BeforeEach
+    void init() {
+        AtomicLong ids = new AtomicLong();
+        when(packEntryRepository.save(any(PackEntry.class))).thenAnswer(invocation -> {
+            PackEntry entry = invocation.getArgument(0);
+            entry.setId(ids.incrementAndGet());
+            entries.put(entry.getId(), entry);
+            return Mono.just(entry);
+        });
+        when(packEntryRepository.findById(anyLong())).thenAnswer(invocation ->
+                Mono.justOrEmpty(entries.get(invocation.<Long>getArgument(0))));
+
+        packStore = new S3PackStore(s3Client, mock(PackRepository.class), packEntryRepository);
+        ReflectionTestUtils.setField(packStore, "enabled", true);
+        ReflectionTestUtils.setField(packStore, "directory", packDir.toString());
+        ReflectionTestUtils.setField(packStore, "maxFileSize", DataSize.ofBytes(16));
+        packStore.init();
+    }
+
+    @AfterEach
+    void destroy() {
+        packStore.destroy();
+    }
+
+    @Test
+    void appliesTo_OnlySmallFilesOfKnownLength() {
+        assertTrue(packStore.appliesTo(0));
+        assertTrue(packStore.appliesTo(16));
+        assertFalse(packStore.appliesTo(17));
+        assertFalse(packStore.appliesTo(-1));
+    }
+
+    @Test
+    void append_EntriesShareOnePackAndReadBackFromLocalDisk() {
+        StagedObjectDTO first = append("first file");
+        StagedObjectDTO second = append("second");
+
+        assertTrue(S3PackStore.isPacked(first.getObjectName()));
+        PackEntry firstEntry = entries.get(1L);
+        PackEntry secondEntry = entries.get(2L);
+        assertEquals(firstEntry.getPackId(), secondEntry.getPackId());
+        assertEquals(0L, firstEntry.getEntryOffset());
+        assertEquals("first file".length(), secondEntry.getEntryOffset());
+
+        StepVerifier.create(packStore.read(second.getObjectName()))
+                .assertNext(packed -> {
+                    assertEquals("second", new String(packed.content(), StandardCharsets.UTF_8));
+                    assertEquals("\"" + second.getContentHash() + "\"", packed.eTag());
+                })
+                .verifyComplete();
+        verifyNoInteractions(s3Client);
+    }
+
+    private StagedObjectDTO append(String content) {
+        return packStore.append(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8))))
+                .block();
+    }
+}
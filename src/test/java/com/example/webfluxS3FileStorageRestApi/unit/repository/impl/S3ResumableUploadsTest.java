@@ -0,0 +1,125 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.ContentChecksum;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3MultipartUploader;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.S3ResumableUploads;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.TransferAdmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class S3ResumableUploadsTest {
+
+    private final S3AsyncClient s3Client = mock(S3AsyncClient.class);
+    private S3ResumableUploads resumableUploads;
+
+    @BeforeEach
+    void init() {
+        TransferAdmission transferAdmission = new TransferAdmission(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(transferAdmission, "enabled", false);
+        resumableUploads = new S3ResumableUploads(s3Client, new S3MultipartUploader(s3Client), transferAdmission);
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(UploadPartResponse.builder().eTag("\"etag\"").build()));
+    }
+
+    @Test
+    void append_AcknowledgesWholePartsAndDropsUnfinishedRemainder() {
+        StepVerifier.create(resumableUploads.append("bucket", "key", "upload", 4, 4, 16,
+                        Flux.just(buffer(1, 2, 3), buffer(4, 5, 6))))
+                .expectNext(8L)
+                .verifyComplete();
+
+        ArgumentCaptor<UploadPartRequest> request = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client, times(1)).uploadPart(request.capture(), any(AsyncRequestBody.class));
+        assertEquals(2, request.getValue().partNumber());
+        assertEquals(4L, request.getValue().contentLength());
+    }
+
+    @Test
+    void append_StoresShortPartThatEndsTheUpload() {
+        StepVerifier.create(resumableUploads.append("bucket", "key", "upload", 8, 4, 10,
+                        Flux.just(buffer(9, 10))))
+                .expectNext(10L)
+                .verifyComplete();
+
+        ArgumentCaptor<UploadPartRequest> request = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3Client).uploadPart(request.capture(), any(AsyncRequestBody.class));
+        assertEquals(3, request.getValue().partNumber());
+    }
+
+    @Test
+    void append_ContentBeyondUploadLength_IsRejected() {
+        StepVerifier.create(resumableUploads.append("bucket", "key", "upload", 0, 4, 6,
+                        Flux.just(buffer(1, 2, 3, 4), buffer(5, 6, 7, 8))))
+                .expectNext(4L)
+                .expectErrorMatches(error -> error instanceof ResponseStatusException statusException
+                        && statusException.getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    @Test
+    void complete_CombinesPartChecksumsIntoObjectChecksum() {
+        byte[] first = {1, 2, 3, 4};
+        byte[] second = {5, 6};
+        when(s3Client.listParts(any(ListPartsRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                ListPartsResponse.builder()
+                        .isTruncated(false)
+                        .parts(part(1, first), part(2, second))
+                        .build()));
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        StepVerifier.create(resumableUploads.complete("bucket", "key", "upload", 6))
+                .expectNext(ContentChecksum.of(new byte[]{1, 2, 3, 4, 5, 6}))
+                .verifyComplete();
+    }
+
+    @Test
+    void complete_MissingPart_IsConflictAndLeavesUploadOpen() {
+        when(s3Client.listParts(any(ListPartsRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                ListPartsResponse.builder()
+                        .isTruncated(false)
+                        .parts(part(1, new byte[]{1, 2, 3, 4}), part(3, new byte[]{9, 10}))
+                        .build()));
+
+        StepVerifier.create(resumableUploads.complete("bucket", "key", "upload", 10))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException statusException
+                        && statusException.getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    private static Part part(int partNumber, byte[] bytes) {
+        return Part.builder()
+                .partNumber(partNumber)
+                .size((long) bytes.length)
+                .eTag("\"etag-" + partNumber + "\"")
+                .checksumCRC32C(ContentChecksum.of(bytes))
+                .build();
+    }
+
+    private static DataBuffer buffer(int... bytes) {
+        byte[] array = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            array[i] = (byte) bytes[i];
+        }
+        return DefaultDataBufferFactory.sharedInstance.wrap(array);
+    }
+}
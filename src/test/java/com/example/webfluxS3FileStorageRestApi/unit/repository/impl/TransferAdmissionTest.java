@@ -0,0 +1,151 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.exception.TransferRejectedException;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.TransferAdmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferAdmissionTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransferAdmission admission;
+
+    @BeforeEach
+    void init() {
+        admission = new TransferAdmission(meterRegistry);
+        ReflectionTestUtils.setField(admission, "maxInFlight", DataSize.ofBytes(100));
+        ReflectionTestUtils.setField(admission, "maxQueueLength", 1);
+        ReflectionTestUtils.setField(admission, "maxWait", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(admission, "retryAfter", Duration.ofSeconds(3));
+        admission.init();
+    }
+
+    @Test
+    void acquire_QueuesBeyondBudgetUntilBytesAreReleased() {
+        TransferAdmission.Permit first = admission.acquire(60).block();
+        AtomicReference<TransferAdmission.Permit> second = new AtomicReference<>();
+
+        Disposable waiting = admission.acquire(60).subscribe(second::set);
+        assertNull(second.get());
+        assertEquals(1, admission.getQueueDepth());
+
+        first.release();
+        first.release();
+        assertNotNull(second.get());
+        assertEquals(0, admission.getQueueDepth());
+        assertEquals(60, admission.getInFlightBytes());
+        assertEquals(2, meterRegistry.get("s3.transfer.queue.wait").timer().count());
+        waiting.dispose();
+    }
+
+    @Test
+    void acquire_FullQueue_RejectsWithRetryAfter() {
+        admission.acquire(100).block();
+        Disposable waiting = admission.acquire(1).subscribe();
+
+        StepVerifier.create(admission.acquire(1))
+                .expectErrorSatisfies(error -> {
+                    TransferRejectedException rejected = assertInstanceOf(TransferRejectedException.class, error);
+                    assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+                    assertEquals("3", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                })
+                .verify();
+        assertEquals(1.0, meterRegistry.get("s3.transfer.rejected").counter().count());
+        waiting.dispose();
+    }
+
+    @Test
+    void acquire_CancelledWaiter_LeavesQueueWithoutHoldingBytes() {
+        TransferAdmission.Permit first = admission.acquire(100).block();
+
+        admission.acquire(50).subscribe().dispose();
+        assertEquals(0, admission.getQueueDepth());
+
+        first.release();
+        assertEquals(0, admission.getInFlightBytes());
+    }
+
+    @Test
+    void acquire_WaitingTooLong_IsRejected() {
+        ReflectionTestUtils.setField(admission, "maxWait", Duration.ofMillis(50));
+        admission.acquire(100).block();
+
+        StepVerifier.create(admission.acquire(1))
+                .expectError(TransferRejectedException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, admission.getQueueDepth());
+    }
+
+    @Test
+    void acquire_LargerThanBudget_IsChargedTheBudgetOnceEverythingElseHasDrained() {
+        TransferAdmission.Permit small = admission.acquire(10).block();
+        AtomicReference<TransferAdmission.Permit> large = new AtomicReference<>();
+
+        Disposable waiting = admission.acquire(1000).subscribe(large::set);
+        assertNull(large.get());
+        assertEquals(10, admission.getInFlightBytes());
+
+        small.release();
+        assertNotNull(large.get());
+        assertEquals(100, admission.getInFlightBytes());
+        large.get().release();
+        assertEquals(0, admission.getInFlightBytes());
+        waiting.dispose();
+    }
+
+    @Test
+    void admitDownload_PermitShrinksToBodyLengthButNeverGrows() {
+        ReflectionTestUtils.setField(admission, "streamWindow", DataSize.ofBytes(40));
+        HttpHeaders shortBody = new HttpHeaders();
+        shortBody.setContentLength(10);
+        HttpHeaders longBody = new HttpHeaders();
+        longBody.setContentLength(1000);
+
+        ResponseEntity<Flux<DataBuffer>> first = admission.admitDownload(
+                Mono.just(ResponseEntity.ok().headers(shortBody).body(Flux.<DataBuffer>empty()))).block();
+        assertEquals(10, admission.getInFlightBytes());
+        ResponseEntity<Flux<DataBuffer>> second = admission.admitDownload(
+                Mono.just(ResponseEntity.ok().headers(longBody).body(Flux.<DataBuffer>empty()))).block();
+        assertEquals(50, admission.getInFlightBytes());
+
+        first.getBody().blockLast();
+        second.getBody().blockLast();
+        assertEquals(0, admission.getInFlightBytes());
+    }
+
+    @Test
+    void admitDownload_BodyNeverSubscribed_IsReleasedWhenScopeCloses() {
+        TransferAdmission.PermitScope scope = new TransferAdmission.PermitScope();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentLength(30);
+
+        ResponseEntity<Flux<DataBuffer>> response = admission.admitDownload(
+                        Mono.just(ResponseEntity.ok().headers(headers).body(Flux.<DataBuffer>empty())))
+                .contextWrite(Context.of(TransferAdmission.PermitScope.class, scope))
+                .block();
+        assertNotNull(response);
+        assertEquals(30, admission.getInFlightBytes());
+
+        scope.close();
+        assertEquals(0, admission.getInFlightBytes());
+        response.getBody().blockLast();
+        assertEquals(0, admission.getInFlightBytes());
+    }
+}
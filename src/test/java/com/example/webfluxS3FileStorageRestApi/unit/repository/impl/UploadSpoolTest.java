@@ -0,0 +1,94 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.repository.impl.UploadSpool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSpoolTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private UploadSpool uploadSpool;
+
+    @BeforeEach
+    void init() throws IOException {
+        Files.writeString(spoolDir.resolve("spool-orphan.tmp"), "left over");
+        uploadSpool = new UploadSpool();
+        ReflectionTestUtils.setField(uploadSpool, "directory", spoolDir.toString());
+        ReflectionTestUtils.setField(uploadSpool, "memoryThreshold", DataSize.ofBytes(16));
+        ReflectionTestUtils.setField(uploadSpool, "maxDiskUsage", DataSize.ofBytes(64));
+        uploadSpool.init();
+    }
+
+    @Test
+    void init_DeletesOrphanedSpoolFiles() throws IOException {
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void spool_SmallContent_StaysInMemory() throws IOException {
+        UploadSpool.SpooledContent spooled = uploadSpool.spool(content("tiny", " file"), -1).block();
+
+        assertNotNull(spooled);
+        assertTrue(spooled.isInMemory());
+        assertEquals(9, spooled.size());
+        assertEquals(0, countFiles());
+        spooled.release().block();
+    }
+
+    @Test
+    void spool_LargeContent_SpillsToUniqueFiles() throws IOException {
+        UploadSpool.SpooledContent first = uploadSpool.spool(content("0123456789", "0123456789"), -1).block();
+        UploadSpool.SpooledContent second = uploadSpool.spool(content("0123456789", "0123456789"), -1).block();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertFalse(first.isInMemory());
+        assertEquals(20, first.size());
+        assertEquals(2, countFiles());
+        assertEquals(40, uploadSpool.getDiskUsage());
+
+        first.release().block();
+        second.release().block();
+        assertEquals(0, countFiles());
+        assertEquals(0, uploadSpool.getDiskUsage());
+    }
+
+    @Test
+    void spool_OverQuota_FailsAndCleansUp() throws IOException {
+        StepVerifier.create(uploadSpool.spool(content("x".repeat(40), "x".repeat(40)), -1))
+                .expectErrorSatisfies(error -> assertEquals(HttpStatus.INSUFFICIENT_STORAGE,
+                        assertInstanceOf(ResponseStatusException.class, error).getStatusCode()))
+                .verify();
+        assertEquals(0, countFiles());
+        assertEquals(0, uploadSpool.getDiskUsage());
+    }
+
+    private static Flux<DataBuffer> content(String... parts) {
+        return Flux.fromArray(parts)
+                .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes()));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+}
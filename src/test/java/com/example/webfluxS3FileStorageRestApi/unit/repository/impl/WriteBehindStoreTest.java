@@ -0,0 +1,104 @@
+package com.example.webfluxS3FileStorageRestApi.unit.repository.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
+import com.example.webfluxS3FileStorageRestApi.repository.impl.WriteBehindStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindStoreTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private WriteBehindStore writeBehindStore;
+
+    @BeforeEach
+    void init() {
+        writeBehindStore = new WriteBehindStore();
+        ReflectionTestUtils.setField(writeBehindStore, "enabled", true);
+        ReflectionTestUtils.setField(writeBehindStore, "directory", stagingDir.toString());
+        writeBehindStore.init();
+    }
+
+    @Test
+    void write_StoresContentUnderLocalNameAndReportsItsHash() throws Exception {
+        StagedObjectDTO staged = write("first part", " second part");
+
+        assertTrue(WriteBehindStore.isLocal(staged.getObjectName()));
+        assertEquals("first part second part", Files.readString(writeBehindStore.path(staged.getObjectName())));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest("first part second part".getBytes(StandardCharsets.UTF_8))), staged.getContentHash());
+        assertEquals(22L, staged.getSize());
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            assertEquals(1, files.count());
+        }
+
+        StepVerifier.create(writeBehindStore.getMetadata(staged.getObjectName()))
+                .assertNext(metadata -> {
+                    assertEquals(22L, metadata.getSize());
+                    assertEquals(staged.getObjectName(), metadata.getStorageKey());
+                })
+                .verifyComplete();
+        StepVerifier.create(DataBufferUtils.join(writeBehindStore.read(staged.getObjectName()))
+                        .map(dataBuffer -> dataBuffer.toString(StandardCharsets.UTF_8)))
+                .expectNext("first part second part")
+                .verifyComplete();
+    }
+
+    @Test
+    void write_FailedUploadLeavesNoFile() throws IOException {
+        Flux<DataBuffer> content = Flux.concat(
+                Flux.just(DefaultDataBufferFactory.sharedInstance.wrap("partial".getBytes(StandardCharsets.UTF_8))),
+                Flux.error(new IllegalStateException("connection reset")));
+
+        StepVerifier.create(writeBehindStore.write(content))
+                .expectError(IllegalStateException.class)
+                .verify();
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void findIdle_OnlyFilesUntouchedForTheGivenTime() throws IOException {
+        StagedObjectDTO idle = write("idle");
+        StagedObjectDTO recent = write("recent");
+        Files.setLastModifiedTime(writeBehindStore.path(idle.getObjectName()),
+                FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        StepVerifier.create(writeBehindStore.findIdle(Duration.ofHours(1)))
+                .expectNext(idle.getObjectName())
+                .verifyComplete();
+
+        StepVerifier.create(writeBehindStore.delete(idle.getObjectName())
+                        .then(writeBehindStore.getMetadata(idle.getObjectName())))
+                .verifyComplete();
+        assertTrue(Files.exists(writeBehindStore.path(recent.getObjectName())));
+    }
+
+    private StagedObjectDTO write(String... parts) {
+        return writeBehindStore.write(Flux.fromArray(parts)
+                        .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.UTF_8))))
+                .block();
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.webfluxS3FileStorageRestApi.unit.service.impl;
 
+import com.example.webfluxS3FileStorageRestApi.dto.BatchUploadResultDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadCompleteRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.PresignedUploadRequestDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.StagedObjectDTO;
 import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
 import com.example.webfluxS3FileStorageRestApi.model.Event;
 import com.example.webfluxS3FileStorageRestApi.model.File;
 import com.example.webfluxS3FileStorageRestApi.model.UserEntity;
 import com.example.webfluxS3FileStorageRestApi.repository.EventRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileBatchRepository;
 import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
 import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
 import com.example.webfluxS3FileStorageRestApi.security.CustomPrincipal;
@@ -15,18 +21,39 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,11 +66,17 @@ class FileStorageServiceImplTest {
     @Mock
     private EventRepository eventRepository;
     @Mock
+    private FileBatchRepository fileBatchRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
     private Authentication authentication;
 
     @InjectMocks
     private FileStorageServiceImpl fileStorageService;
 
+    private static final String CONTENT_HASH = "a".repeat(64);
+
     @Test
     void uploadUserFileToStorageTest() {
         Long userId = 1L;
@@ -57,37 +90,409 @@ class FileStorageServiceImplTest {
                 .build();
 
         Event event = new Event();
-        UploadedFileResponseDTO uploadedFileResponseDTO = new UploadedFileResponseDTO(fileName, LocalDateTime.now());
+        StagedObjectDTO stagedObject = new StagedObjectDTO("staging/uuid", CONTENT_HASH, 3L);
 
         when(filePart.filename()).thenReturn(fileName);
         when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
         Mono<Authentication> authMono = Mono.just(authentication);
 
+        when(fileStorageRepository.newStagingKey()).thenReturn("staging/uuid");
         when(fileRepository.save(any(File.class))).thenReturn(Mono.just(file));
         when(eventRepository.save(any(Event.class))).thenReturn(Mono.just(event));
-        when(fileStorageRepository.uploadUserFileToStorage(filePart)).thenReturn(Mono.just(uploadedFileResponseDTO));
+        when(fileStorageRepository.uploadUserFileToStorage(filePart, "staging/uuid")).thenReturn(Mono.just(stagedObject));
+        when(fileRepository.findLatestActiveByContentHash(CONTENT_HASH)).thenReturn(Mono.empty());
+        when(fileStorageRepository.promoteStagedObject(stagedObject)).thenReturn(Mono.just(
+                new FileMetadataDTO("content/" + CONTENT_HASH, "\"etag\"", 3L, Instant.now())));
+        when(fileRepository.activateStored(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(fileStorageService.uploadUserFileToStorage(filePart, authMono))
+                .expectNextMatches(response -> fileName.equals(response.getFileName()))
+                .verifyComplete();
+        verify(fileRepository).save(argThat((File saved) -> "staging/uuid".equals(saved.getStorageKey())));
+        verify(fileRepository).activateStored(any(), eq("content/" + CONTENT_HASH), eq(CONTENT_HASH), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void uploadDuplicateUserFileToStorageTest() {
+        Long userId = 1L;
+        String fileName = "copy.txt";
+        String storageKey = "content/" + CONTENT_HASH;
+        FilePart filePart = Mockito.mock(FilePart.class);
+
+        File file = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .build();
+        File existing = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/original.txt")
+                .storageKey(storageKey)
+                .contentHash(CONTENT_HASH)
+                .etag("\"etag\"")
+                .size(3L)
+                .checksumCrc32c("4waSgw==")
+                .lastModified(LocalDateTime.now())
+                .build();
+        StagedObjectDTO stagedObject = new StagedObjectDTO("staging/uuid", CONTENT_HASH, 3L);
+
+        when(filePart.filename()).thenReturn(fileName);
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.save(any(File.class))).thenReturn(Mono.just(file));
+        when(eventRepository.save(any(Event.class))).thenReturn(Mono.just(new Event()));
+        when(fileStorageRepository.uploadUserFileToStorage(eq(filePart), any())).thenReturn(Mono.just(stagedObject));
+        when(fileRepository.findLatestActiveByContentHash(CONTENT_HASH)).thenReturn(Mono.just(existing));
+        when(fileStorageRepository.deleteStagedObject(stagedObject)).thenReturn(Mono.empty());
+        when(fileRepository.activateStored(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(fileStorageService.uploadUserFileToStorage(filePart, authMono))
+                .expectNextMatches(response -> fileName.equals(response.getFileName()))
+                .verifyComplete();
+        verify(fileStorageRepository, never()).promoteStagedObject(any());
+        verify(fileRepository).activateStored(any(), eq(storageKey), eq(CONTENT_HASH), any(), eq("4waSgw=="),
+                eq("\"etag\""), eq(3L), any());
+    }
+
+    @Test
+    void uploadUserFileToStorageFailedTransferTest() {
+        Long userId = 1L;
+        Long fileId = 10L;
+        String fileName = "testFile.txt";
+        FilePart filePart = Mockito.mock(FilePart.class);
+
+        File file = File.builder()
+                .id(fileId)
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .build();
+
+        when(filePart.filename()).thenReturn(fileName);
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.save(any(File.class))).thenReturn(Mono.just(file));
+        when(eventRepository.save(any(Event.class))).thenReturn(Mono.just(new Event()));
+        when(fileStorageRepository.uploadUserFileToStorage(eq(filePart), any())).thenReturn(Mono.error(new IllegalStateException()));
+        when(fileRepository.deletePendingById(fileId)).thenReturn(Mono.just(1));
+        when(eventRepository.deleteAllActiveByFileId(fileId)).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         StepVerifier.create(fileStorageService.uploadUserFileToStorage(filePart, authMono))
-                .expectNext(uploadedFileResponseDTO)
+                .verifyError(IllegalStateException.class);
+        verify(fileRepository).deletePendingById(fileId);
+        verify(eventRepository).deleteAllActiveByFileId(fileId);
+    }
+
+    @Test
+    void uploadUserFilesToStorageTest() {
+        Long userId = 1L;
+        FilePart uploaded = Mockito.mock(FilePart.class);
+        FilePart failed = Mockito.mock(FilePart.class);
+        StagedObjectDTO stagedObject = new StagedObjectDTO("staging/uuid", CONTENT_HASH, 3L);
+
+        when(uploaded.filename()).thenReturn("uploaded.txt");
+        when(failed.filename()).thenReturn("failed.txt");
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileBatchRepository.insertPendingFiles(anyList(), anyList())).thenReturn(Flux.just(10L, 11L));
+        when(fileBatchRepository.insertEvents(userId, List.of(10L, 11L))).thenReturn(Mono.empty());
+        when(fileStorageRepository.uploadUserFileToStorage(eq(uploaded), any())).thenReturn(Mono.just(stagedObject));
+        when(fileStorageRepository.uploadUserFileToStorage(eq(failed), any())).thenReturn(Mono.error(new IllegalStateException("boom")));
+        when(fileRepository.findLatestActiveByContentHash(CONTENT_HASH)).thenReturn(Mono.empty());
+        when(fileStorageRepository.promoteStagedObject(stagedObject)).thenReturn(Mono.just(
+                new FileMetadataDTO("content/" + CONTENT_HASH, "\"etag\"", 3L, Instant.now())));
+        when(fileRepository.activateStored(eq(10L), any(), any(), any(), any(), any(), any(), any())).thenReturn(Mono.just(1));
+        when(fileRepository.deletePendingById(11L)).thenReturn(Mono.just(1));
+        when(eventRepository.deleteAllActiveByFileId(11L)).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(fileStorageService.uploadUserFilesToStorage(Flux.just(uploaded, failed), authMono)
+                        .collectList())
+                .assertNext(results -> {
+                    assertEquals(2, results.size());
+                    BatchUploadResultDTO first = results.stream()
+                            .filter(result -> result.getFileName().equals("uploaded.txt"))
+                            .findFirst().orElseThrow();
+                    BatchUploadResultDTO second = results.stream()
+                            .filter(result -> result.getFileName().equals("failed.txt"))
+                            .findFirst().orElseThrow();
+                    assertEquals(BatchUploadResultDTO.Result.UPLOADED, first.getResult());
+                    assertEquals(BatchUploadResultDTO.Result.FAILED, second.getResult());
+                    assertEquals("boom", second.getError());
+                })
                 .verifyComplete();
+        verify(fileRepository, never()).save(any(File.class));
+        verify(fileRepository).deletePendingById(11L);
     }
 
     @Test
     void downloadUserFileFromStorageTest() {
         String fileName = "testFile.txt";
-        Resource resource = Mockito.mock(Resource.class);
+        Flux<DataBuffer> body = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{1, 2, 3}));
         Long userId = 1L;
 
         when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
         Mono<Authentication> authMono = Mono.just(authentication);
 
-        when(fileStorageRepository.downloadFileFromStorage(fileName))
-                .thenReturn(Mono.just(ResponseEntity.ok().body(resource)));
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.empty());
+        when(fileStorageRepository.downloadFileFromStorage(fileName, HttpHeaders.EMPTY))
+                .thenReturn(Mono.just(ResponseEntity.ok().body(body)));
 
-        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, authMono))
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, authMono))
                 .expectNextMatches(response ->
                         response.getStatusCode() == HttpStatus.OK &&
-                        Objects.equals(response.getBody(), resource))
+                        Objects.equals(response.getBody(), body))
+                .verifyComplete();
+    }
+
+    @Test
+    void downloadSameFileNameOfTwoUsersTest() {
+        String fileName = "report.pdf";
+        File firstUsersFile = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey("content/" + "a".repeat(64))
+                .build();
+        File secondUsersFile = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey("content/" + "b".repeat(64))
+                .build();
+        Authentication secondUser = Mockito.mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(1L, "first"));
+        when(secondUser.getPrincipal()).thenReturn(new CustomPrincipal(2L, "second"));
+        Mockito.doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"))).when(authentication).getAuthorities();
+        Mockito.doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"))).when(secondUser).getAuthorities();
+        when(fileRepository.findLatestActiveByFileNameAndUserId(fileName, 1L)).thenReturn(Mono.just(firstUsersFile));
+        when(fileRepository.findLatestActiveByFileNameAndUserId(fileName, 2L)).thenReturn(Mono.just(secondUsersFile));
+        when(fileStorageRepository.downloadFileFromStorage(any(), any()))
+                .thenAnswer(invocation -> Mono.just(ResponseEntity.ok().body(Flux.just(DefaultDataBufferFactory.sharedInstance
+                        .wrap(invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8))))));
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, Mono.just(authentication))
+                        .flatMapMany(ResponseEntity::getBody)
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNext(firstUsersFile.getStorageKey())
+                .verifyComplete();
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, Mono.just(secondUser))
+                        .flatMapMany(ResponseEntity::getBody)
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNext(secondUsersFile.getStorageKey())
+                .verifyComplete();
+        verify(fileRepository, never()).findLatestActiveByFileName(any());
+    }
+
+    @Test
+    void downloadFileNameOwnedOnlyByAnotherUserTest() {
+        String fileName = "report.pdf";
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(2L, "second"));
+        Mockito.doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"))).when(authentication).getAuthorities();
+        when(fileRepository.findLatestActiveByFileNameAndUserId(fileName, 2L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, Mono.just(authentication)))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException statusException
+                        && statusException.getStatusCode() == HttpStatus.NOT_FOUND)
+                .verify();
+        verify(fileRepository, never()).findLatestActiveByFileName(any());
+        verifyNoInteractions(fileStorageRepository);
+    }
+
+    @Test
+    void downloadCompressedUserFileFromStorageTest() throws IOException {
+        String fileName = "report.csv";
+        String storageKey = "content/" + CONTENT_HASH + ".gz";
+        File file = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey(storageKey)
+                .contentEncoding("gzip")
+                .build();
+        ByteArrayOutputStream compressedOut = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressedOut)) {
+            gzip.write("a,b,c".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] compressed = compressedOut.toByteArray();
+        HttpHeaders storedHeaders = new HttpHeaders();
+        storedHeaders.setContentLength(compressed.length);
+        storedHeaders.setETag("\"etag\"");
+        HttpHeaders acceptsGzip = new HttpHeaders();
+        acceptsGzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(1L, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.just(file));
+        when(fileStorageRepository.downloadFileFromStorage(eq(storageKey), any()))
+                .thenAnswer(invocation -> Mono.just(ResponseEntity.ok()
+                        .headers(storedHeaders)
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(compressed)))));
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, acceptsGzip, authMono))
+                .assertNext(response -> {
+                    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+                    assertEquals(compressed.length, response.getHeaders().getContentLength());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, authMono)
+                        .flatMapMany(ResponseEntity::getBody)
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                        .collect(Collectors.joining()))
+                .expectNext("a,b,c")
+                .verifyComplete();
+    }
+
+    @Test
+    void downloadCorruptedUserFileFromStorageTest() {
+        String fileName = "numbers.txt";
+        String storageKey = "content/" + CONTENT_HASH;
+        File file = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey(storageKey)
+                .checksumCrc32c("4waSgw==")
+                .build();
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(1L, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.just(file));
+        when(fileStorageRepository.downloadFileFromStorage(eq(storageKey), any()))
+                .thenReturn(Mono.just(ResponseEntity.ok().body(Flux.just("1234", "56789")
+                        .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.UTF_8))))))
+                .thenReturn(Mono.just(ResponseEntity.ok().body(Flux.just("1234", "56780")
+                        .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.UTF_8))))));
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, authMono)
+                        .flatMapMany(ResponseEntity::getBody)
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNext("1234", "56789")
+                .verifyComplete();
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, HttpHeaders.EMPTY, authMono)
+                        .flatMapMany(ResponseEntity::getBody)
+                        .map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNext("1234")
+                .verifyError(IllegalStateException.class);
+    }
+
+    @Test
+    void downloadUnmodifiedUserFileFromStorageTest() {
+        String fileName = "testFile.txt";
+        String etag = "\"etag\"";
+        Long userId = 1L;
+        File file = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .etag(etag)
+                .lastModified(LocalDateTime.now())
+                .build();
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setIfNoneMatch(etag);
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.just(file));
+
+        StepVerifier.create(fileStorageService.downloadFileFromStorageByFileNameAndAuth(fileName, requestHeaders, authMono))
+                .expectNextMatches(response ->
+                        response.getStatusCode() == HttpStatus.NOT_MODIFIED &&
+                        etag.equals(response.getHeaders().getETag()) &&
+                        response.getBody() == null)
+                .verifyComplete();
+        verifyNoInteractions(fileStorageRepository);
+    }
+
+    @Test
+    void redirectToPresignedDownloadTest() {
+        String fileName = "testFile.txt";
+        URI presignedUrl = URI.create("https://bucket-name.s3.amazonaws.com/prefix/testFile.txt?X-Amz-Signature=abc");
+        Long userId = 1L;
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.empty());
+        when(fileStorageRepository.presignDownload(fileName, fileName)).thenReturn(Mono.just(presignedUrl));
+
+        StepVerifier.create(fileStorageService.redirectToPresignedDownload(fileName, authMono))
+                .expectNextMatches(response ->
+                        response.getStatusCode() == HttpStatus.FOUND &&
+                        presignedUrl.equals(response.getHeaders().getLocation()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getUploadStatusOfStagedFileTest() {
+        String fileName = "testFile.txt";
+        Long userId = 1L;
+        File file = File.builder()
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey("local/uuid")
+                .build();
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.findLatestActiveByFileName(fileName)).thenReturn(Mono.just(file));
+
+        StepVerifier.create(fileStorageService.getUploadStatus(fileName, authMono))
+                .expectNextMatches(response -> fileName.equals(response.getFileName())
+                        && response.getStorageStatus() == UploadedFileResponseDTO.StorageStatus.STAGED)
+                .verifyComplete();
+        verifyNoInteractions(fileStorageRepository);
+    }
+
+    @Test
+    void createPresignedUploadRejectedByStorageDiscardsPendingFileTest() {
+        String fileName = "testFile.txt";
+        Long userId = 1L;
+        File file = File.builder()
+                .id(7L)
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .build();
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(fileRepository.save(any(File.class))).thenReturn(Mono.just(file));
+        when(eventRepository.save(any(Event.class))).thenReturn(Mono.just(new Event()));
+        when(fileStorageRepository.newUploadKey()).thenReturn("uploads/uuid");
+        when(fileStorageRepository.createPresignedUpload(eq("uploads/uuid"), eq(fileName), any(), any()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST)));
+        when(fileRepository.deletePendingById(7L)).thenReturn(Mono.just(1));
+        when(eventRepository.deleteAllActiveByFileId(7L)).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(fileStorageService.createPresignedUpload(
+                        new PresignedUploadRequestDTO(fileName, -1L, "text/plain"), authMono))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException statusException
+                        && statusException.getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verify(fileRepository).deletePendingById(7L);
+        verify(eventRepository).deleteAllActiveByFileId(7L);
+    }
+
+    @Test
+    void completePresignedUploadActivatesFileOnItsUploadKeyTest() {
+        String fileName = "testFile.txt";
+        Long userId = 1L;
+        File file = File.builder()
+                .id(7L)
+                .location("https://bucket-name.s3.amazonaws.com/" + fileName)
+                .storageKey("uploads/uuid")
+                .build();
+
+        when(authentication.getPrincipal()).thenReturn(new CustomPrincipal(userId, "username"));
+        Mono<Authentication> authMono = Mono.just(authentication);
+
+        when(eventRepository.findActiveByFileIdAndUserId(7L, userId)).thenReturn(Mono.just(new Event()));
+        when(fileRepository.findPendingById(7L)).thenReturn(Mono.just(file));
+        when(fileStorageRepository.completePresignedUpload("uploads/uuid", null, null)).thenReturn(Mono.just(
+                new FileMetadataDTO("uploads/uuid", "\"etag\"", 3L, Instant.now())));
+        when(fileRepository.activateStored(eq(7L), eq("uploads/uuid"), any(), any(), any(), eq("\"etag\""), eq(3L), any()))
+                .thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(fileStorageService.completePresignedUpload(7L,
+                        new PresignedUploadCompleteRequestDTO(null, null), authMono))
+                .expectNextMatches(response -> fileName.equals(response.getFileName()))
                 .verifyComplete();
+        verify(fileStorageRepository, never()).completePresignedUpload(eq(fileName), any(), any());
     }
 }
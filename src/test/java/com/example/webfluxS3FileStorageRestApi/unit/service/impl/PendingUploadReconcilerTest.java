@@ -0,0 +1,98 @@
+package com.example.webfluxS3FileStorageRestApi.unit.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.FileMetadataDTO;
+import com.example.webfluxS3FileStorageRestApi.model.File;
+import com.example.webfluxS3FileStorageRestApi.repository.EventRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileRepository;
+import com.example.webfluxS3FileStorageRestApi.repository.FileStorageRepository;
+import com.example.webfluxS3FileStorageRestApi.service.impl.PendingUploadReconciler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingUploadReconcilerTest {
+
+    @Mock
+    private FileRepository fileRepository;
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private FileStorageRepository fileStorageRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @InjectMocks
+    private PendingUploadReconciler reconciler;
+
+    @Test
+    void reconcile_StagedObjectFound_ActivatesFileOnStagingKey() {
+        File file = File.builder()
+                .id(7L)
+                .location("https://bucket-name.s3.amazonaws.com/report.pdf")
+                .storageKey("staging/uuid")
+                .build();
+        when(fileRepository.findAllPendingOlderThan(anyLong())).thenReturn(Flux.just(file));
+        when(fileStorageRepository.getFileMetadata("staging/uuid"))
+                .thenReturn(Mono.just(new FileMetadataDTO("staging/uuid", "\"etag\"", 3L, Instant.now())));
+        when(fileStorageRepository.getStoredChecksum("staging/uuid")).thenReturn(Mono.just("4waSgw=="));
+        when(fileRepository.activateStored(eq(7L), eq("staging/uuid"), any(), any(), eq("4waSgw=="), eq("\"etag\""), eq(3L), any()))
+                .thenReturn(Mono.just(1));
+
+        StepVerifier.create(reconciler.reconcilePendingUploads())
+                .verifyComplete();
+        verify(fileStorageRepository, never()).getFileMetadata("report.pdf");
+        verify(fileRepository, never()).deletePendingById(any());
+    }
+
+    @Test
+    void reconcile_StagedObjectMissing_DiscardsFile() {
+        File file = File.builder()
+                .id(7L)
+                .location("https://bucket-name.s3.amazonaws.com/report.pdf")
+                .storageKey("staging/uuid")
+                .build();
+        when(fileRepository.findAllPendingOlderThan(anyLong())).thenReturn(Flux.just(file));
+        when(fileStorageRepository.getFileMetadata("staging/uuid")).thenReturn(Mono.empty());
+        when(fileRepository.deletePendingById(7L)).thenReturn(Mono.just(1));
+        when(eventRepository.deleteAllActiveByFileId(7L)).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(reconciler.reconcilePendingUploads())
+                .verifyComplete();
+        verify(fileStorageRepository, never()).getFileMetadata("report.pdf");
+        verify(eventRepository).deleteAllActiveByFileId(7L);
+    }
+
+    @Test
+    void reconcile_FileWithoutStorageKey_IsNotMatchedByName() {
+        File file = File.builder()
+                .id(7L)
+                .location("https://bucket-name.s3.amazonaws.com/report.pdf")
+                .build();
+        when(fileRepository.findAllPendingOlderThan(anyLong())).thenReturn(Flux.just(file));
+        when(fileRepository.deletePendingById(7L)).thenReturn(Mono.just(1));
+        when(eventRepository.deleteAllActiveByFileId(7L)).thenReturn(Mono.just(1));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        StepVerifier.create(reconciler.reconcilePendingUploads())
+                .verifyComplete();
+        verifyNoInteractions(fileStorageRepository);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.webfluxS3FileStorageRestApi.unit.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.model.UploadIdempotency;
+import com.example.webfluxS3FileStorageRestApi.repository.UploadIdempotencyRepository;
+import com.example.webfluxS3FileStorageRestApi.service.impl.UploadIdempotencyGuard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadIdempotencyGuardTest {
+
+    private static final String KEY = "3f2c9a7e-upload";
+
+    @Mock
+    private UploadIdempotencyRepository uploadIdempotencyRepository;
+
+    @InjectMocks
+    private UploadIdempotencyGuard guard;
+
+    @Test
+    void execute_ConcurrentRetryAttachesToUploadInFlight() {
+        Sinks.One<UploadedFileResponseDTO> transfer = Sinks.one();
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<UploadedFileResponseDTO> upload = transfer.asMono().doOnSubscribe(subscription -> subscriptions.incrementAndGet());
+        when(uploadIdempotencyRepository.insertIgnore(eq(1L), eq(KEY), eq("report.pdf"), any())).thenReturn(Mono.just(1));
+        when(uploadIdempotencyRepository.complete(eq(1L), eq(KEY), eq("STORED"), any())).thenReturn(Mono.just(1));
+
+        CompletableFuture<UploadedFileResponseDTO> first = guard.execute(1L, KEY, "report.pdf", upload).toFuture();
+        CompletableFuture<UploadedFileResponseDTO> retry = guard.execute(1L, KEY, "report.pdf", upload).toFuture();
+        transfer.tryEmitValue(new UploadedFileResponseDTO("report.pdf", LocalDateTime.now()));
+
+        assertEquals("report.pdf", first.join().getFileName());
+        assertSame(first.join(), retry.join());
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    void execute_CompletedKeyReplaysStoredResult() {
+        LocalDateTime uploadedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(uploadIdempotencyRepository.insertIgnore(eq(1L), eq(KEY), eq("report.pdf"), any())).thenReturn(Mono.just(0));
+        when(uploadIdempotencyRepository.findByUserIdAndIdempotencyKey(1L, KEY)).thenReturn(Mono.just(UploadIdempotency.builder()
+                .userId(1L)
+                .idempotencyKey(KEY)
+                .fileName("report.pdf")
+                .status(UploadIdempotency.State.COMPLETED)
+                .storageStatus("STAGED")
+                .uploadDateTime(uploadedAt)
+                .createdAt(LocalDateTime.now(ZoneOffset.UTC))
+                .build()));
+
+        StepVerifier.create(guard.execute(1L, KEY, "report.pdf", Mono.error(new IllegalStateException("must not run"))))
+                .assertNext(response -> {
+                    assertEquals(uploadedAt, response.getUploadDateTime());
+                    assertEquals(UploadedFileResponseDTO.StorageStatus.STAGED, response.getStorageStatus());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentFile_Returns422() {
+        when(uploadIdempotencyRepository.insertIgnore(eq(1L), eq(KEY), eq("other.pdf"), any())).thenReturn(Mono.just(0));
+        when(uploadIdempotencyRepository.findByUserIdAndIdempotencyKey(1L, KEY)).thenReturn(Mono.just(UploadIdempotency.builder()
+                .idempotencyKey(KEY)
+                .fileName("report.pdf")
+                .status(UploadIdempotency.State.COMPLETED)
+                .createdAt(LocalDateTime.now(ZoneOffset.UTC))
+                .build()));
+
+        StepVerifier.create(guard.execute(1L, KEY, "other.pdf", Mono.empty()))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException statusException
+                        && statusException.getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY)
+                .verify();
+    }
+
+    @Test
+    void execute_FailedUploadReleasesKey() {
+        when(uploadIdempotencyRepository.insertIgnore(eq(1L), eq(KEY), eq("report.pdf"), any())).thenReturn(Mono.just(1));
+        when(uploadIdempotencyRepository.deleteInProgress(1L, KEY)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(guard.execute(1L, KEY, "report.pdf", Mono.error(new IllegalStateException("S3 unavailable"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        verify(uploadIdempotencyRepository, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void execute_AttachedRetryRunsItsOwnUploadWhenTheFirstFails() {
+        Sinks.One<UploadedFileResponseDTO> abandoned = Sinks.one();
+        when(uploadIdempotencyRepository.insertIgnore(eq(1L), eq(KEY), eq("report.pdf"), any())).thenReturn(Mono.just(1));
+        when(uploadIdempotencyRepository.deleteInProgress(1L, KEY)).thenReturn(Mono.just(1));
+        when(uploadIdempotencyRepository.complete(eq(1L), eq(KEY), any(), any())).thenReturn(Mono.just(1));
+
+        CompletableFuture<UploadedFileResponseDTO> first = guard.execute(1L, KEY, "report.pdf", abandoned.asMono()).toFuture();
+        CompletableFuture<UploadedFileResponseDTO> retry = guard.execute(1L, KEY, "report.pdf",
+                Mono.just(new UploadedFileResponseDTO("report.pdf", LocalDateTime.now()))).toFuture();
+        abandoned.tryEmitError(new IllegalStateException("connection closed"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals("report.pdf", retry.join().getFileName());
+        verify(uploadIdempotencyRepository, times(2)).insertIgnore(eq(1L), eq(KEY), eq("report.pdf"), any());
+    }
+}
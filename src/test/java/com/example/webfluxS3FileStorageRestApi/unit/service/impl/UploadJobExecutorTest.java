@@ -0,0 +1,87 @@
+package com.example.webfluxS3FileStorageRestApi.unit.service.impl;
+
+import com.example.webfluxS3FileStorageRestApi.dto.UploadJobDTO;
+import com.example.webfluxS3FileStorageRestApi.dto.UploadedFileResponseDTO;
+import com.example.webfluxS3FileStorageRestApi.exception.TransferRejectedException;
+import com.example.webfluxS3FileStorageRestApi.service.impl.UploadJobExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadJobExecutorTest {
+
+    private UploadJobExecutor executor;
+
+    @BeforeEach
+    void init() {
+        executor = new UploadJobExecutor();
+        ReflectionTestUtils.setField(executor, "workers", 1);
+        ReflectionTestUtils.setField(executor, "maxActiveJobs", 2);
+        ReflectionTestUtils.setField(executor, "progressInterval", Duration.ofMillis(10));
+        executor.init();
+    }
+
+    @AfterEach
+    void destroy() {
+        executor.destroy();
+    }
+
+    @Test
+    void start_JobsBeyondWorkersWaitInQueue() {
+        Sinks.One<UploadedFileResponseDTO> firstTransfer = Sinks.one();
+        UploadJobExecutor.UploadJob first = executor.create("first.txt", 1L);
+        UploadJobExecutor.UploadJob second = executor.create("second.txt", 1L);
+
+        executor.start(first, 3, first.track(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{1, 2})))
+                .then(firstTransfer.asMono()));
+        executor.start(second, 1, Mono.just(new UploadedFileResponseDTO("second.txt", LocalDateTime.now())));
+
+        UploadJobDTO running = first.snapshot();
+        assertEquals(UploadJobDTO.State.TRANSFERRING, running.getState());
+        assertEquals(2, running.getBytesTransferred());
+        assertEquals(UploadJobDTO.State.QUEUED, second.snapshot().getState());
+
+        firstTransfer.tryEmitValue(new UploadedFileResponseDTO("first.txt", LocalDateTime.now()));
+        assertEquals(UploadJobDTO.State.COMPLETED, first.snapshot().getState());
+        assertEquals(3, first.snapshot().getBytesTransferred());
+        assertEquals(UploadJobDTO.State.COMPLETED, second.snapshot().getState());
+        assertEquals(UploadedFileResponseDTO.StorageStatus.STORED, second.snapshot().getStorageStatus());
+    }
+
+    @Test
+    void create_AllSlotsTaken_RejectsWithRetryAfter() {
+        executor.create("first.txt", 1L);
+        UploadJobExecutor.UploadJob second = executor.create("second.txt", 1L);
+
+        assertThrows(TransferRejectedException.class, () -> executor.create("third.txt", 1L));
+
+        executor.abandon(second);
+        assertNotNull(executor.create("third.txt", 1L));
+    }
+
+    @Test
+    void progress_EndsWithFailedStateAndError() {
+        UploadJobExecutor.UploadJob job = executor.create("broken.txt", 1L);
+        executor.start(job, 10, Mono.error(new IllegalStateException("S3 unavailable")));
+
+        StepVerifier.create(executor.progress(job).last())
+                .assertNext(snapshot -> {
+                    assertEquals(UploadJobDTO.State.FAILED, snapshot.getState());
+                    assertEquals("S3 unavailable", snapshot.getError());
+                })
+                .verifyComplete();
+        assertTrue(executor.find(job.getId(), 1L).isPresent());
+        assertTrue(executor.find(job.getId(), 2L).isEmpty());
+    }
+}
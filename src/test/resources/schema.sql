@@ -14,7 +14,17 @@ CREATE TABLE IF NOT EXISTS users (
 CREATE TABLE IF NOT EXISTS file (
     id        BIGINT AUTO_INCREMENT PRIMARY KEY,
     location  VARCHAR(255) NOT NULL,
-    status    ENUM('ACTIVE', 'DELETED') NOT NULL DEFAULT 'ACTIVE'
+    status    ENUM('ACTIVE', 'DELETED', 'PENDING') NOT NULL DEFAULT 'ACTIVE',
+    etag          VARCHAR(128),
+    size          BIGINT,
+    last_modified TIMESTAMP NULL,
+    created_at    TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    storage_key   VARCHAR(512),
+    content_hash  CHAR(64),
+    content_encoding VARCHAR(32),
+    checksum_crc32c  VARCHAR(16),
+    INDEX idx_file_content_hash (content_hash),
+    INDEX idx_file_storage_key (storage_key)
 );
 
 CREATE TABLE IF NOT EXISTS event (
@@ -26,3 +36,72 @@ CREATE TABLE IF NOT EXISTS event (
      FOREIGN KEY (file_id) REFERENCES file(id),
      UNIQUE (user_id, file_id)
 );
+
+CREATE TABLE IF NOT EXISTS chunk (
+    hash CHAR(64) PRIMARY KEY,
+    size INT      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS chunk_manifest (
+    id           CHAR(36)  PRIMARY KEY,
+    content_hash CHAR(64)  NOT NULL,
+    size         BIGINT    NOT NULL,
+    created_at   TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS file_chunk (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    manifest_id  CHAR(36) NOT NULL,
+    seq          INT      NOT NULL,
+    chunk_hash   CHAR(64) NOT NULL,
+    chunk_offset BIGINT   NOT NULL,
+    size         INT      NOT NULL,
+    UNIQUE (manifest_id, seq),
+    FOREIGN KEY (manifest_id) REFERENCES chunk_manifest(id),
+    FOREIGN KEY (chunk_hash) REFERENCES chunk(hash)
+);
+
+CREATE TABLE IF NOT EXISTS pack (
+    id         CHAR(36)  PRIMARY KEY,
+    size       BIGINT    NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS pack_entry (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    pack_id      CHAR(36)  NOT NULL,
+    entry_offset BIGINT    NOT NULL,
+    length       INT       NOT NULL,
+    content_hash CHAR(64)  NOT NULL,
+    created_at   TIMESTAMP NOT NULL,
+    INDEX idx_pack_entry_pack_id (pack_id)
+);
+
+CREATE TABLE IF NOT EXISTS upload_idempotency (
+    id               BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id          BIGINT       NOT NULL,
+    idempotency_key  VARCHAR(255) NOT NULL,
+    file_name        VARCHAR(255) NOT NULL,
+    status           VARCHAR(16)  NOT NULL,
+    storage_status   VARCHAR(16),
+    upload_date_time TIMESTAMP    NULL,
+    created_at       TIMESTAMP    NOT NULL,
+    UNIQUE (user_id, idempotency_key),
+    INDEX idx_upload_idempotency_created_at (created_at)
+);
+
+CREATE TABLE IF NOT EXISTS upload_session (
+    id                  CHAR(36)      PRIMARY KEY,
+    user_id             BIGINT        NOT NULL,
+    file_name           VARCHAR(255)  NOT NULL,
+    content_type        VARCHAR(255),
+    upload_length       BIGINT        NOT NULL,
+    upload_offset       BIGINT        NOT NULL,
+    part_size           BIGINT        NOT NULL,
+    object_name         VARCHAR(512)  NOT NULL,
+    multipart_upload_id VARCHAR(1024) NOT NULL,
+    status              VARCHAR(16)   NOT NULL,
+    created_at          TIMESTAMP     NOT NULL,
+    expires_at          TIMESTAMP     NOT NULL,
+    INDEX idx_upload_session_expires_at (expires_at)
+);